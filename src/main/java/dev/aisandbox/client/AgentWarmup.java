@@ -0,0 +1,128 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentConnectionException;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.scenarios.BatchRuntime;
+import dev.aisandbox.client.scenarios.Scenario;
+import dev.aisandbox.client.scenarios.ScenarioRuntime;
+import dev.aisandbox.client.scenarios.SimulationException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AgentWarmup class.
+ *
+ * <p>Runs the agents against a throwaway copy of the scenario before the real run starts, so the
+ * measured steps don't include connection setup or either side loading and compiling code. The
+ * first step doubles as a readiness probe: connection errors are retried until the agent answers or
+ * the timeout runs out. The throwaway runtime is batched the same way as the measured one, so an
+ * agent that only accepts batches can be warmed up. Once the warm-up steps are done the agents'
+ * latency histograms and phase times are cleared, and any cache counters reset.
+ */
+@Slf4j
+public class AgentWarmup {
+
+  /**
+   * The last environment index used for the throwaway runtime, the warm-up environments count down
+   * from here so they won't repeat the measured environments when a salt is set.
+   */
+  static final int WARMUP_ENVIRONMENT = Integer.MAX_VALUE;
+
+  private static final long PROBE_INTERVAL = 500;
+
+  private AgentWarmup() {
+    // static methods only
+  }
+
+  /**
+   * Warm up a set of agents, they must already be setup.
+   *
+   * @param scenario the scenario being run.
+   * @param batchSize the number of environments the measured runtime runs at once.
+   * @param agents the agents to warm up.
+   * @param steps the number of steps to run and discard.
+   * @param readyTimeout how long (in milliseconds) to keep probing an agent that can't be reached.
+   * @throws AgentException if the agent isn't ready in time or fails during the warm-up.
+   * @throws SimulationException if the throwaway runtime fails.
+   */
+  public static void warmUp(
+      Scenario scenario, int batchSize, List<Agent> agents, int steps, long readyTimeout)
+      throws AgentException, SimulationException {
+    if (steps > 0) {
+      ScenarioRuntime runtime = createRuntime(scenario, batchSize);
+      try {
+        warmUp(runtime, agents, steps, readyTimeout);
+      } finally {
+        // don't leave a pipelined request in flight
+        runtime.close();
+      }
+    }
+  }
+
+  /**
+   * Create a throwaway runtime, built the same way as the measured one.
+   *
+   * @param scenario the scenario being run.
+   * @param batchSize the number of environments the measured runtime runs at once.
+   * @return a runtime for the warm-up environments.
+   */
+  public static ScenarioRuntime createRuntime(Scenario scenario, int batchSize) {
+    int size = Math.max(1, batchSize);
+    return BatchRuntime.createRuntime(scenario, size, WARMUP_ENVIRONMENT - (size - 1));
+  }
+
+  /**
+   * Warm up a set of agents using a runtime that has already been created.
+   *
+   * @param runtime a throwaway runtime from {@link #createRuntime(Scenario, int)}.
+   * @param agents the agents to warm up.
+   * @param steps the number of steps to run and discard.
+   * @param readyTimeout how long (in milliseconds) to keep probing an agent that can't be reached.
+   * @throws AgentException if the agent isn't ready in time or fails during the warm-up.
+   * @throws SimulationException if the throwaway runtime fails.
+   */
+  public static void warmUp(
+      ScenarioRuntime runtime, List<Agent> agents, int steps, long readyTimeout)
+      throws AgentException, SimulationException {
+    log.info("Warming up agents with {} steps", steps);
+    long start = System.currentTimeMillis();
+    runtime.setAgents(agents);
+    runtime.initialise();
+    awaitReady(runtime, start + readyTimeout);
+    for (int i = 1; i < steps; i++) {
+      runtime.advance();
+    }
+    for (Agent agent : agents) {
+      agent.getLatency().reset();
+      agent.getPhases().reset();
+      if (agent.getCache() != null) {
+        // the warm-up responses stay cached, but shouldn't count
+        agent.getCache().resetCounters();
+      }
+    }
+    log.info("Warm up finished after {}ms", System.currentTimeMillis() - start);
+  }
+
+  /** Take the first step, retrying while the agent can't be reached. */
+  private static void awaitReady(ScenarioRuntime runtime, long until)
+      throws AgentException, SimulationException {
+    while (true) {
+      try {
+        runtime.advance();
+        return;
+      } catch (AgentConnectionException e) {
+        if (System.currentTimeMillis() + PROBE_INTERVAL > until) {
+          throw e;
+        }
+        log.info("Agent {} not ready - {}", e.getTarget(), e.getMessage());
+        try {
+          Thread.sleep(PROBE_INTERVAL);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+}
@@ -2,13 +2,13 @@ package dev.aisandbox.client;
 
 import dev.aisandbox.client.agent.Agent;
 import dev.aisandbox.client.agent.AgentException;
-import dev.aisandbox.client.fx.GameRunController;
 import dev.aisandbox.client.output.FrameOutput;
 import dev.aisandbox.client.output.MP4Output;
 import dev.aisandbox.client.output.NoOutput;
 import dev.aisandbox.client.output.OutputFormat;
 import dev.aisandbox.client.output.PNGOutputWriter;
 import dev.aisandbox.client.profiler.AIProfiler;
+import dev.aisandbox.client.scenarios.BatchRuntime;
 import dev.aisandbox.client.scenarios.RuntimeResponse;
 import dev.aisandbox.client.scenarios.Scenario;
 import dev.aisandbox.client.scenarios.ScenarioRuntime;
@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
@@ -28,7 +30,6 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.scene.text.Font;
 import javax.swing.filechooser.FileSystemView;
 import lombok.Getter;
 import lombok.Setter;
@@ -44,7 +45,9 @@ import org.springframework.stereotype.Component;
  *
  * <ol>
  *   <li>setup the public properties.
+ *   <li>Add one or more {@link SimulationListener} to receive the results.
  *   <li>Call initialiseRuntime to setup the outputs.
+ *   <li>Optionally call warmUp to run the agents before anything is measured.
  *   <li>Repeatedly call advance to run the simulation.
  *   <li>Call reset when finished to close the output files.
  * </ol>
@@ -75,13 +78,29 @@ public class ApplicationModel {
   @Getter IntegerProperty statsOptionIndex = new SimpleIntegerProperty(0);
   long statsStepCount = -1; // how often should I save the stats
 
+  /** Should runtimes send the next request while the current frame is drawn and written. */
+  @Getter @Setter private boolean pipelined = false;
+
+  /** How many environments to run side by side, sending their requests in one batch. */
+  @Getter @Setter private int batchSize = 1;
+
+  /** Run each agent against its own copy of the scenario at once, see {@link TournamentRunner}. */
+  @Getter @Setter private boolean tournament = false;
+
+  /** How many throwaway steps to run before the simulation is measured, see {@link AgentWarmup}. */
+  @Getter @Setter private int warmupSteps = 0;
+
+  /** How long (in milliseconds) to wait for the agents to become ready during the warm-up. */
+  @Getter @Setter private long warmupTimeout = 30000;
+
   private ScenarioRuntime runtime = null;
   private FrameOutput frameOutput = null;
-  @Getter private GameRunController gameRunController = null;
-  private long stepsTaken = 0;
+  private final Set<SimulationListener> listeners = new CopyOnWriteArraySet<>();
+  @Getter private long stepsTaken = 0;
   private AIProfiler profiler = null;
   private long nextProfileUpdate = 0;
   private File workingDirectory;
+  private boolean warmedUp = false;
 
   /** Setup the model with useful default values. */
   public ApplicationModel() {
@@ -90,9 +109,6 @@ public class ApplicationModel {
         Bindings.and(
             Bindings.size(agentList).greaterThanOrEqualTo(minAgents),
             Bindings.size(agentList).lessThanOrEqualTo(maxAgents)));
-    // make sure the fonts are loaded.
-    Font.loadFont(ApplicationModel.class.getResourceAsStream("/fonts/Hack-Regular.ttf"), 12.0);
-    Font.loadFont(ApplicationModel.class.getResourceAsStream("/fonts/OpenSans-Regular.ttf"), 12.0);
     // work out the default directory to save
     try {
       outputDirectory = FileSystemView.getFileSystemView().getDefaultDirectory().getAbsoluteFile();
@@ -116,20 +132,36 @@ public class ApplicationModel {
   }
 
   /**
-   * Create and initialise runtime object.
+   * Register a listener to receive frames, profile updates and errors from the simulation.
    *
-   * @param controller the UI to post results to.
+   * @param listener the {@link SimulationListener} to add.
    */
-  public void initialiseRuntime(GameRunController controller) {
+  public void addSimulationListener(SimulationListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Stop a listener receiving simulation results.
+   *
+   * @param listener the {@link SimulationListener} to remove.
+   */
+  public void removeSimulationListener(SimulationListener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Create and initialise runtime object. */
+  public void initialiseRuntime() {
     // setup runtime
-    runtime = scenario.getRuntime();
+    runtime = BatchRuntime.createRuntime(scenario, batchSize, 0);
     runtime.setAgents(agentList);
+    runtime.setPipelined(pipelined);
+    if (pipelined && !runtime.isPipelineSupported()) {
+      log.warn("This runtime can't pipeline requests, they will be sent one step at a time");
+    }
     for (Agent a : agentList) {
       a.setupAgent();
     }
     runtime.initialise();
-    // store controller
-    this.gameRunController = controller;
     // setup output
     switch (outputFormat) {
       case PNG:
@@ -148,11 +180,11 @@ public class ApplicationModel {
         frameOutput.open(workingDirectory);
       } catch (IOException e) {
         log.error("Error setting up output", e);
-        controller.showSimulationError(new Exception("Error opening output."));
+        fireSimulationError(new Exception("Error opening output."));
       }
     }
-    // setup profiler
-    profiler = new AIProfiler();
+    createProfiler();
+    warmedUp = false;
     // reset steps count
     stepsTaken = 0;
     // work out stats steps from the index.
@@ -175,8 +207,47 @@ public class ApplicationModel {
     log.info("Saving stats every {} steps", statsStepCount);
   }
 
+  private void createProfiler() {
+    profiler = new AIProfiler();
+    for (int i = 0; i < agentList.size(); i++) {
+      profiler.addAgentLatency("Agent " + (i + 1), agentList.get(i).getLatency());
+      profiler.addAgentPhases("Agent " + (i + 1), agentList.get(i).getPhases());
+      if (agentList.get(i).getCache() != null) {
+        profiler.addAgentCache("Agent " + (i + 1), agentList.get(i).getCache());
+      }
+    }
+    nextProfileUpdate = 0;
+  }
+
   /**
-   * Advance runtime one step and post the results to the UI and output.
+   * Run the warm-up steps (if any) once after the runtime has been initialised, then start the
+   * profiler again so only the steady state is measured.
+   *
+   * <p>This may take a while, so it should be called from the simulation thread.
+   *
+   * @throws SimulationException Thrown when the warm-up runtime fails.
+   * @throws AgentException Thrown when an agent isn't ready in time or fails during the warm-up.
+   */
+  public void warmUp() throws SimulationException, AgentException {
+    if (warmedUp) {
+      return;
+    }
+    warmedUp = true;
+    if (warmupSteps > 0) {
+      try {
+        AgentWarmup.warmUp(scenario, batchSize, agentList, warmupSteps, warmupTimeout);
+      } catch (AgentException e) {
+        for (SimulationListener listener : listeners) {
+          listener.agentError(e);
+        }
+        throw e;
+      }
+      createProfiler();
+    }
+  }
+
+  /**
+   * Advance runtime one step and post the results to the listeners and output.
    *
    * @throws SimulationException Thrown when the runtime cannot run the simulation.
    * @throws IOException Thrown when the output cannot be written or when there is a problem talking
@@ -190,39 +261,68 @@ public class ApplicationModel {
       // show images
       for (BufferedImage image : response.getImages()) {
         frameOutput.addFrame(image);
-        gameRunController.updateBoardImage(image);
+        for (SimulationListener listener : listeners) {
+          listener.frameReady(image);
+        }
       }
       // update profiler
       profiler.addProfileStep(response.getProfileStep());
       if (System.currentTimeMillis() > nextProfileUpdate) {
-        gameRunController.updateProfileInformation(
-            profiler.getChartImage(),
-            profiler.getRunTime(),
-            profiler.getAverateStepTime(),
-            stepsTaken);
         // update profile in UI
+        for (SimulationListener listener : listeners) {
+          listener.profileUpdated(profiler, stepsTaken);
+        }
         nextProfileUpdate = System.currentTimeMillis() + 1000 * 5;
       }
       // check for stats
       if ((statsStepCount > -1) && (stepsTaken % statsStepCount == 0)) {
         // write stats
         runtime.writeStatistics(new File(workingDirectory, Long.toString(stepsTaken) + ".csv"));
+        profiler.writeStatistics(
+            new File(workingDirectory, Long.toString(stepsTaken) + "-latency.csv"));
       }
     } catch (AgentException e) {
       log.error("Recieved exception from run");
-      gameRunController.showAgentError(e);
+      for (SimulationListener listener : listeners) {
+        listener.agentError(e);
+      }
       // rethrow so the running thread finishes
       throw new AgentException(e.getTarget(), e.getMessage());
     }
   }
 
-  /** Close the output file (if any). */
+  /** Close the output file (if any) and any connections to the agents. */
   public void resetRuntime() {
     try {
       frameOutput.close();
     } catch (IOException e) {
       log.warn("Error closing frame output", e);
     }
+    // stop any requests sent ahead of time, then close any open connections
+    if (runtime != null) {
+      runtime.close();
+    }
+    for (Agent agent : agentList) {
+      agent.close();
+    }
+  }
+
+  /**
+   * Tell the listeners that the simulation has failed.
+   *
+   * @param e The exception that stopped the simulation.
+   */
+  void fireSimulationError(Exception e) {
+    for (SimulationListener listener : listeners) {
+      listener.simulationError(e);
+    }
+  }
+
+  /** Tell the listeners that the simulation thread has stopped. */
+  void fireSimulationStopped() {
+    for (SimulationListener listener : listeners) {
+      listener.simulationStopped();
+    }
   }
 
   private File createWorkingDirectory() {
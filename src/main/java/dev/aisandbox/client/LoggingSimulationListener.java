@@ -0,0 +1,80 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.agent.AgentParserException;
+import dev.aisandbox.client.output.FormatTools;
+import dev.aisandbox.client.profiler.AIProfiler;
+import java.awt.image.BufferedImage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LoggingSimulationListener class.
+ *
+ * <p>Used when running in headless mode, writes the progress of the simulation to the log.
+ */
+@Slf4j
+public class LoggingSimulationListener implements SimulationListener {
+
+  @Override
+  public void frameReady(BufferedImage image) {
+    // frames are only written to the output
+  }
+
+  @Override
+  public void profileUpdated(AIProfiler profiler, long stepCount) {
+    log.info(
+        "Steps: {} Run Time: {} Average Step: {}",
+        stepCount,
+        FormatTools.formatTime(profiler.getRunTime()),
+        FormatTools.formatTime(profiler.getAverateStepTime()));
+    profiler
+        .getAgentLatency()
+        .forEach((name, latency) -> log.info("{} latency {}", name, latency.getSummary()));
+    profiler
+        .getAgentPhases()
+        .forEach(
+            (name, phases) -> {
+              if (phases.getRequests() > 0) {
+                log.info("{} phases {}", name, phases.getSummary());
+              }
+              if (phases.getCompute().getCount() > 0) {
+                log.info("{} compute {}", name, phases.getCompute().getSummary());
+                log.info("{} overhead {}", name, phases.getOverhead().getSummary());
+              }
+            });
+    profiler
+        .getAgentCache()
+        .forEach(
+            (name, cache) ->
+                log.info(
+                    "{} cache hits {} misses {} ({}%)",
+                    name,
+                    cache.getHits(),
+                    cache.getMisses(),
+                    Math.round(cache.getHitRate() * 100)));
+  }
+
+  @Override
+  public void agentError(AgentException e) {
+    if (e instanceof AgentParserException) {
+      AgentParserException ape = (AgentParserException) e;
+      log.error(
+          "Error parsing response from {} (HTTP code {})\n{}",
+          e.getTarget(),
+          ape.getResponseCode(),
+          ape.getResponse());
+    } else {
+      log.error("Agent error from {} - {}", e.getTarget(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void simulationError(Exception e) {
+    log.error("Simulation error", e);
+  }
+
+  @Override
+  public void simulationStopped() {
+    log.info("Simulation stopped");
+  }
+}
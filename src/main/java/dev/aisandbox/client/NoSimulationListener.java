@@ -0,0 +1,38 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.profiler.AIProfiler;
+import java.awt.image.BufferedImage;
+
+/**
+ * NoSimulationListener class.
+ *
+ * <p>Ignores all simulation events.
+ */
+public class NoSimulationListener implements SimulationListener {
+
+  @Override
+  public void frameReady(BufferedImage image) {
+    // do nothing
+  }
+
+  @Override
+  public void profileUpdated(AIProfiler profiler, long stepCount) {
+    // do nothing
+  }
+
+  @Override
+  public void agentError(AgentException e) {
+    // do nothing
+  }
+
+  @Override
+  public void simulationError(Exception e) {
+    // do nothing
+  }
+
+  @Override
+  public void simulationStopped() {
+    // do nothing
+  }
+}
@@ -0,0 +1,46 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.profiler.AIProfiler;
+import java.awt.image.BufferedImage;
+
+/**
+ * Receives the results of a running simulation.
+ *
+ * <p>Listeners are registered with the {@link ApplicationModel} and are called from the simulation
+ * thread, so any work that needs a UI thread must be handed over by the implementation.
+ */
+public interface SimulationListener {
+
+  /**
+   * A new frame has been drawn by the scenario.
+   *
+   * @param image The pre-drawn {@link java.awt.image.BufferedImage}.
+   */
+  void frameReady(BufferedImage image);
+
+  /**
+   * The profile information has been updated.
+   *
+   * @param profiler The profiler holding the timings for the current run.
+   * @param stepCount The number of steps taken.
+   */
+  void profileUpdated(AIProfiler profiler, long stepCount);
+
+  /**
+   * An agent has failed and the simulation will stop.
+   *
+   * @param e The {@link AgentException} thrown by the agent.
+   */
+  void agentError(AgentException e);
+
+  /**
+   * The simulation has failed and will stop.
+   *
+   * @param e The exception thrown.
+   */
+  void simulationError(Exception e);
+
+  /** The simulation thread has stopped running. */
+  void simulationStopped();
+}
@@ -10,7 +10,7 @@ public class SimulationRunThread extends Thread {
 
   private long stepcount;
 
-  @Setter private boolean stopped = false;
+  @Setter private volatile boolean stopped = false;
 
   public SimulationRunThread(ApplicationModel model, long stepcount) {
     this.model = model;
@@ -25,6 +25,7 @@ public class SimulationRunThread extends Thread {
   @Override
   public void run() {
     try {
+      model.warmUp();
       while ((stepcount != 0) && !stopped) {
         log.info("Advancing simulation");
         model.advanceRuntime();
@@ -34,9 +35,9 @@ public class SimulationRunThread extends Thread {
       }
     } catch (Exception e) {
       log.warn("Exception while running simulation", e);
-      model.getGameRunController().showSimulationError(e);
+      model.fireSimulationError(e);
     }
     // Tell the UI that the run has finished
-    model.getGameRunController().resetStartButton();
+    model.fireSimulationStopped();
   }
 }
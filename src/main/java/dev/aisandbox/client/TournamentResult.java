@@ -0,0 +1,58 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.profiler.LatencyHistogram;
+import lombok.Getter;
+
+/**
+ * TournamentResult class.
+ *
+ * <p>The outcome of one agent's run in a {@link TournamentRunner}.
+ */
+public class TournamentResult {
+
+  /** The agent's position in the tournament, starting at one. */
+  @Getter private final int agentNumber;
+
+  @Getter private final String target;
+  @Getter private final long stepsTaken;
+  /** The wall clock time of the run in milliseconds. */
+  @Getter private final long runTime;
+
+  @Getter private final LatencyHistogram latency;
+  /** Why the run stopped early, or null if it completed. */
+  @Getter private final String error;
+
+  /**
+   * Create a result.
+   *
+   * @param agentNumber the agent's position, starting at one.
+   * @param target the agent's target.
+   * @param stepsTaken the number of steps completed.
+   * @param runTime the run time in milliseconds.
+   * @param latency the agent's response times.
+   * @param error the reason the run stopped early, or null.
+   */
+  public TournamentResult(
+      int agentNumber,
+      String target,
+      long stepsTaken,
+      long runTime,
+      LatencyHistogram latency,
+      String error) {
+    this.agentNumber = agentNumber;
+    this.target = target;
+    this.stepsTaken = stepsTaken;
+    this.runTime = runTime;
+    this.latency = latency;
+    this.error = error;
+  }
+
+  /**
+   * Did the run finish without an error.
+   *
+   * @return true if every step was completed.
+   */
+  public boolean isCompleted() {
+    return error == null;
+  }
+}
@@ -0,0 +1,295 @@
+package dev.aisandbox.client;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.parameters.LongParameter;
+import dev.aisandbox.client.scenarios.BatchRuntime;
+import dev.aisandbox.client.scenarios.Scenario;
+import dev.aisandbox.client.scenarios.ScenarioRuntime;
+import dev.aisandbox.client.scenarios.SimulationException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TournamentRunner class.
+ *
+ * <p>Compares several agents by giving each one its own copy of a scenario and running them at the
+ * same time on a thread pool. Every copy is created from the same scenario settings, and if the
+ * scenario's random salt is zero a shared salt is picked for the run, so each agent sees the same
+ * environment.
+ *
+ * <p>A failing agent (or a bug in its copy of the scenario) only stops that agent, the error is
+ * reported in its {@link TournamentResult}.
+ *
+ * <p>No frames are written in a tournament. If an output directory is set, each agent's statistics
+ * are written to {@code agent-N.csv} and a comparison of all the agents to {@code tournament.csv}.
+ */
+@Slf4j
+public class TournamentRunner {
+
+  private final Scenario scenario;
+  private final List<Agent> agents;
+  private final long steps;
+
+  /** The most agents to run at once, defaults to the number of processors. */
+  @Getter @Setter private int threads = Runtime.getRuntime().availableProcessors();
+
+  /** How many environments each agent runs at once, see {@link BatchRuntime}. */
+  @Getter @Setter private int batchSize = 1;
+
+  /** Should the runtimes send the next request while the current frame is drawn. */
+  @Getter @Setter private boolean pipelined = false;
+
+  /** Where to write the statistics and report, null to skip them. */
+  @Getter @Setter private File outputDirectory = null;
+
+  /** How many throwaway steps each agent runs before it is measured, see {@link AgentWarmup}. */
+  @Getter @Setter private int warmupSteps = 0;
+
+  /** How long (in milliseconds) to wait for each agent to become ready. */
+  @Getter @Setter private long warmupTimeout = 30000;
+
+  @Setter private volatile boolean stopped = false;
+
+  /** Released once {@link #run()} has returned, after the statistics and report are written. */
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  /**
+   * Create a tournament.
+   *
+   * @param scenario the scenario to run.
+   * @param agents the agents to compare.
+   * @param steps the number of steps each agent runs for, negative to run until stopped.
+   */
+  public TournamentRunner(Scenario scenario, List<Agent> agents, long steps) {
+    this.scenario = scenario;
+    this.agents = new ArrayList<>(agents);
+    this.steps = steps;
+  }
+
+  /**
+   * Run every agent and wait for them all to finish.
+   *
+   * @return one result per agent, in the order the agents were given.
+   * @throws InterruptedException if the calling thread is interrupted while waiting.
+   */
+  public List<TournamentResult> run() throws InterruptedException {
+    try {
+      return runAgents();
+    } finally {
+      finished.countDown();
+    }
+  }
+
+  /**
+   * Stop the agents after their current step and wait for the run to finish writing its results,
+   * used when the JVM is shutting down.
+   *
+   * @param timeout how long to wait in milliseconds.
+   */
+  public void stop(long timeout) {
+    stopped = true;
+    try {
+      if (!finished.await(timeout, TimeUnit.MILLISECONDS)) {
+        log.warn("Tournament didn't stop within {}ms", timeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<TournamentResult> runAgents() throws InterruptedException {
+    // runtimes are created up front, scenarios aren't expected to be thread safe
+    List<ScenarioRuntime> runtimes = new ArrayList<>();
+    List<ScenarioRuntime> warmupRuntimes = new ArrayList<>();
+    LongParameter fixed = fixSalt();
+    try {
+      for (int i = 0; i < agents.size(); i++) {
+        runtimes.add(BatchRuntime.createRuntime(scenario, batchSize, 0));
+        warmupRuntimes.add(warmupSteps > 0 ? AgentWarmup.createRuntime(scenario, batchSize) : null);
+      }
+    } finally {
+      // the runtimes have their seeds, put the scenario back as the user left it
+      restoreSalt(fixed);
+    }
+    if (pipelined && !runtimes.isEmpty() && !runtimes.get(0).isPipelineSupported()) {
+      log.warn("This runtime can't pipeline requests, they will be sent one step at a time");
+    }
+    int poolSize = Math.max(1, Math.min(threads, agents.size()));
+    log.info("Running {} agents on {} threads", agents.size(), poolSize);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(poolSize, new TournamentThreadFactory());
+    List<TournamentResult> results = new ArrayList<>();
+    try {
+      List<Future<TournamentResult>> futures = new ArrayList<>();
+      for (int i = 0; i < agents.size(); i++) {
+        final int index = i;
+        futures.add(
+            executor.submit(
+                () ->
+                    runAgent(
+                        index + 1,
+                        agents.get(index),
+                        runtimes.get(index),
+                        warmupRuntimes.get(index))));
+      }
+      for (Future<TournamentResult> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          // runAgent catches the agent's exceptions, so only an Error gets here
+          throw new IllegalStateException("Tournament run failed", e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    if (outputDirectory != null) {
+      writeReport(new File(outputDirectory, "tournament.csv"), results);
+    }
+    return results;
+  }
+
+  private TournamentResult runAgent(
+      int number, Agent agent, ScenarioRuntime runtime, ScenarioRuntime warmupRuntime) {
+    long stepsTaken = 0;
+    String error = null;
+    boolean initialised = false;
+    long start = System.currentTimeMillis();
+    try {
+      runtime.setAgents(Collections.singletonList(agent));
+      runtime.setPipelined(pipelined);
+      agent.setupAgent();
+      if (warmupRuntime != null) {
+        AgentWarmup.warmUp(
+            warmupRuntime, Collections.singletonList(agent), warmupSteps, warmupTimeout);
+        // the run time doesn't include the warm-up
+        start = System.currentTimeMillis();
+      }
+      runtime.initialise();
+      initialised = true;
+      while ((steps < 0 || stepsTaken < steps) && !stopped) {
+        runtime.advance();
+        stepsTaken++;
+      }
+    } catch (AgentException e) {
+      log.warn("Agent {} stopped after {} steps - {}", number, stepsTaken, e.getMessage());
+      error = e.getMessage();
+    } catch (SimulationException e) {
+      log.warn("Simulation for agent {} stopped after {} steps", number, stepsTaken, e);
+      error = e.getMessage();
+    } catch (RuntimeException e) {
+      log.error("Agent {} failed after {} steps", number, stepsTaken, e);
+      error = e.toString();
+    } finally {
+      // drop any request sent ahead of time before the connections are closed
+      if (warmupRuntime != null) {
+        warmupRuntime.close();
+      }
+      runtime.close();
+      agent.close();
+    }
+    long runTime = System.currentTimeMillis() - start;
+    log.info("Agent {} finished {} steps in {}ms", number, stepsTaken, runTime);
+    // runtimes only have statistics once they have been initialised
+    if (outputDirectory != null && initialised) {
+      try {
+        runtime.writeStatistics(new File(outputDirectory, "agent-" + number + ".csv"));
+      } catch (RuntimeException e) {
+        log.error("Error writing statistics for agent {}", number, e);
+        if (error == null) {
+          error = e.toString();
+        }
+      }
+    }
+    return new TournamentResult(
+        number, agent.getTarget(), stepsTaken, runTime, agent.getLatency(), error);
+  }
+
+  /**
+   * Give every runtime the same seed by replacing a zero (random) salt with a random one.
+   *
+   * @return the salt parameter if it was changed, to pass to {@link #restoreSalt(LongParameter)},
+   *     otherwise null.
+   */
+  private LongParameter fixSalt() {
+    LongParameter parameter = scenario.getSaltParameter();
+    if (parameter == null || parameter.getValue() != 0) {
+      return null;
+    }
+    long salt = 1L + new Random().nextInt(Integer.MAX_VALUE);
+    parameter.setValue(salt);
+    log.info("Using {}={} for every agent", parameter.getParameterKey(), salt);
+    return parameter;
+  }
+
+  /**
+   * Set the salt changed by {@link #fixSalt()} back to zero, so the next run picks a new one.
+   *
+   * @param fixed the salt parameter that was changed, or null.
+   */
+  private static void restoreSalt(LongParameter fixed) {
+    if (fixed != null) {
+      fixed.setValue(0);
+    }
+  }
+
+  /**
+   * Write a CSV comparison of the agents, with one row per agent and times in milliseconds.
+   *
+   * @param reportFile the file to write.
+   * @param results the results to compare.
+   */
+  public static void writeReport(File reportFile, List<TournamentResult> results) {
+    try (PrintWriter out = new PrintWriter(new FileWriter(reportFile))) {
+      out.println("Agent,Target,Steps,Run Time,Mean Step,Mean Latency,P50,P99,Max,Error");
+      for (TournamentResult result : results) {
+        out.println(
+            String.format(
+                "%d,\"%s\",%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,\"%s\"",
+                result.getAgentNumber(),
+                result.getTarget(),
+                result.getStepsTaken(),
+                result.getRunTime(),
+                result.getStepsTaken() == 0
+                    ? 0.0
+                    : (double) result.getRunTime() / result.getStepsTaken(),
+                result.getLatency().getMean() / 1000.0,
+                result.getLatency().getValueAtPercentile(50.0) / 1000.0,
+                result.getLatency().getValueAtPercentile(99.0) / 1000.0,
+                result.getLatency().getMax() / 1000.0,
+                result.isCompleted() ? "" : result.getError().replace('"', '\'')));
+      }
+    } catch (IOException e) {
+      log.warn("Error writing tournament report", e);
+    }
+  }
+
+  private static class TournamentThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "tournament-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -1,35 +1,94 @@
 package dev.aisandbox.client.agent;
 
+import dev.aisandbox.client.profiler.LatencyHistogram;
+import dev.aisandbox.client.profiler.NetworkPhases;
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.BatchResponse;
 import dev.aisandbox.client.scenarios.ServerRequest;
-import java.net.MalformedURLException;
-import java.net.URL;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import org.springframework.core.ResolvableType;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.util.CollectionUtils;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Represents an external server which the scenario can talk to.
  *
+ * <p>Requests are sent through a pooled OkHttp client, so connections to the agent are kept alive
+ * and reused between steps (unless {@code keepAlive} is turned off). Setting {@code http2} will use
+ * HTTP/2 with prior knowledge (h2c) for plain HTTP targets, multiplexing requests over a single
+ * connection.
+ *
+ * <p>With the WebSocket {@link AgentTransport} a single socket is kept open for the whole run
+ * instead, and each request and response is sent as one message. The local transport skips
+ * serialisation altogether, passing the request objects to a {@link LocalAgent}, while the process
+ * transport starts the agent as a child program and talks to it over its standard input and output.
+ * An agent on the same machine can also use the shared memory transport, which passes messages
+ * through a memory mapped file (see {@link SharedMemoryChannel}).
+ *
+ * <p>Requests can also be sent with {@link #postRequestAsync(ServerRequest, Class)}, letting a
+ * runtime draw the current frame while the agent works out its next move.
+ *
+ * <p>A {@code deadline} limits the total time spent on one request, after which an {@link
+ * AgentTimeoutException} is thrown rather than stalling the simulation. Requests that fail with a
+ * connection error can be retried, and slow HTTP requests can be hedged by sending a copy to a
+ * second replica ({@code hedgeTarget}) once they have taken longer than a percentile of this
+ * agent's recent response times.
+ *
+ * <p>An HTTP target can list several replicas of the agent, separated by commas, in which case the
+ * requests are shared between them by an {@link AgentReplicaPool} using the {@code balancing}
+ * strategy. Retries go to whichever replica the pool picks next.
+ *
+ * <p>Large HTTP requests can be compressed (see {@link AgentCompression}) once they reach {@code
+ * compressionThreshold} bytes, which helps when the link to the agent is slower than the agent.
+ *
+ * <p>The time spent on each HTTP request is split into {@link NetworkPhases} (connecting, encoding,
+ * writing, waiting for the first byte, reading and decoding) by an {@link AgentPhaseTimer}. Agents
+ * can also report their own compute time in the {@value AgentPhaseTimer#COMPUTE_HEADER} header, to
+ * tell it apart from the transport overhead.
+ *
+ * <p>Setting a {@code recordFile} writes every exchange to an {@link AgentRecorder} recording,
+ * which the {@link AgentTransport#REPLAY} transport can play back later without the agent.
+ *
+ * <p>For deterministic agents a {@code cacheSize} can be set, so requests the agent has already
+ * answered are served from an {@link AgentResponseCache} instead of being sent again. Cached
+ * answers aren't added to the latency histogram.
+ *
+ * <p>Every transport, HTTP included, is an {@link AgentChannel}. The replicas, the cache and the
+ * recorder are wrappers around the channel ({@link ReplicaChannel}, {@link CachingChannel} and
+ * {@link RecordingChannel}), while the agent keeps the deadline, retries, hedging and latency.
+ *
  * <p>Uses the Lombok library to auto generate lots of the getters / setters.
  *
  * @author gde
@@ -38,25 +97,106 @@ import org.springframework.web.client.RestTemplate;
 @Slf4j
 public class Agent {
 
-  // TODO - this class uses RestTemplate it should be migrated to WebClient for more control over
-  // timeouts
+  /** How many idle connections are kept open to each agent. */
+  private static final int MAX_IDLE_CONNECTIONS = 5;
+
+  /** How long an idle connection is kept open, in minutes. */
+  private static final long KEEP_ALIVE_DURATION = 5;
+
+  /** Threads used to wait for asynchronous requests, shared by all agents. */
+  private static final ExecutorService REQUEST_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+              Thread t = new Thread(r, "agent-request-" + count.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            }
+          });
 
   @Getter(AccessLevel.PROTECTED)
   private RestTemplate restTemplate = null;
 
   @Getter private AgentResponseLogger responseLogger = null;
   private HttpHeaders restHeaders = null;
-  @Getter @Setter private boolean enableXML = false;
+  /** The HTTP client from the last setup, kept so its connections can be closed. */
+  @Getter(AccessLevel.PACKAGE)
+  private OkHttpClient httpClient = null;
+
+  @Getter @Setter private AgentLanguage language = AgentLanguage.JSON;
   @Getter private String target = "http://localhost:8080/ai";
+  @Getter private AgentTransport transport = AgentTransport.HTTP;
+  /** The transport, an {@link HttpChannel} or {@link ReplicaChannel} for HTTP agents. */
+  private AgentChannel channel = null;
+  /** The channel to the hedge target, or null if hedging is turned off. */
+  private AgentChannel hedgeChannel = null;
+  /** The channel requests are sent through, the transport with any recorder and cache around it. */
+  private AgentChannel pipeline = null;
+  /** How requests are shared when the HTTP target lists several replicas. */
+  @Getter @Setter private AgentBalancing balancing = AgentBalancing.ROUND_ROBIN;
+  /** The replicas of an HTTP agent, or null if the target is a single URL. */
+  @Getter private AgentReplicaPool replicas = null;
+
+  /** Round trip times of the requests sent since the agent was last set up. */
+  @Getter private final LatencyHistogram latency = new LatencyHistogram();
+
+  /** Where the time goes in each HTTP request, since the agent was last set up. */
+  @Getter private final NetworkPhases phases = new NetworkPhases();
+
+  private AgentPhaseTimer phaseTimer = null;
+
+  /** The call each thread is making, so a single channel's requests can be cancelled. */
+  private final HttpCallRegistry calls = new HttpCallRegistry();
+
   @Getter @Setter private boolean apiKey = false;
   @Getter @Setter private String apiKeyHeader = "";
   @Getter @Setter private String apiKeyValue = "";
   @Getter @Setter private boolean basicAuth = false;
   @Getter @Setter private String basicAuthUsername = "";
   @Getter @Setter private String basicAuthPassword = "";
+  /** Time allowed to open a connection in milliseconds, zero for no limit. */
+  @Getter @Setter private int connectTimeout = 10000;
+  /** Time allowed to wait for (and read) the response in milliseconds, zero for no limit. */
+  @Getter @Setter private int readTimeout = 0;
+  /**
+   * Time allowed for a whole request in milliseconds, including any retries and hedged requests,
+   * zero for no limit.
+   */
+  @Getter @Setter private int deadline = 0;
+  /**
+   * How many times to resend a request after a connection error, timeout or server (5xx) error.
+   * Only set this for agents that give the same answer when they see the same request twice.
+   */
+  @Getter @Setter private int retries = 0;
+  /** A second copy of the agent to send slow HTTP requests to as well, empty to turn this off. */
+  @Getter @Setter private String hedgeTarget = "";
+  /** Send the hedged request once a response has taken longer than this percentile of latency. */
+  @Getter @Setter private double hedgePercentile = 95.0;
+  /** How to compress HTTP request bodies, the agent must accept the Content-Encoding used. */
+  @Getter @Setter private AgentCompression compression = AgentCompression.NONE;
+  /** Requests smaller than this (in bytes) are sent uncompressed. */
+  @Getter @Setter private int compressionThreshold = 1024;
+  /** A file to record every exchange in, empty to turn recording off. */
+  @Getter @Setter private String recordFile = "";
+
+  /** How many responses to remember for repeated requests, zero to turn the cache off. */
+  @Getter @Setter private int cacheSize = 0;
+
+  /** The response cache, or null if it is turned off. */
+  @Getter private AgentResponseCache cache = null;
+
+  @Getter @Setter private boolean keepAlive = true;
+  @Getter @Setter private boolean http2 = false;
   @Getter private final BooleanProperty validProperty = new SimpleBooleanProperty(true);
 
-  private static final String RESPONSE_PARSE_ERROR = "Error parsing response";
+  /** How many responses to time before hedging, so the percentile means something. */
+  private static final int MIN_HEDGE_SAMPLES = 20;
+
+  /** Pause before the first retry in milliseconds, this doubles for each further retry. */
+  private static final long RETRY_DELAY = 50;
 
   /**
    * Setup the agent ready for use.
@@ -64,15 +204,13 @@ public class Agent {
    * <p>This compiles the HTTP headers based on the supplied settings.
    */
   public void setupAgent() {
-    log.info("Setting up agent to use {}", enableXML ? "XML" : "JSON");
+    log.info("Setting up agent to use {} over {}", language, http2 ? "HTTP/2" : "HTTP");
+    latency.reset();
+    phases.reset();
+    phaseTimer = new AgentPhaseTimer(phases);
     restHeaders = new HttpHeaders();
-    if (enableXML) {
-      restHeaders.setContentType(MediaType.APPLICATION_XML);
-      restHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_XML));
-    } else {
-      restHeaders.setContentType(MediaType.APPLICATION_JSON);
-      restHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-    }
+    restHeaders.setContentType(language.getMediaType());
+    restHeaders.setAccept(Collections.singletonList(language.getMediaType()));
     // add basic auth
     if (basicAuth) {
       restHeaders.add(
@@ -85,23 +223,180 @@ public class Agent {
     if (apiKey) {
       restHeaders.add(apiKeyHeader, apiKeyValue);
     }
-    // create template
-    restTemplate =
-        new RestTemplate(
-            new BufferingClientHttpRequestFactory(new SimpleClientHttpRequestFactory()));
-    // add logger
+    if (!keepAlive) {
+      restHeaders.setConnection("close");
+    }
+    // close the connections from the last setup, then create the template
+    close();
+    httpClient = createHttpClient();
+    restTemplate = new RestTemplate(new OkHttp3ClientHttpRequestFactory(httpClient));
+    // make sure the chosen language is tried first (and is available for MessagePack)
+    restTemplate.getMessageConverters().add(0, language.createConverter());
+    // add compression, timing and logger
     List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
     if (CollectionUtils.isEmpty(interceptors)) {
       interceptors = new ArrayList<>();
     }
+    if (compression != AgentCompression.NONE) {
+      interceptors.add(new AgentCompressionInterceptor(compression, compressionThreshold));
+    }
+    interceptors.add(phaseTimer);
     responseLogger = new AgentResponseLogger();
     interceptors.add(responseLogger);
     restTemplate.setInterceptors(interceptors);
+    List<String> urls = AgentReplicaPool.parseTargets(target);
+    replicas =
+        transport == AgentTransport.HTTP && urls.size() > 1
+            ? new AgentReplicaPool(urls, balancing)
+            : null;
+    switch (transport) {
+      case WEBSOCKET:
+        channel =
+            new WebSocketChannel(target, httpClient, createHandshake(), language, readTimeout);
+        break;
+      case LOCAL:
+        channel = new LocalChannel(target);
+        break;
+      case PROCESS:
+        channel = new ProcessChannel(target, language);
+        break;
+      case SHARED_MEMORY:
+        channel = new SharedMemoryChannel(target, language, readTimeout);
+        break;
+      case REPLAY:
+        channel = new ReplayChannel(target);
+        break;
+      default: // HTTP
+        channel =
+            replicas != null
+                ? new ReplicaChannel(replicas, this::createHttpChannel)
+                : createHttpChannel(target);
+        if (hedgeTarget != null && !hedgeTarget.isBlank()) {
+          hedgeChannel = createHttpChannel(hedgeTarget);
+        }
+    }
+    // wrap the transport, the recorder goes outside the cache so cached answers are recorded too
+    pipeline = new DispatchChannel();
+    cache = cacheSize > 0 ? new AgentResponseCache(cacheSize) : null;
+    if (cache != null) {
+      pipeline = new CachingChannel(pipeline, cache);
+    }
+    if (recordFile != null && !recordFile.isBlank()) {
+      try {
+        pipeline = new RecordingChannel(pipeline, new AgentRecorder(new File(recordFile)));
+      } catch (IOException e) {
+        log.error("Can't record to {}, recording is off", recordFile, e);
+      }
+    }
+  }
+
+  private AgentChannel createHttpChannel(String url) {
+    return new HttpChannel(url, restTemplate, restHeaders, phaseTimer, responseLogger, calls);
+  }
+
+  /**
+   * Create the request used to open a WebSocket, this carries the authentication headers.
+   *
+   * @return the upgrade {@link Request}.
+   */
+  private Request createHandshake() {
+    Request.Builder builder = new Request.Builder().url(target);
+    restHeaders.forEach(
+        (name, values) -> {
+          if (!HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+              && !HttpHeaders.ACCEPT.equalsIgnoreCase(name)
+              && !HttpHeaders.CONNECTION.equalsIgnoreCase(name)) {
+            values.forEach(value -> builder.addHeader(name, value));
+          }
+        });
+    return builder.build();
+  }
+
+  /** Close any long lived connection to the agent, it will be reopened if needed. */
+  public void close() {
+    if (pipeline != null) {
+      // closes the transport and the recording
+      pipeline.close();
+      pipeline = null;
+    }
+    channel = null;
+    hedgeChannel = null;
+    if (httpClient != null) {
+      // rather than leave idle keep-alive connections open until they time out
+      httpClient.connectionPool().evictAll();
+      httpClient.dispatcher().executorService().shutdown();
+    }
+  }
+
+  /**
+   * Give up on every request still in progress, such as one a pipelined runtime sent ahead of time.
+   * The callers waiting for them fail with an {@link AgentConnectionException}, the agent can still
+   * be used for new requests over HTTP but other transports have to be set up again.
+   */
+  public void abort() {
+    if (pipeline != null) {
+      pipeline.abort();
+    }
+    if (httpClient != null) {
+      httpClient.dispatcher().cancelAll();
+    }
+  }
+
+  /**
+   * Create the HTTP client used to talk to this agent.
+   *
+   * @return a configured {@link OkHttpClient}.
+   */
+  private OkHttpClient createHttpClient() {
+    OkHttpClient.Builder builder =
+        new OkHttpClient.Builder()
+            .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+            .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+            .callTimeout(deadline, TimeUnit.MILLISECONDS)
+            .retryOnConnectionFailure(false)
+            .addInterceptor(calls)
+            .eventListenerFactory(phaseTimer.eventListenerFactory());
+    if (keepAlive) {
+      builder.connectionPool(
+          new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES));
+    } else {
+      builder.connectionPool(new ConnectionPool(0, 1, TimeUnit.MILLISECONDS));
+    }
+    if (!http2) {
+      builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+    } else if (target.startsWith("http:")) {
+      // no TLS so no ALPN, the agent must accept HTTP/2 without an upgrade
+      builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    }
+    // otherwise the default protocols negotiate HTTP/2 over TLS
+    return builder.build();
+  }
+
+  /**
+   * Is this agent using XML.
+   *
+   * @return true if the language is XML.
+   */
+  public boolean isEnableXML() {
+    return language == AgentLanguage.XML;
+  }
+
+  /**
+   * Switch between XML and JSON.
+   *
+   * @param enableXML true for XML, false for JSON.
+   */
+  public void setEnableXML(boolean enableXML) {
+    language = enableXML ? AgentLanguage.XML : AgentLanguage.JSON;
   }
 
   /**
    * Set the target URL
    *
+   * <p>This is a http(s):// URL for the HTTP transport, a ws(s):// URL for a WebSocket, the name of
+   * a {@link LocalAgent} or the command line of an agent process.
+   *
    * <p>This will also update the {@code valid} property to show if the URL makes sense.
    *
    * @param url The URL in the form of a {@link java.lang.String}.
@@ -109,13 +404,28 @@ public class Agent {
   public void setTarget(String url) {
     log.info("Setting target to {}", url);
     this.target = url;
-    try {
-      new URL(url);
-      validProperty.set(true);
-    } catch (MalformedURLException e) {
-      log.warn("Invalid URL passed", e);
-      validProperty.set(false);
+    validateTarget();
+  }
+
+  /**
+   * Set how requests are sent to the agent.
+   *
+   * <p>This will also update the {@code valid} property, as each transport expects a different type
+   * of target.
+   *
+   * @param transport the {@link AgentTransport} to use.
+   */
+  public void setTransport(AgentTransport transport) {
+    this.transport = transport;
+    validateTarget();
+  }
+
+  private void validateTarget() {
+    boolean valid = transport.isValidTarget(target);
+    if (!valid) {
+      log.warn("Invalid target '{}' for {} agent", target, transport);
     }
+    validProperty.set(valid);
   }
 
   /**
@@ -126,45 +436,300 @@ public class Agent {
    * @param responseType The class of a {@link dev.aisandbox.client.scenarios.ServerResponse} object
    *     to return
    * @param <T> The object type to be returned.
-   * @return the JSON or XML response deserialised into the specified class.
+   * @return the response deserialised into the specified class.
    * @throws dev.aisandbox.client.agent.AgentException if any.
    */
   public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+    return pipeline.exchange(req, responseType);
+  }
+
+  /**
+   * Send the requests from several environments in one POST and wait for all of the responses.
+   *
+   * <p>Batches are only supported by the Jackson based languages, not XML.
+   *
+   * @param batch the requests to send.
+   * @param responseType The class of the {@link dev.aisandbox.client.scenarios.ServerResponse}
+   *     objects returned in the batch.
+   * @param <T> The object type to be returned.
+   * @return a response for each request, in the same order.
+   * @throws dev.aisandbox.client.agent.AgentException if any.
+   */
+  public <T extends ServerResponse> List<T> postBatch(BatchRequest<?> batch, Class<T> responseType)
+      throws AgentException {
+    if (language == AgentLanguage.XML && transport != AgentTransport.LOCAL) {
+      throw new AgentParserException(target, "Batched requests can't be sent as XML");
+    }
+    // the size of the batch is checked by send, on the thread that received it
+    BatchResponse<T> response =
+        pipeline.exchange(
+            batch,
+            ResolvableType.forClassWithGenerics(BatchResponse.class, responseType).getType());
+    return response.getResponses();
+  }
+
+  /**
+   * The innermost wrapper around the transport, sending each request within the deadline and with
+   * any retries or hedging. The round trip time is added to the {@code latency} histogram,
+   * including failed requests, so timeouts show up in the tail.
+   */
+  private class DispatchChannel implements AgentChannel {
+
+    @Override
+    public <T> T exchange(Object request, Type responseType) throws AgentException {
+      long start = System.nanoTime();
+      try {
+        long end = deadline > 0 ? start + TimeUnit.MILLISECONDS.toNanos(deadline) : Long.MAX_VALUE;
+        if (transport == AgentTransport.REPLAY) {
+          // each recorded outcome is used once, so no retries and nothing to wait for
+          return send(request, responseType, channel, target);
+        } else if (deadline <= 0 && !isHedging()) {
+          // nothing to watch, so send on the caller's thread
+          return sendWithRetries(request, responseType, channel, target, end, () -> false);
+        } else {
+          return sendWithDeadline(request, responseType, end);
+        }
+      } finally {
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      }
+    }
+
+    @Override
+    public void abort() {
+      channel.abort();
+      if (hedgeChannel != null) {
+        hedgeChannel.abort();
+      }
+    }
+
+    @Override
+    public void close() {
+      channel.close();
+      if (hedgeChannel != null) {
+        hedgeChannel.close();
+      }
+    }
+  }
+
+  /** Hedging needs a second HTTP target and enough history to pick a delay. */
+  private boolean isHedging() {
+    return hedgeChannel != null && latency.getCount() >= MIN_HEDGE_SAMPLES;
+  }
+
+  /**
+   * Send the request on a background thread, giving up at the deadline. If hedging is turned on and
+   * the agent is slower than usual, the same request is also sent to the hedge target and the first
+   * successful reply is used, and the other request is cancelled.
+   */
+  private <T> T sendWithDeadline(Object body, Type responseType, long end) throws AgentException {
+    CompletableFuture<T> reply = sendAsync(body, responseType, channel, target, end);
+    if (isHedging()) {
+      long hedgeDelay =
+          TimeUnit.MICROSECONDS.toNanos(latency.getValueAtPercentile(hedgePercentile));
+      long hedgeAt = System.nanoTime() + hedgeDelay;
+      if (hedgeAt - end < 0 && !waitForReply(reply, hedgeAt)) {
+        log.debug(
+            "No reply from {} after {}us, hedging to {}", target, hedgeDelay / 1000, hedgeTarget);
+        reply =
+            firstSuccess(
+                reply,
+                channel,
+                sendAsync(body, responseType, hedgeChannel, hedgeTarget, end),
+                hedgeChannel);
+      }
+    }
+    if (!waitForReply(reply, end)) {
+      reply.cancel(true);
+      // a late reply would be taken as the answer to the next request
+      channel.abort();
+      throw new AgentTimeoutException(target, "No response within " + deadline + "ms");
+    }
+    return awaitResponse(reply);
+  }
+
+  /**
+   * Send a request on a background thread. Cancelling the future stops any further retries, but the
+   * channel has to be aborted to stop the request in progress.
+   */
+  private <T> CompletableFuture<T> sendAsync(
+      Object body, Type responseType, AgentChannel to, String url, long end) {
+    CompletableFuture<T> reply = new CompletableFuture<>();
+    REQUEST_EXECUTOR.execute(
+        () -> {
+          try {
+            reply.complete(sendWithRetries(body, responseType, to, url, end, reply::isDone));
+          } catch (AgentException | RuntimeException e) {
+            reply.completeExceptionally(e);
+          }
+        });
+    return reply;
+  }
+
+  /**
+   * Wait until a reply has arrived (or failed).
+   *
+   * @return false if the time ran out first.
+   */
+  private static boolean waitForReply(CompletableFuture<?> reply, long until) {
     try {
-      // request entity is created with request headers
-      HttpEntity<ServerRequest> requestEntity = new HttpEntity<>(req, restHeaders);
-      ResponseEntity response =
-          restTemplate.exchange(target, HttpMethod.POST, requestEntity, responseType);
-      switch (response.getStatusCode()) {
-        case RESET_CONTENT:
-          throw new AgentResetException(target, "Reset content request");
-        default:
-          // convert
-          return responseType.cast(response.getBody());
+      reply.get(Math.max(0, until - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | CancellationException e) {
+      // reported by awaitResponse
+    }
+    return true;
+  }
+
+  /**
+   * Combine two requests, completing with the first success or the last failure. Once the result is
+   * known (or given up on) the request still in progress is cancelled and its channel aborted.
+   */
+  private static <T> CompletableFuture<T> firstSuccess(
+      CompletableFuture<T> first,
+      AgentChannel firstChannel,
+      CompletableFuture<T> second,
+      AgentChannel secondChannel) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicInteger failures = new AtomicInteger();
+    BiConsumer<T, Throwable> handler =
+        (value, error) -> {
+          if (error == null) {
+            result.complete(value);
+          } else if (failures.incrementAndGet() == 2) {
+            result.completeExceptionally(error);
+          }
+        };
+    first.whenComplete(handler);
+    second.whenComplete(handler);
+    result.whenComplete(
+        (value, error) -> {
+          cancel(first, firstChannel);
+          cancel(second, secondChannel);
+        });
+    return result;
+  }
+
+  /** Stop a request that is still in progress. */
+  private static void cancel(CompletableFuture<?> reply, AgentChannel to) {
+    if (reply.cancel(true)) {
+      to.abort();
+    }
+  }
+
+  /**
+   * Send a request, trying again after connection errors, timeouts and server errors while there
+   * are retries left. With several replicas each attempt goes to whichever replica the pool picks.
+   *
+   * @param cancelled true once the caller no longer wants the reply, so it isn't sent again.
+   */
+  private <T> T sendWithRetries(
+      Object body,
+      Type responseType,
+      AgentChannel to,
+      String url,
+      long end,
+      BooleanSupplier cancelled)
+      throws AgentException {
+    long delay = RETRY_DELAY;
+    for (int attempt = 0; ; attempt++) {
+      try {
+        return send(body, responseType, to, url);
+      } catch (AgentConnectionException e) {
+        long remaining = end - System.nanoTime();
+        if (attempt >= retries
+            || remaining <= TimeUnit.MILLISECONDS.toNanos(delay)
+            || cancelled.getAsBoolean()) {
+          throw e;
+        }
+        log.warn("Retrying request to {} after '{}'", url, e.getMessage());
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+        delay *= 2;
+      }
+    }
+  }
+
+  private <T> T send(Object body, Type responseType, AgentChannel to, String url)
+      throws AgentException {
+    T response = to.exchange(body, responseType);
+    if (transport != AgentTransport.HTTP) {
+      // HTTP batches are checked by the channel, which can report the response text
+      checkBatch(body, response, url, -1, null);
+    }
+    return response;
+  }
+
+  /**
+   * Check a batched request got a response for every environment. This is done where the response
+   * is received, as the response logger only holds the last response of the current thread.
+   */
+  static void checkBatch(
+      Object body, Object response, String url, int lastHTTPCode, String lastResponse)
+      throws AgentParserException {
+    if (body instanceof BatchRequest) {
+      int size = ((BatchRequest<?>) body).size();
+      if (!(response instanceof BatchResponse)
+          || ((BatchResponse<?>) response).getResponses() == null
+          || ((BatchResponse<?>) response).getResponses().size() != size) {
+        throw new AgentParserException(
+            url, "Expected " + size + " responses in batch", lastHTTPCode, lastResponse);
       }
-    } catch (ResourceAccessException re) {
-      log.error("Error talking to remote resource", re);
-      throw new AgentConnectionException(target, "Error accessing remote resource");
-    } catch (HttpClientErrorException he) {
-      switch (he.getRawStatusCode()) {
-        case 404:
-          throw new AgentFileNotFoundException(target, "Error accessing URL - " + target);
-        case 401:
-          throw new AgentAuthException(target, "Auth error accessing URL - " + target);
-        default:
-          log.error("HTTP error recieved (" + he.getRawStatusCode() + ")", he);
-          throw new AgentConnectionException(target, "HTTP error (" + he.getRawStatusCode() + ")");
+    }
+  }
+
+  /**
+   * Perform a POST request against the current target without blocking the caller.
+   *
+   * <p>The request is sent using {@link #postRequest(ServerRequest, Class)} on a shared pool of
+   * background threads, so subclasses that override {@code postRequest} get this for free. The
+   * request object must not be changed until the future has completed.
+   *
+   * @param req the request data, a instance of {@link
+   *     dev.aisandbox.client.scenarios.ServerRequest}.
+   * @param responseType The class of a {@link dev.aisandbox.client.scenarios.ServerResponse} object
+   *     to return
+   * @param <T> The object type to be returned.
+   * @return a future holding the response, or completing exceptionally with an {@link
+   *     AgentException}.
+   */
+  public <T> CompletableFuture<T> postRequestAsync(ServerRequest req, Class<T> responseType) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return postRequest(req, responseType);
+          } catch (AgentException e) {
+            throw new CompletionException(e);
+          }
+        },
+        REQUEST_EXECUTOR);
+  }
+
+  /**
+   * Wait for a response from {@link #postRequestAsync(ServerRequest, Class)}.
+   *
+   * @param future the pending response.
+   * @param <T> The object type to be returned.
+   * @return the response.
+   * @throws dev.aisandbox.client.agent.AgentException if the request failed.
+   */
+  public <T> T awaitResponse(CompletableFuture<T> future) throws AgentException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof AgentException) {
+        throw (AgentException) e.getCause();
       }
-    } catch (RestClientException me) {
-      // get the response from the Agent logger
-      log.error(RESPONSE_PARSE_ERROR, me);
-      log.error(
-          "Last code {} response {}", responseLogger.lastHTTPCode, responseLogger.lastResponse);
-      throw new AgentParserException(
-          target,
-          "Error converting response",
-          responseLogger.lastHTTPCode,
-          responseLogger.lastResponse);
+      log.error("Unexpected error waiting for agent", e);
+      throw new AgentConnectionException(target, "Error waiting for response");
+    } catch (CancellationException e) {
+      throw new AgentConnectionException(target, "Request cancelled");
     }
   }
 }
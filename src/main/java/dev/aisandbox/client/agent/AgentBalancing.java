@@ -0,0 +1,12 @@
+package dev.aisandbox.client.agent;
+
+/** How requests are shared between the replicas of an agent, see {@link AgentReplicaPool}. */
+public enum AgentBalancing {
+  /** Each request goes to the next replica in turn. */
+  ROUND_ROBIN,
+  /**
+   * Each request goes to the replica with the least work queued, measured as its requests in
+   * progress times its average response time, so slower replicas are given less to do.
+   */
+  LEAST_OUTSTANDING
+}
@@ -0,0 +1,39 @@
+package dev.aisandbox.client.agent;
+
+import java.lang.reflect.Type;
+
+/**
+ * A connection to an agent, such as an {@link HttpChannel} or a {@link WebSocketChannel}.
+ *
+ * <p>A channel is created by {@link Agent#setupAgent()} and closed by {@link Agent#close()}, it
+ * should connect lazily on the first exchange so connection errors can be reported as an {@link
+ * AgentException}. Channels can also wrap another channel, to add a cache or a recording.
+ */
+public interface AgentChannel extends AutoCloseable {
+
+  /**
+   * Send a request and wait for the agent's reply.
+   *
+   * @param request the request object.
+   * @param responseType the type to read the reply as.
+   * @param <T> The object type to be returned.
+   * @return the reply.
+   * @throws AgentException if the request can't be sent or the reply can't be read.
+   */
+  public <T> T exchange(Object request, Type responseType) throws AgentException;
+
+  /**
+   * Give up on an exchange that has run past the agent's deadline.
+   *
+   * <p>This is called from a different thread to the one waiting in {@link #exchange(Object,
+   * Type)}, it should make that exchange fail and drop the connection so a late reply isn't taken
+   * as the answer to the next request.
+   */
+  public default void abort() {
+    close();
+  }
+
+  /** Release the connection. */
+  @Override
+  public void close();
+}
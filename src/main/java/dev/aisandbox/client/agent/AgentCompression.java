@@ -0,0 +1,56 @@
+package dev.aisandbox.client.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How request bodies are compressed before they are sent to an HTTP agent.
+ *
+ * <p>The agent is told which encoding was used with the Content-Encoding header. Responses don't
+ * need a setting, the HTTP client already asks for gzip responses and unpacks them.
+ */
+public enum AgentCompression {
+  /** Send the request as it is. */
+  NONE(null),
+  /** Compress with gzip. */
+  GZIP("gzip"),
+  /** Compress with zlib (deflate). */
+  DEFLATE("deflate");
+
+  private final String encoding;
+
+  AgentCompression(String encoding) {
+    this.encoding = encoding;
+  }
+
+  /**
+   * The value of the Content-Encoding header.
+   *
+   * @return the encoding name, or null if the body isn't compressed.
+   */
+  public String getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * Compress a request body.
+   *
+   * @param body the body to compress.
+   * @return the compressed body.
+   * @throws IOException if the body can't be compressed.
+   */
+  public byte[] compress(byte[] body) throws IOException {
+    if (this == NONE) {
+      return body;
+    }
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 2 + 64);
+    try (OutputStream out =
+        this == GZIP ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+      out.write(body);
+    }
+    return buffer.toByteArray();
+  }
+}
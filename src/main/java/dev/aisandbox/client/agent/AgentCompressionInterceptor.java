@@ -0,0 +1,46 @@
+package dev.aisandbox.client.agent;
+
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Compresses request bodies that are at least a threshold size.
+ *
+ * <p>Small requests are sent unchanged, as the compression costs more than it saves.
+ */
+@Slf4j
+public class AgentCompressionInterceptor implements ClientHttpRequestInterceptor {
+
+  private final AgentCompression compression;
+  private final int threshold;
+
+  /**
+   * Create an interceptor.
+   *
+   * @param compression the compression to use.
+   * @param threshold the smallest body (in bytes) that will be compressed.
+   */
+  public AgentCompressionInterceptor(AgentCompression compression, int threshold) {
+    this.compression = compression;
+    this.threshold = threshold;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    if (compression == AgentCompression.NONE || body.length < threshold) {
+      return execution.execute(request, body);
+    }
+    byte[] compressed = compression.compress(body);
+    log.debug("Compressed request from {} to {} bytes", body.length, compressed.length);
+    HttpHeaders headers = request.getHeaders();
+    headers.set(HttpHeaders.CONTENT_ENCODING, compression.getEncoding());
+    headers.setContentLength(compressed.length);
+    return execution.execute(request, compressed);
+  }
+}
@@ -0,0 +1,79 @@
+package dev.aisandbox.client.agent;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
+
+/**
+ * The encoding used to send requests to, and read responses from, an agent.
+ *
+ * <p>The language is agreed with the agent using the Content-Type and Accept headers. JSON and XML
+ * are text formats, CBOR, Smile and MessagePack are binary encodings of the same (JSON) structure.
+ */
+public enum AgentLanguage {
+  JSON(MediaType.APPLICATION_JSON, "{}"),
+  XML(MediaType.APPLICATION_XML, "<>"),
+  CBOR(MediaType.APPLICATION_CBOR, "CB"),
+  SMILE(new MediaType("application", "x-jackson-smile"), "SM"),
+  MSGPACK(MessagePackHttpMessageConverter.MESSAGE_PACK, "MP");
+
+  private final MediaType mediaType;
+  private final String symbol;
+
+  AgentLanguage(MediaType mediaType, String symbol) {
+    this.mediaType = mediaType;
+    this.symbol = symbol;
+  }
+
+  /**
+   * The media type sent in the Content-Type and Accept headers.
+   *
+   * @return a {@link MediaType}.
+   */
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * A short symbol used to show the language in the UI.
+   *
+   * @return a two character {@link String}.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Is this a binary encoding.
+   *
+   * @return true for CBOR, Smile and MessagePack.
+   */
+  public boolean isBinary() {
+    return this != JSON && this != XML;
+  }
+
+  /**
+   * Create a message converter that can read and write this language.
+   *
+   * @return a new {@link HttpMessageConverter}.
+   */
+  public HttpMessageConverter<Object> createConverter() {
+    switch (this) {
+      case XML:
+        return new Jaxb2RootElementHttpMessageConverter();
+      case CBOR:
+        return new MappingJackson2CborHttpMessageConverter(new CBORMapper());
+      case SMILE:
+        return new MappingJackson2SmileHttpMessageConverter(new SmileMapper());
+      case MSGPACK:
+        return new MessagePackHttpMessageConverter();
+      default: // JSON
+        return new MappingJackson2HttpMessageConverter();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package dev.aisandbox.client.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageConverter;
+
+/**
+ * Turns requests into bytes, and bytes into responses, for transports that don't use HTTP.
+ *
+ * <p>This uses the same message converter as the HTTP transport (see {@link
+ * AgentLanguage#createConverter()}) so an agent sees exactly the same messages whichever transport
+ * it is reached by.
+ */
+public class AgentMessageCodec {
+
+  private final AgentLanguage language;
+  private final HttpMessageConverter<Object> converter;
+
+  /**
+   * Create a codec for a language.
+   *
+   * @param language the language to read and write.
+   */
+  public AgentMessageCodec(AgentLanguage language) {
+    this.language = language;
+    this.converter = language.createConverter();
+  }
+
+  /**
+   * Encode an object.
+   *
+   * @param message the object to write.
+   * @return the encoded message.
+   * @throws IOException if the object can't be written.
+   */
+  public byte[] encode(Object message) throws IOException {
+    MemoryOutputMessage output = new MemoryOutputMessage();
+    try {
+      if (converter instanceof GenericHttpMessageConverter) {
+        ((GenericHttpMessageConverter<Object>) converter)
+            .write(message, message.getClass(), language.getMediaType(), output);
+      } else {
+        converter.write(message, language.getMediaType(), output);
+      }
+    } catch (HttpMessageConversionException e) {
+      throw new IOException("Error encoding " + message.getClass().getSimpleName(), e);
+    }
+    return output.body.toByteArray();
+  }
+
+  /**
+   * The converter this codec reads and writes with.
+   *
+   * @return the codec's {@link HttpMessageConverter}.
+   */
+  HttpMessageConverter<Object> getConverter() {
+    return converter;
+  }
+
+  /**
+   * Decode a message.
+   *
+   * @param data the encoded message.
+   * @param type the type to decode into, this can be a generic type such as a batch response.
+   * @param <T> The object type to be returned.
+   * @return the decoded object.
+   * @throws IOException if the message can't be read.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T decode(byte[] data, Type type) throws IOException {
+    MemoryInputMessage input = new MemoryInputMessage(data);
+    try {
+      if (converter instanceof GenericHttpMessageConverter) {
+        return (T) ((GenericHttpMessageConverter<Object>) converter).read(type, null, input);
+      } else {
+        return (T) converter.read((Class<Object>) type, input);
+      }
+    } catch (HttpMessageConversionException | ClassCastException e) {
+      throw new IOException("Error decoding message", e);
+    }
+  }
+
+  /** Output message that collects the body in memory. */
+  private class MemoryOutputMessage implements HttpOutputMessage {
+    private final HttpHeaders headers = new HttpHeaders();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    @Override
+    public OutputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+
+  /** Input message reading from a byte array. */
+  private class MemoryInputMessage implements HttpInputMessage {
+    private final HttpHeaders headers = new HttpHeaders();
+    private final InputStream body;
+
+    private MemoryInputMessage(byte[] data) {
+      headers.setContentType(language.getMediaType());
+      headers.setContentLength(data.length);
+      body = new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
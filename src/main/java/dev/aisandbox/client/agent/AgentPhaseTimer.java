@@ -0,0 +1,202 @@
+package dev.aisandbox.client.agent;
+
+import dev.aisandbox.client.profiler.NetworkPhases;
+import dev.aisandbox.client.profiler.NetworkPhases.Phase;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Splits the time taken by each HTTP request into {@link NetworkPhases}.
+ *
+ * <p>The network phases come from OkHttp's call events (see {@link #eventListenerFactory()}). The
+ * conversion phases are measured around this interceptor: encoding is the time from {@link
+ * #begin()} until the (already converted and compressed) request reaches it, and decoding is the
+ * time from the last byte of the response being read until {@link #end()}. The body is streamed
+ * straight to the message converter, so for bodies without a length (where the end is only seen
+ * when the response is closed) decoding is counted as reading.
+ *
+ * <p>An agent can report how long it spent working out a response, in whole microseconds, in the
+ * optional {@value #COMPUTE_HEADER} response header. That time is taken out of the wait for the
+ * first byte, and recorded against the time the whole request took, so the agent's own work can be
+ * told apart from the cost of reaching it.
+ *
+ * <p>Times are kept per thread, so requests from several threads can be timed at once.
+ */
+public class AgentPhaseTimer implements ClientHttpRequestInterceptor {
+
+  /** The response header an agent can report its compute time in. */
+  public static final String COMPUTE_HEADER = "X-Agent-Compute-Micros";
+
+  @Getter private final NetworkPhases phases;
+
+  // start time, end of response body and reported compute time of the current request
+  private final ThreadLocal<long[]> marks = ThreadLocal.withInitial(() -> new long[3]);
+
+  /**
+   * Create a timer.
+   *
+   * @param phases where to add the times.
+   */
+  public AgentPhaseTimer(NetworkPhases phases) {
+    this.phases = phases;
+  }
+
+  /** Mark the start of a request, before the request is converted. */
+  public void begin() {
+    long[] mark = marks.get();
+    mark[0] = System.nanoTime();
+    mark[1] = 0;
+    mark[2] = -1;
+  }
+
+  /**
+   * Mark the end of a request, once the response has been converted or the request has failed.
+   * Every request is counted, but only one whose response was read has a decode time.
+   */
+  public void end() {
+    long[] mark = marks.get();
+    phases.countRequest();
+    if (mark[1] != 0) {
+      long now = System.nanoTime();
+      phases.add(Phase.DECODE, now - mark[1]);
+      if (mark[2] >= 0) {
+        long totalMicros = TimeUnit.NANOSECONDS.toMicros(now - mark[0]);
+        phases.recordCompute(Math.min(mark[2], totalMicros), totalMicros);
+      }
+    }
+  }
+
+  /**
+   * Read the compute time header.
+   *
+   * @param value the header value, may be null.
+   * @return the compute time in microseconds, or -1 if there isn't a valid one.
+   */
+  static long parseComputeMicros(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      long micros = Long.parseLong(value.trim());
+      return micros < 0 ? -1 : micros;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    long[] mark = marks.get();
+    phases.add(Phase.ENCODE, System.nanoTime() - mark[0]);
+    ClientHttpResponse response = execution.execute(request, body);
+    mark[2] = parseComputeMicros(response.getHeaders().getFirst(COMPUTE_HEADER));
+    return response;
+  }
+
+  /**
+   * The listener factory to give the HTTP client.
+   *
+   * @return a factory making a new listener for each call.
+   */
+  public EventListener.Factory eventListenerFactory() {
+    return call -> new CallListener();
+  }
+
+  /** Times the network phases of one call. */
+  private class CallListener extends EventListener {
+    private long connectStart = 0;
+    private long writeStart = 0;
+    private long writeEnd = 0;
+    private long readStart = 0;
+    private long wait = 0;
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+      connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+      if (connectStart == 0) {
+        connectStart = System.nanoTime();
+      }
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+      endConnect();
+    }
+
+    @Override
+    public void connectFailed(
+        Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException ioe) {
+      endConnect();
+    }
+
+    private void endConnect() {
+      if (connectStart != 0) {
+        phases.add(Phase.CONNECT, System.nanoTime() - connectStart);
+        connectStart = 0;
+      }
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+      writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+      writeEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      writeEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+      readStart = System.nanoTime();
+      if (writeStart != 0) {
+        phases.add(Phase.WRITE, writeEnd - writeStart);
+        wait = readStart - writeEnd;
+        writeStart = 0;
+      }
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+      long computeMicros = parseComputeMicros(response.header(COMPUTE_HEADER));
+      long compute =
+          computeMicros < 0 ? 0 : Math.min(TimeUnit.MICROSECONDS.toNanos(computeMicros), wait);
+      phases.add(Phase.COMPUTE, compute);
+      phases.add(Phase.FIRST_BYTE, wait - compute);
+      wait = 0;
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+      if (readStart != 0) {
+        // the body is read on the thread that sent the request
+        long now = System.nanoTime();
+        phases.add(Phase.READ, now - readStart);
+        marks.get()[1] = now;
+        readStart = 0;
+      }
+    }
+  }
+}
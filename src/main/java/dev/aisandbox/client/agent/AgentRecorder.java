@@ -0,0 +1,148 @@
+package dev.aisandbox.client.agent;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes every exchange with an agent to a binary recording, which can be played back with the
+ * {@link AgentTransport#REPLAY} transport.
+ *
+ * <p>The file starts with the bytes {@code AISR} and a version number, followed by one record per
+ * exchange. Each record is a kind (0 for a response, 1 for an error, 2 for an empty response), the
+ * round trip time in microseconds and the CBOR encoded request, followed by the CBOR encoded
+ * response, the name and message of the exception, or nothing for an empty response. Numbers and
+ * lengths are written as unsigned varints.
+ *
+ * <p>Each record is flushed as it is written, so a recording is complete up to the last step even
+ * if the client stops unexpectedly. Recording to an existing file replaces it, as a second header
+ * part way through would stop the replay.
+ */
+@Slf4j
+public class AgentRecorder implements AutoCloseable {
+
+  static final byte[] MAGIC = {'A', 'I', 'S', 'R', 1};
+  static final int KIND_RESPONSE = 0;
+  static final int KIND_ERROR = 1;
+  static final int KIND_EMPTY = 2;
+
+  private final File file;
+  private final AgentMessageCodec codec = new AgentMessageCodec(AgentLanguage.CBOR);
+  private final OutputStream out;
+
+  /**
+   * Start a recording, replacing any earlier recording in the file.
+   *
+   * @param file the file to write to.
+   * @throws IOException if the file can't be opened.
+   */
+  public AgentRecorder(File file) throws IOException {
+    this.file = file;
+    if (file.length() > 0) {
+      log.warn("Replacing the recording in {}", file);
+    }
+    out = new BufferedOutputStream(new FileOutputStream(file));
+    out.write(MAGIC);
+    out.flush();
+    log.info("Recording agent exchanges to {}", file);
+  }
+
+  /**
+   * Add an exchange to the recording.
+   *
+   * @param request the request sent to the agent.
+   * @param response the response, or null if the exchange failed or the agent sent an empty body.
+   * @param error the exception thrown, or null if there was a response.
+   * @param micros the round trip time in microseconds.
+   */
+  public synchronized void record(
+      Object request, Object response, AgentException error, long micros) {
+    try {
+      if (error != null) {
+        writeVarint(out, KIND_ERROR);
+      } else if (response == null) {
+        writeVarint(out, KIND_EMPTY);
+      } else {
+        writeVarint(out, KIND_RESPONSE);
+      }
+      writeVarint(out, Math.max(0, micros));
+      writeBytes(out, codec.encode(request));
+      if (error != null) {
+        writeBytes(out, error.getClass().getSimpleName().getBytes(StandardCharsets.UTF_8));
+        writeBytes(out, String.valueOf(error.getMessage()).getBytes(StandardCharsets.UTF_8));
+      } else if (response != null) {
+        writeBytes(out, codec.encode(response));
+      }
+      out.flush();
+    } catch (IOException e) {
+      log.warn("Error writing to recording {}", file, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      out.close();
+    } catch (IOException e) {
+      log.warn("Error closing recording {}", file, e);
+    }
+  }
+
+  static void writeVarint(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  /**
+   * Read a varint.
+   *
+   * @return the value, or -1 at the end of the stream.
+   */
+  static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        if (shift == 0) {
+          return -1;
+        }
+        throw new IOException("Recording ends part way through a record");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid length in recording");
+  }
+
+  static void writeBytes(OutputStream out, byte[] data) throws IOException {
+    writeVarint(out, data.length);
+    out.write(data);
+  }
+
+  static byte[] readBytes(InputStream in) throws IOException {
+    long length = readVarint(in);
+    if (length < 0 || length > ProcessChannel.MAX_MESSAGE_SIZE) {
+      throw new IOException("Invalid length in recording");
+    }
+    byte[] data = in.readNBytes((int) length);
+    if (data.length != length) {
+      throw new IOException("Recording ends part way through a record");
+    }
+    return data;
+  }
+
+  static boolean checkMagic(InputStream in) throws IOException {
+    return Arrays.equals(MAGIC, in.readNBytes(MAGIC.length));
+  }
+}
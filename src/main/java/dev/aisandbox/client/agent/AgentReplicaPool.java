@@ -0,0 +1,270 @@
+package dev.aisandbox.client.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shares the requests for one logical agent between several copies (replicas) of it, each at its
+ * own URL.
+ *
+ * <p>Replicas are picked using an {@link AgentBalancing} strategy. A replica that fails {@value
+ * #EJECT_AFTER_FAILURES} requests in a row (with a connection error, timeout or server error) is
+ * left out for {@value #EJECT_TIME}ms, after which it is tried again and ejected straight away if
+ * the next request also fails. If every replica has been ejected the one due back first is used
+ * anyway.
+ *
+ * <p>Requests that belong to a session (see {@link dev.aisandbox.client.scenarios.SessionRequest})
+ * stick to the replica that first handled the session, or the replica that started it, unless that
+ * replica is ejected. The sessions in a batch are kept together on one replica.
+ */
+@Slf4j
+public class AgentReplicaPool {
+
+  /** Failures in a row before a replica is ejected. */
+  public static final int EJECT_AFTER_FAILURES = 3;
+  /** How long an ejected replica is left out, in milliseconds. */
+  public static final long EJECT_TIME = 10000;
+
+  /** Sessions remembered before the oldest are forgotten. */
+  private static final int MAX_SESSIONS = 10000;
+  /** Weight given to the newest response time in each replica's average. */
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  @Getter private final AgentBalancing balancing;
+  private final List<Replica> replicas = new ArrayList<>();
+  private final Map<String, Replica> sessions =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Replica> eldest) {
+          return size() > MAX_SESSIONS;
+        }
+      };
+  private int next = 0;
+
+  /**
+   * Create a pool.
+   *
+   * @param urls the URL of each replica.
+   * @param balancing how to pick a replica for each request.
+   */
+  public AgentReplicaPool(List<String> urls, AgentBalancing balancing) {
+    if (urls.isEmpty()) {
+      throw new IllegalArgumentException("No replicas in pool");
+    }
+    this.balancing = balancing;
+    for (String url : urls) {
+      replicas.add(new Replica(url));
+    }
+  }
+
+  /**
+   * Split a target into the URLs of its replicas.
+   *
+   * @param target one URL, or several separated by commas.
+   * @return the URLs, empty if there aren't any.
+   */
+  public static List<String> parseTargets(String target) {
+    List<String> urls = new ArrayList<>();
+    if (target != null) {
+      for (String url : target.split(",")) {
+        if (!url.isBlank()) {
+          urls.add(url.trim());
+        }
+      }
+    }
+    return urls;
+  }
+
+  /**
+   * Pick the replica for a request and count it as in progress, {@link #finished(String, long,
+   * boolean)} must be called once it is done.
+   *
+   * @param sessionKey the session the request belongs to, or null.
+   * @return the URL to send the request to.
+   */
+  public String choose(String sessionKey) {
+    return chooseForSessions(
+        sessionKey == null ? Collections.emptyList() : Collections.singletonList(sessionKey));
+  }
+
+  /**
+   * Pick the replica for a request that may belong to several sessions (such as a batch), and count
+   * it as in progress. The first session with a replica that isn't ejected decides, and the other
+   * sessions move to that replica, as the whole request can only go to one place.
+   *
+   * @param sessionKeys the sessions the request belongs to, empty if none.
+   * @return the URL to send the request to.
+   */
+  public synchronized String chooseForSessions(List<String> sessionKeys) {
+    long now = System.nanoTime();
+    Replica replica = null;
+    for (String sessionKey : sessionKeys) {
+      Replica bound = sessions.get(sessionKey);
+      if (bound != null && bound.isEjected(now)) {
+        log.warn("Replica {} is ejected, moving session {}", bound.url, sessionKey);
+      } else if (bound != null) {
+        replica = bound;
+        break;
+      }
+    }
+    if (replica == null) {
+      replica = pick(now);
+    }
+    for (String sessionKey : sessionKeys) {
+      sessions.put(sessionKey, replica);
+    }
+    replica.outstanding++;
+    replica.requests++;
+    return replica.url;
+  }
+
+  private Replica pick(long now) {
+    Replica best = null;
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get((next + i) % replicas.size());
+      if (replica.isEjected(now)) {
+        continue;
+      }
+      if (balancing == AgentBalancing.ROUND_ROBIN) {
+        best = replica;
+        break;
+      }
+      if (best == null || replica.getLoad() < best.getLoad()) {
+        best = replica;
+      }
+    }
+    if (best == null) {
+      // everything is ejected, so try the one due back first
+      best = Collections.min(replicas, (a, b) -> Long.compare(a.ejectedUntil - b.ejectedUntil, 0));
+    }
+    next = (replicas.indexOf(best) + 1) % replicas.size();
+    return best;
+  }
+
+  /**
+   * Send the rest of a session to the replica that started it.
+   *
+   * @param sessionKey the session the agent started.
+   * @param url the replica that started it.
+   */
+  public synchronized void bind(String sessionKey, String url) {
+    for (Replica replica : replicas) {
+      if (replica.url.equals(url)) {
+        sessions.put(sessionKey, replica);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Record the end of a request sent to a replica.
+   *
+   * @param url the replica used.
+   * @param micros how long the request took in microseconds.
+   * @param failed true if the replica couldn't be reached or didn't answer in time.
+   */
+  public synchronized void finished(String url, long micros, boolean failed) {
+    for (Replica replica : replicas) {
+      if (replica.url.equals(url)) {
+        replica.outstanding--;
+        if (failed) {
+          replica.failed();
+        } else {
+          replica.succeeded(micros);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * A snapshot of the replicas, for reporting.
+   *
+   * @return the replicas in the order they were given.
+   */
+  public synchronized List<Replica> getReplicas() {
+    List<Replica> copy = new ArrayList<>();
+    for (Replica replica : replicas) {
+      copy.add(replica.copy());
+    }
+    return copy;
+  }
+
+  /** The state of one replica. */
+  public static class Replica {
+    @Getter private final String url;
+    @Getter private long requests = 0;
+    @Getter private long failures = 0;
+    @Getter private int outstanding = 0;
+    /** Average response time in microseconds, negative until the first response. */
+    @Getter private double averageMicros = -1;
+
+    private int failuresInRow = 0;
+    private long ejectedUntil = 0;
+
+    Replica(String url) {
+      this.url = url;
+    }
+
+    /**
+     * Is this replica being left out.
+     *
+     * @return true while the replica is ejected.
+     */
+    public boolean isEjected() {
+      return isEjected(System.nanoTime());
+    }
+
+    /**
+     * Is this replica being left out.
+     *
+     * @param now the current {@link System#nanoTime()}.
+     * @return true while the replica is ejected.
+     */
+    boolean isEjected(long now) {
+      return failuresInRow >= EJECT_AFTER_FAILURES && ejectedUntil - now > 0;
+    }
+
+    /** The work queued on this replica, replicas without a response time yet are tried first. */
+    private double getLoad() {
+      return (outstanding + 1) * Math.max(0.0, averageMicros);
+    }
+
+    private void failed() {
+      failures++;
+      failuresInRow++;
+      // look slower, so the least outstanding strategy backs off straight away
+      averageMicros = Math.max(averageMicros * 2, 1000);
+      if (failuresInRow >= EJECT_AFTER_FAILURES) {
+        log.warn("Ejecting replica {} for {}ms after {} failures", url, EJECT_TIME, failuresInRow);
+        ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EJECT_TIME);
+      }
+    }
+
+    private void succeeded(long micros) {
+      if (failuresInRow >= EJECT_AFTER_FAILURES) {
+        log.info("Replica {} is back", url);
+      }
+      failuresInRow = 0;
+      averageMicros =
+          averageMicros < 0 ? micros : averageMicros + LATENCY_WEIGHT * (micros - averageMicros);
+    }
+
+    private Replica copy() {
+      Replica copy = new Replica(url);
+      copy.requests = requests;
+      copy.failures = failures;
+      copy.outstanding = outstanding;
+      copy.averageMicros = averageMicros;
+      copy.failuresInRow = failuresInRow;
+      copy.ejectedUntil = ejectedUntil;
+      return copy;
+    }
+  }
+}
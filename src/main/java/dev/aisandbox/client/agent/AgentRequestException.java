@@ -0,0 +1,20 @@
+package dev.aisandbox.client.agent;
+
+/**
+ * AgentRequestException class.
+ *
+ * <p>Thrown when the agent rejects a request with a client error (a 4xx status), so sending the
+ * same request again won't help.
+ */
+public class AgentRequestException extends AgentException {
+
+  /**
+   * Constructor for AgentRequestException.
+   *
+   * @param target The URL being called
+   * @param message a {@link java.lang.String} object.
+   */
+  public AgentRequestException(String target, String message) {
+    super(target, message);
+  }
+}
@@ -0,0 +1,158 @@
+package dev.aisandbox.client.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.aisandbox.client.scenarios.StatefulRequest;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Remembers the responses of a deterministic agent, so a request it has already answered doesn't
+ * have to be sent again.
+ *
+ * <p>Requests are identified by a SHA-256 hash of the request in CBOR, leaving out the fields which
+ * change every step without changing what the agent is being asked ({@code history} and {@code
+ * sessionID}, at any depth). Requests that change or rely on the agent's state ({@link
+ * StatefulRequest}s, including batches holding one) are always sent. Responses are kept encoded, so
+ * each hit decodes a fresh copy that the caller is free to change. Once the cache is full the least
+ * recently used response is dropped.
+ *
+ * <p>Only use this with agents that always give the same answer to the same question, an agent that
+ * is still learning (or uses the history) will behave differently with a cache.
+ */
+@Slf4j
+public class AgentResponseCache {
+
+  /** Request fields that aren't part of the key. */
+  static final Set<String> VOLATILE_FIELDS = Set.of("history", "sessionID");
+
+  private final AgentMessageCodec codec = new AgentMessageCodec(AgentLanguage.CBOR);
+  private final ObjectMapper mapper =
+      ((AbstractJackson2HttpMessageConverter) codec.getConverter()).getObjectMapper();
+  private final Map<ByteBuffer, byte[]> responses;
+  @Getter private final int maxEntries;
+  // only changed while holding the lock
+  @Getter private volatile long hits = 0;
+  @Getter private volatile long misses = 0;
+
+  /**
+   * Create an empty cache.
+   *
+   * @param maxEntries the most responses to keep.
+   */
+  public AgentResponseCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+    responses =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+            return size() > AgentResponseCache.this.maxEntries;
+          }
+        };
+  }
+
+  /**
+   * Work out the key for a request.
+   *
+   * @param request the request to be sent.
+   * @return the key, or null if the request can't be cached.
+   */
+  public ByteBuffer key(Object request) {
+    if (request instanceof StatefulRequest && ((StatefulRequest) request).stateful()) {
+      return null;
+    }
+    try {
+      JsonNode tree = mapper.valueToTree(request);
+      removeVolatileFields(tree);
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return ByteBuffer.wrap(digest.digest(mapper.writeValueAsBytes(tree)));
+    } catch (IOException | IllegalArgumentException | NoSuchAlgorithmException e) {
+      log.debug("Can't cache a {}", request.getClass().getSimpleName(), e);
+      return null;
+    }
+  }
+
+  private static void removeVolatileFields(JsonNode node) {
+    if (node instanceof ObjectNode) {
+      ((ObjectNode) node).remove(VOLATILE_FIELDS);
+    }
+    Iterator<JsonNode> children = node.elements();
+    while (children.hasNext()) {
+      removeVolatileFields(children.next());
+    }
+  }
+
+  /**
+   * Look up the response to a request, counting a hit or miss.
+   *
+   * @param key the key from {@link #key(Object)}.
+   * @param responseType the type to decode the response into.
+   * @param <T> The object type to be returned.
+   * @return a copy of the response, or null if it isn't in the cache.
+   */
+  public synchronized <T> T get(ByteBuffer key, Type responseType) {
+    byte[] data = responses.get(key);
+    if (data != null) {
+      try {
+        T response = codec.decode(data, responseType);
+        hits++;
+        return response;
+      } catch (IOException e) {
+        log.warn("Error decoding cached response, asking the agent instead", e);
+        responses.remove(key);
+      }
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Remember a response.
+   *
+   * @param key the key from {@link #key(Object)}.
+   * @param response the response the agent gave.
+   */
+  public synchronized void put(ByteBuffer key, Object response) {
+    try {
+      responses.put(key, codec.encode(response));
+    } catch (IOException e) {
+      log.debug("Can't cache a {}", response.getClass().getSimpleName(), e);
+    }
+  }
+
+  /**
+   * How many responses are held.
+   *
+   * @return the number of entries.
+   */
+  public synchronized int size() {
+    return responses.size();
+  }
+
+  /** Start counting hits and misses again, keeping the responses. */
+  public synchronized void resetCounters() {
+    hits = 0;
+    misses = 0;
+  }
+
+  /**
+   * The fraction of lookups that found a response.
+   *
+   * @return the hit rate between 0 and 1, or 0 before the first lookup.
+   */
+  public synchronized double getHitRate() {
+    long total = hits + misses;
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
+}
@@ -1,9 +1,15 @@
 package dev.aisandbox.client.agent;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
@@ -11,16 +17,28 @@ import org.springframework.http.client.ClientHttpResponse;
 /**
  * AgentResponseLogger class.
  *
+ * <p>Keeps a copy of the start of the last response so it can be shown if the response can't be
+ * parsed. The bytes are copied as the message converter reads them (so the body is never read
+ * twice), at most {@link #MAX_CAPTURE} bytes are kept, and they are only turned into a String when
+ * {@link #getLastResponse()} is called on the error path.
+ *
+ * <p>The capture is held per thread, so one agent can be used by several threads at once.
+ *
  * @author gde
  * @version $Id: $Id
  */
 public class AgentResponseLogger implements ClientHttpRequestInterceptor {
 
-  int lastHTTPCode = -1;
-  String lastResponse = "";
+  /** The maximum number of response bytes kept for debugging. */
+  public static final int MAX_CAPTURE = 64 * 1024;
+
+  private static final int INITIAL_CAPTURE = 1024;
+
+  private final ThreadLocal<ResponseCapture> lastCapture =
+      ThreadLocal.withInitial(ResponseCapture::new);
 
   /**
-   * Intercept the HTTP response and store it for debugging.
+   * Intercept the HTTP response so the body is recorded as it is read.
    *
    * @param request The HTTP request object
    * @param body The body of the request (if any)
@@ -31,20 +49,153 @@ public class AgentResponseLogger implements ClientHttpRequestInterceptor {
   @Override
   public ClientHttpResponse intercept(
       HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    ResponseCapture capture = lastCapture.get();
+    capture.reset();
     // perform the request
     ClientHttpResponse response = execution.execute(request, body);
-    // take a copy of the output
-    lastHTTPCode = response.getRawStatusCode();
-    BufferedReader in = new BufferedReader(new InputStreamReader(response.getBody()));
-    String line;
-    StringBuilder sb = new StringBuilder();
-    while ((line = in.readLine()) != null) {
-      sb.append(line);
-      sb.append("\n");
-    }
-    lastResponse = sb.toString();
-    in.close();
-
-    return response;
+    capture.code = response.getRawStatusCode();
+    MediaType contentType = response.getHeaders().getContentType();
+    if (contentType != null && contentType.getCharset() != null) {
+      capture.charset = contentType.getCharset();
+    }
+    return new CapturingResponse(response, capture);
+  }
+
+  /**
+   * The HTTP status code of the last response seen by this thread.
+   *
+   * @return the status code or -1 if there hasn't been a response.
+   */
+  public int getLastHTTPCode() {
+    return lastCapture.get().code;
+  }
+
+  /**
+   * The (start of the) last response body read by this thread.
+   *
+   * @return the response body, truncated to {@link #MAX_CAPTURE} bytes.
+   */
+  public String getLastResponse() {
+    ResponseCapture capture = lastCapture.get();
+    return new String(capture.buffer, 0, capture.length, capture.charset);
+  }
+
+  /** Reusable, bounded copy of a response body. */
+  private static class ResponseCapture {
+    private int code = -1;
+    private Charset charset = StandardCharsets.UTF_8;
+    private byte[] buffer = new byte[INITIAL_CAPTURE];
+    private int length = 0;
+
+    private void reset() {
+      code = -1;
+      charset = StandardCharsets.UTF_8;
+      length = 0;
+    }
+
+    private void write(int b) {
+      if (ensureCapacity(1)) {
+        buffer[length++] = (byte) b;
+      }
+    }
+
+    private void write(byte[] b, int off, int len) {
+      int count = Math.min(len, MAX_CAPTURE - length);
+      if (count > 0 && ensureCapacity(count)) {
+        System.arraycopy(b, off, buffer, length, count);
+        length += count;
+      }
+    }
+
+    private boolean ensureCapacity(int count) {
+      if (length + count > MAX_CAPTURE) {
+        return false;
+      }
+      if (length + count > buffer.length) {
+        buffer =
+            Arrays.copyOf(
+                buffer, Math.min(MAX_CAPTURE, Math.max(buffer.length * 2, length + count)));
+      }
+      return true;
+    }
+  }
+
+  /** Response wrapper that copies the body into a capture as it is read. */
+  private static class CapturingResponse implements ClientHttpResponse {
+    private final ClientHttpResponse response;
+    private final ResponseCapture capture;
+    private InputStream body = null;
+
+    private CapturingResponse(ClientHttpResponse response, ResponseCapture capture) {
+      this.response = response;
+      this.capture = capture;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+      return response.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+      return response.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return response.getStatusText();
+    }
+
+    @Override
+    public void close() {
+      response.close();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      if (body == null) {
+        body = new CapturingInputStream(response.getBody(), capture);
+      }
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return response.getHeaders();
+    }
+  }
+
+  /** Input stream that copies everything read into a capture. */
+  private static class CapturingInputStream extends FilterInputStream {
+    private final ResponseCapture capture;
+
+    private CapturingInputStream(InputStream in, ResponseCapture capture) {
+      super(in);
+      this.capture = capture;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        capture.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count > 0) {
+        capture.write(b, off, count);
+      }
+      return count;
+    }
+
+    @Override
+    public boolean markSupported() {
+      // a reset would copy the same bytes twice
+      return false;
+    }
   }
 }
@@ -0,0 +1,20 @@
+package dev.aisandbox.client.agent;
+
+/**
+ * AgentTimeoutException class.
+ *
+ * <p>Thrown when the agent doesn't reply in time, either within the read timeout of a single
+ * request or within the agent's overall deadline.
+ */
+public class AgentTimeoutException extends AgentConnectionException {
+
+  /**
+   * Constructor for AgentTimeoutException.
+   *
+   * @param target The URL being called
+   * @param message a {@link java.lang.String} object.
+   */
+  public AgentTimeoutException(String target, String message) {
+    super(target, message);
+  }
+}
@@ -0,0 +1,77 @@
+package dev.aisandbox.client.agent;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.List;
+
+/** How requests are carried to an agent. */
+public enum AgentTransport {
+  /**
+   * A HTTP(S) POST for each request. The target can list several replicas separated by commas, see
+   * {@link AgentReplicaPool}.
+   */
+  HTTP,
+  /** A single WebSocket kept open for the whole run, with one message per request and reply. */
+  WEBSOCKET,
+  /** A {@link LocalAgent} running inside the client, the target is the name of the agent. */
+  LOCAL,
+  /**
+   * A local program started by the client, the target is its command line. Requests and replies are
+   * length prefixed messages on the program's standard input and output.
+   */
+  PROCESS,
+  /**
+   * An agent on the same machine, exchanging messages through a memory mapped file. The target is
+   * the path of the file, see {@link SharedMemoryChannel} for the layout.
+   */
+  SHARED_MEMORY,
+  /** Play back a recording made with {@code recordFile}, the target is the recording's path. */
+  REPLAY;
+
+  /**
+   * Check if a target makes sense for this transport.
+   *
+   * @param target the target of the agent.
+   * @return true if the target is valid.
+   */
+  public boolean isValidTarget(String target) {
+    if (this == LOCAL) {
+      return LocalChannel.findLocalAgent(target) != null;
+    }
+    if (this == REPLAY) {
+      return target != null && new File(target).isFile();
+    }
+    if (this == SHARED_MEMORY) {
+      if (target == null || target.isBlank()) {
+        return false;
+      }
+      File parent = new File(target).getAbsoluteFile().getParentFile();
+      return parent != null && parent.isDirectory();
+    }
+    if (this == PROCESS) {
+      return target != null && !target.isBlank();
+    }
+    if (this == WEBSOCKET) {
+      try {
+        URI uri = new URI(target);
+        return ("ws".equalsIgnoreCase(uri.getScheme()) || "wss".equalsIgnoreCase(uri.getScheme()))
+            && uri.getHost() != null;
+      } catch (URISyntaxException e) {
+        return false;
+      }
+    }
+    // HTTP targets can list several replicas
+    List<String> urls = AgentReplicaPool.parseTargets(target);
+    try {
+      for (String url : urls) {
+        new URL(url);
+      }
+      return !urls.isEmpty();
+    } catch (MalformedURLException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package dev.aisandbox.client.agent;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link AgentChannel} that answers repeated requests from an {@link AgentResponseCache},
+ * passing the rest on to another channel and remembering the answers.
+ */
+public class CachingChannel implements AgentChannel {
+
+  private final AgentChannel channel;
+  private final AgentResponseCache cache;
+
+  /**
+   * Add a cache in front of a channel.
+   *
+   * @param channel the channel to send the requests that aren't cached to.
+   * @param cache the responses to reuse.
+   */
+  public CachingChannel(AgentChannel channel, AgentResponseCache cache) {
+    this.channel = channel;
+    this.cache = cache;
+  }
+
+  @Override
+  public <T> T exchange(Object request, Type responseType) throws AgentException {
+    ByteBuffer key = cache.key(request);
+    if (key != null) {
+      T cached = cache.get(key, responseType);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    T response = channel.exchange(request, responseType);
+    if (key != null && response != null) {
+      cache.put(key, response);
+    }
+    return response;
+  }
+
+  @Override
+  public void abort() {
+    channel.abort();
+  }
+
+  @Override
+  public void close() {
+    channel.close();
+  }
+}
@@ -0,0 +1,48 @@
+package dev.aisandbox.client.agent;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Remembers which OkHttp call each thread is making, so one {@link HttpChannel} can cancel its own
+ * requests without cancelling the others sharing the HTTP client (such as the other leg of a hedged
+ * request).
+ *
+ * <p>OkHttp runs synchronous calls, and their interceptors, on the calling thread. A call stays
+ * registered until the channel that made it calls {@link #finished()}, as the response body is
+ * still being read after the interceptor returns.
+ */
+class HttpCallRegistry implements Interceptor {
+
+  // weak, so calls that didn't come through a channel (such as a WebSocket upgrade) don't keep
+  // their threads alive
+  private final Map<Thread, Call> calls = Collections.synchronizedMap(new WeakHashMap<>());
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    calls.put(Thread.currentThread(), chain.call());
+    return chain.proceed(chain.request());
+  }
+
+  /** The current thread's request is over, its call can't be cancelled any more. */
+  void finished() {
+    calls.remove(Thread.currentThread());
+  }
+
+  /**
+   * Cancel the call a thread is making, if any.
+   *
+   * @param thread the thread sending the request.
+   */
+  void cancel(Thread thread) {
+    Call call = calls.get(thread);
+    if (call != null) {
+      call.cancel();
+    }
+  }
+}
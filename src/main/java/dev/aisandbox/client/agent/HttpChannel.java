@@ -0,0 +1,156 @@
+package dev.aisandbox.client.agent;
+
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * An {@link AgentChannel} that POSTs each request to one URL.
+ *
+ * <p>The {@link RestTemplate} is shared by every URL an agent talks to (its replicas and hedge
+ * target), so they share the connection pool, the interceptors and the {@link AgentPhaseTimer}.
+ * HTTP errors are turned into the matching {@link AgentException}, connection errors, server errors
+ * and the busy codes (408 and 429) are worth a retry, other client errors aren't.
+ *
+ * <p>Aborting the channel cancels the requests it is sending, but not those sent to other URLs
+ * through the same template.
+ */
+@Slf4j
+public class HttpChannel implements AgentChannel {
+
+  private static final String RESPONSE_PARSE_ERROR = "Error parsing response";
+
+  @Getter private final String url;
+  private final RestTemplate restTemplate;
+  private final HttpHeaders headers;
+  private final AgentPhaseTimer phaseTimer;
+  private final AgentResponseLogger responseLogger;
+  private final HttpCallRegistry calls;
+  // the threads with a request in progress on this channel
+  private final Set<Thread> senders = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Create a channel to a URL.
+   *
+   * @param url the URL to POST to.
+   * @param restTemplate the template to send the requests with.
+   * @param headers the headers to send with each request.
+   * @param phaseTimer the timer the template's HTTP client reports to.
+   * @param responseLogger the logger the template's responses go through.
+   * @param calls the registry of the template's HTTP client, used to cancel requests.
+   */
+  public HttpChannel(
+      String url,
+      RestTemplate restTemplate,
+      HttpHeaders headers,
+      AgentPhaseTimer phaseTimer,
+      AgentResponseLogger responseLogger,
+      HttpCallRegistry calls) {
+    this.url = url;
+    this.restTemplate = restTemplate;
+    this.headers = headers;
+    this.phaseTimer = phaseTimer;
+    this.responseLogger = responseLogger;
+    this.calls = calls;
+  }
+
+  @Override
+  public <T> T exchange(Object request, Type responseType) throws AgentException {
+    senders.add(Thread.currentThread());
+    try {
+      // request entity is created with request headers
+      HttpEntity<Object> requestEntity = new HttpEntity<>(request, headers);
+      ResponseEntity<T> response;
+      phaseTimer.begin();
+      try {
+        response =
+            restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                requestEntity,
+                ParameterizedTypeReference.forType(responseType));
+      } finally {
+        // failed requests are counted too, as their network phases have already been added
+        phaseTimer.end();
+      }
+      switch (response.getStatusCode()) {
+        case RESET_CONTENT:
+          throw new AgentResetException(url, "Reset content request");
+        default:
+          // checked here, as the response logger only holds the last response of this thread
+          Agent.checkBatch(
+              request,
+              response.getBody(),
+              url,
+              responseLogger.getLastHTTPCode(),
+              responseLogger.getLastResponse());
+          return response.getBody();
+      }
+    } catch (ResourceAccessException re) {
+      log.error("Error talking to remote resource", re);
+      if (re.getCause() instanceof InterruptedIOException) {
+        // covers both the read timeout and the call (deadline) timeout
+        throw new AgentTimeoutException(url, "Timeout waiting for response");
+      }
+      throw new AgentConnectionException(url, "Error accessing remote resource");
+    } catch (HttpClientErrorException he) {
+      switch (he.getRawStatusCode()) {
+        case 404:
+          throw new AgentFileNotFoundException(url, "Error accessing URL - " + url);
+        case 401:
+          throw new AgentAuthException(url, "Auth error accessing URL - " + url);
+        case 408:
+        case 429:
+          // the agent is busy, so worth a retry
+          log.error("HTTP error recieved (" + he.getRawStatusCode() + ")", he);
+          throw new AgentConnectionException(url, "HTTP error (" + he.getRawStatusCode() + ")");
+        default:
+          // the agent won't accept this request however often it is sent
+          log.error("HTTP error recieved (" + he.getRawStatusCode() + ")", he);
+          throw new AgentRequestException(url, "HTTP error (" + he.getRawStatusCode() + ")");
+      }
+    } catch (HttpServerErrorException se) {
+      // an overloaded or failing agent, so worth a retry
+      log.error("HTTP error recieved (" + se.getRawStatusCode() + ")", se);
+      throw new AgentConnectionException(url, "HTTP error (" + se.getRawStatusCode() + ")");
+    } catch (RestClientException me) {
+      // get the response from the Agent logger
+      log.error(RESPONSE_PARSE_ERROR, me);
+      int lastHTTPCode = responseLogger.getLastHTTPCode();
+      String lastResponse = responseLogger.getLastResponse();
+      log.error("Last code {} response {}", lastHTTPCode, lastResponse);
+      throw new AgentParserException(url, "Error converting response", lastHTTPCode, lastResponse);
+    } finally {
+      calls.finished();
+      senders.remove(Thread.currentThread());
+    }
+  }
+
+  /**
+   * Cancel the requests this channel is sending, such as the losing leg of a hedged request. Each
+   * request has its own call, so the connection can be used again for the next one.
+   */
+  @Override
+  public void abort() {
+    senders.forEach(calls::cancel);
+  }
+
+  /** The connections belong to the agent's HTTP client, which the agent closes. */
+  @Override
+  public void close() {
+    // nothing to release
+  }
+}
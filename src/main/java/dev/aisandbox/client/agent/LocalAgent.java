@@ -0,0 +1,61 @@
+package dev.aisandbox.client.agent;
+
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An agent that runs inside the client, answering requests without any serialisation or network.
+ *
+ * <p>Implementations are found with {@link java.util.ServiceLoader}, so they need a public no
+ * argument constructor and an entry in {@code
+ * META-INF/services/dev.aisandbox.client.agent.LocalAgent}. An agent is used by setting {@code
+ * agentNTransport=LOCAL} and {@code agentNURL} to its name.
+ *
+ * <p>Each configured agent gets its own instance, so implementations can keep state between
+ * requests.
+ *
+ * <p>Agents that list their request types can also be reached over a real socket using a {@link
+ * LocalAgentServer}.
+ */
+public interface LocalAgent {
+
+  /**
+   * The name used to select this agent in the configuration.
+   *
+   * @return a unique name e.g. "random-maze".
+   */
+  public String getName();
+
+  /**
+   * Answer a request.
+   *
+   * @param request the request from the scenario.
+   * @return the response the scenario expects for this type of request.
+   * @throws AgentException if the request can't be answered.
+   */
+  public ServerResponse respond(ServerRequest request) throws AgentException;
+
+  /**
+   * Can {@link #respond(ServerRequest)} be called from several threads at once. A {@link
+   * LocalAgentServer} only passes one request at a time to agents that aren't.
+   *
+   * @return true if the agent is thread safe.
+   */
+  public default boolean isThreadSafe() {
+    return false;
+  }
+
+  /**
+   * The request classes this agent answers, used by {@link LocalAgentServer} to decode requests.
+   *
+   * <p>If an agent takes more than one type, the more specific (fewer properties) types should be
+   * listed first.
+   *
+   * @return the request classes, an empty list if the agent can't be served over HTTP.
+   */
+  public default List<Class<? extends ServerRequest>> getRequestTypes() {
+    return Collections.emptyList();
+  }
+}
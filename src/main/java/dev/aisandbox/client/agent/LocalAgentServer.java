@@ -0,0 +1,310 @@
+package dev.aisandbox.client.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.BatchResponse;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Serves a {@link LocalAgent} over HTTP on the loopback interface.
+ *
+ * <p>This gives an agent that answers (almost) instantly, over a real socket, so the speed of the
+ * client itself can be measured. Requests can be in any {@link AgentLanguage} (chosen from the
+ * Content-Type header) and may be compressed with gzip or deflate. Each response reports the time
+ * the agent took in the {@value AgentPhaseTimer#COMPUTE_HEADER} header. Batched requests (a {@link
+ * BatchRequest}) are split up the same way as by a {@link LocalChannel}, and answered with a {@link
+ * BatchResponse}.
+ *
+ * <p>All requests are answered by one instance of the agent. Requests are handled on several
+ * threads, but unless the agent is {@link LocalAgent#isThreadSafe() thread safe} they reach it one
+ * at a time. Agents that keep state between requests (such as mine hunter in delta mode) should
+ * only have one client.
+ *
+ * <p>The JDK's HTTP server writes the headers and body separately, so without the {@code
+ * sun.net.httpserver.nodelay} system property each response waits for the client's delayed ACK
+ * (about 40ms). The property is read once, when the server classes are loaded, so it has to be set
+ * before the first server is created.
+ */
+@Slf4j
+public class LocalAgentServer implements AutoCloseable {
+
+  /** Turns on TCP_NODELAY for the JDK's HTTP server. */
+  public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  private final LocalAgent agent;
+  private final List<Class<? extends ServerRequest>> requestTypes;
+  // converters are thread safe, so one codec per language serves every request
+  private final Map<AgentLanguage, AgentMessageCodec> codecs = new EnumMap<>(AgentLanguage.class);
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Create a server and start listening.
+   *
+   * @param name the name of the local agent to serve.
+   * @param port the port to listen on, zero to pick a free port.
+   * @param threads the number of threads handling requests, an agent that isn't thread safe is
+   *     still only passed one request at a time.
+   * @throws IOException if the server can't be started.
+   * @throws IllegalArgumentException if there is no local agent with that name, or it can't be
+   *     served over HTTP.
+   */
+  public LocalAgentServer(String name, int port, int threads) throws IOException {
+    agent = LocalChannel.findLocalAgent(name);
+    if (agent == null) {
+      throw new IllegalArgumentException("No local agent called " + name);
+    }
+    requestTypes = agent.getRequestTypes();
+    if (requestTypes.isEmpty()) {
+      throw new IllegalArgumentException("Local agent " + name + " can't be served over HTTP");
+    }
+    for (AgentLanguage language : AgentLanguage.values()) {
+      codecs.put(language, new AgentMessageCodec(language));
+    }
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    log.info("Serving local agent {} at {}", agent.getName(), getUrl());
+  }
+
+  /**
+   * The port the server is listening on.
+   *
+   * @return the port number.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * The URL to use as an agent's target.
+   *
+   * @return the URL of the agent.
+   */
+  public String getUrl() {
+    return "http://localhost:" + getPort() + "/" + agent.getName();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        sendError(exchange, 405, "Only POST is supported");
+        return;
+      }
+      AgentLanguage language = findLanguage(exchange.getRequestHeaders().getFirst("Content-Type"));
+      if (language == null) {
+        sendError(exchange, 415, "Unknown content type");
+        return;
+      }
+      byte[] body = readBody(exchange);
+      AgentMessageCodec codec = codecs.get(language);
+      ServerRequest request = decode(codec, body);
+      if (request == null) {
+        sendError(exchange, 400, "Can't read request");
+        return;
+      }
+      long start = System.nanoTime();
+      ServerResponse response = respond(request);
+      long computeMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+      byte[] reply = codec.encode(response);
+      exchange.getResponseHeaders().set("Content-Type", language.getMediaType().toString());
+      exchange
+          .getResponseHeaders()
+          .set(AgentPhaseTimer.COMPUTE_HEADER, Long.toString(computeMicros));
+      exchange.sendResponseHeaders(200, reply.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(reply);
+      }
+    } catch (AgentResetException e) {
+      // the agent wants the scenario to start afresh
+      exchange.sendResponseHeaders(205, -1);
+    } catch (AgentException | RuntimeException e) {
+      log.warn("Error answering request", e);
+      sendError(exchange, 500, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /** Answer a request, or each request in a batch. */
+  private ServerResponse respond(ServerRequest request) throws AgentException {
+    if (request instanceof BatchRequest) {
+      BatchResponse<ServerResponse> batch = new BatchResponse<>();
+      for (ServerRequest r : ((BatchRequest<?>) request).getRequests()) {
+        batch.getResponses().add(respond(r));
+      }
+      return batch;
+    }
+    if (agent.isThreadSafe()) {
+      return agent.respond(request);
+    }
+    synchronized (agent) {
+      return agent.respond(request);
+    }
+  }
+
+  private static AgentLanguage findLanguage(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    MediaType type = MediaType.parseMediaType(contentType);
+    for (AgentLanguage language : AgentLanguage.values()) {
+      if (language.getMediaType().isCompatibleWith(type)) {
+        return language;
+      }
+    }
+    return null;
+  }
+
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    String encoding = exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+    try (InputStream in = decompress(exchange.getRequestBody(), encoding)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static InputStream decompress(InputStream in, String encoding) throws IOException {
+    if ("gzip".equalsIgnoreCase(encoding)) {
+      return new GZIPInputStream(in);
+    } else if ("deflate".equalsIgnoreCase(encoding)) {
+      return new InflaterInputStream(in);
+    }
+    return in;
+  }
+
+  /**
+   * Decode a request into the first of the agent's request types that fits it.
+   *
+   * <p>XML messages only fit the type with the matching root element. As the Jackson based
+   * languages ignore unknown properties, they are matched by checking the message only has
+   * properties the type knows about. This also picks out batches, whose requests are each decoded
+   * in the same way.
+   */
+  private ServerRequest decode(AgentMessageCodec codec, byte[] body) {
+    if (!(codec.getConverter() instanceof AbstractJackson2HttpMessageConverter)) {
+      for (Class<? extends ServerRequest> type : requestTypes) {
+        try {
+          return codec.decode(body, type);
+        } catch (IOException e) {
+          log.debug("Request isn't a {}", type.getSimpleName());
+        }
+      }
+      return null;
+    }
+    ObjectMapper mapper =
+        ((AbstractJackson2HttpMessageConverter) codec.getConverter()).getObjectMapper();
+    try {
+      JsonNode tree = mapper.readTree(new ByteArrayInputStream(body));
+      if (!isBatch(mapper, tree)) {
+        return decode(mapper, tree);
+      }
+      BatchRequest<ServerRequest> batch = new BatchRequest<>();
+      JsonNode environments = tree.get("environments");
+      JsonNode requests = tree.get("requests");
+      for (int i = 0; i < requests.size(); i++) {
+        ServerRequest request = decode(mapper, requests.get(i));
+        if (request == null) {
+          return null;
+        }
+        batch.add(environments.path(i).asInt(i), request);
+      }
+      return batch;
+    } catch (IOException e) {
+      log.warn("Error decoding request", e);
+      return null;
+    }
+  }
+
+  private boolean isBatch(ObjectMapper mapper, JsonNode tree) {
+    return tree.path("requests").isArray()
+        && propertyNames(mapper, BatchRequest.class).containsAll(fieldNames(tree));
+  }
+
+  private ServerRequest decode(ObjectMapper mapper, JsonNode node) {
+    if (requestTypes.size() == 1) {
+      try {
+        return mapper.treeToValue(node, requestTypes.get(0));
+      } catch (IOException e) {
+        log.warn("Error decoding request", e);
+        return null;
+      }
+    }
+    Set<String> fields = fieldNames(node);
+    for (Class<? extends ServerRequest> type : requestTypes) {
+      if (!propertyNames(mapper, type).containsAll(fields)) {
+        continue;
+      }
+      try {
+        return mapper.treeToValue(node, type);
+      } catch (IOException e) {
+        log.debug("Request isn't a {}", type.getSimpleName());
+      }
+    }
+    return null;
+  }
+
+  private static Set<String> fieldNames(JsonNode node) {
+    Set<String> names = new HashSet<>();
+    Iterator<String> i = node.fieldNames();
+    while (i.hasNext()) {
+      names.add(i.next());
+    }
+    return names;
+  }
+
+  private static Set<String> propertyNames(ObjectMapper mapper, Class<?> type) {
+    Set<String> names = new HashSet<>();
+    for (BeanPropertyDefinition property :
+        mapper.getDeserializationConfig().introspect(mapper.constructType(type)).findProperties()) {
+      names.add(property.getName());
+    }
+    return names;
+  }
+
+  private static void sendError(HttpExchange exchange, int code, String message)
+      throws IOException {
+    byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(code, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /** Stop the server, waiting up to a second for requests in progress. */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdownNow();
+    log.info("Stopped local agent server");
+  }
+}
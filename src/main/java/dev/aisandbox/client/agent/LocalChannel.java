@@ -0,0 +1,89 @@
+package dev.aisandbox.client.agent;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.BatchResponse;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link AgentChannel} that hands the request objects straight to a {@link LocalAgent}.
+ *
+ * <p>Batches are split up and each request passed to the agent in turn.
+ */
+@Slf4j
+public class LocalChannel implements AgentChannel {
+
+  private final String target;
+  private LocalAgent localAgent = null;
+
+  /**
+   * Create a channel to a local agent, the agent is created when the first request is sent.
+   *
+   * @param target the name of the local agent.
+   */
+  public LocalChannel(String target) {
+    this.target = target;
+  }
+
+  /**
+   * Find (and create) a local agent by name.
+   *
+   * @param name the name of the agent, this isn't case sensitive.
+   * @return a new instance of the agent or null if there is no agent with that name.
+   */
+  public static LocalAgent findLocalAgent(String name) {
+    String key = name.trim().toLowerCase(Locale.ROOT);
+    for (LocalAgent agent : ServiceLoader.load(LocalAgent.class)) {
+      if (agent.getName().toLowerCase(Locale.ROOT).equals(key)) {
+        return agent;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public synchronized <T> T exchange(Object request, Type responseType) throws AgentException {
+    if (localAgent == null) {
+      localAgent = findLocalAgent(target);
+      if (localAgent == null) {
+        throw new AgentFileNotFoundException(target, "No local agent called " + target);
+      }
+      log.info("Using local agent {}", localAgent.getClass().getName());
+    }
+    if (request instanceof BatchRequest) {
+      BatchResponse<ServerResponse> batch = new BatchResponse<>();
+      Class<?> elementType =
+          (Class<?>) ((ParameterizedType) responseType).getActualTypeArguments()[0];
+      for (ServerRequest r : ((BatchRequest<?>) request).getRequests()) {
+        batch.getResponses().add(respond(r, elementType));
+      }
+      return (T) batch;
+    }
+    return (T) respond((ServerRequest) request, (Class<?>) responseType);
+  }
+
+  private ServerResponse respond(ServerRequest request, Class<?> responseType)
+      throws AgentException {
+    ServerResponse response = localAgent.respond(request);
+    if (!responseType.isInstance(response)) {
+      throw new AgentParserException(
+          target,
+          "Expected "
+              + responseType.getSimpleName()
+              + " but got "
+              + (response == null ? "null" : response.getClass().getSimpleName()));
+    }
+    return response;
+  }
+
+  @Override
+  public void close() {
+    // nothing to release
+  }
+}
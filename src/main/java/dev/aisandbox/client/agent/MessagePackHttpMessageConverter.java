@@ -0,0 +1,31 @@
+package dev.aisandbox.client.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Message converter that reads and writes MessagePack using Jackson.
+ *
+ * <p>Spring has no built in converter for MessagePack, this mirrors the CBOR and Smile converters.
+ */
+public class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+  /** The MessagePack media type. */
+  public static final MediaType MESSAGE_PACK = new MediaType("application", "x-msgpack");
+
+  /** Create a converter using a default MessagePack object mapper. */
+  public MessagePackHttpMessageConverter() {
+    this(new ObjectMapper(new MessagePackFactory()));
+  }
+
+  /**
+   * Create a converter using a custom object mapper.
+   *
+   * @param objectMapper a {@link ObjectMapper} built on a {@link MessagePackFactory}.
+   */
+  public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper, MESSAGE_PACK);
+  }
+}
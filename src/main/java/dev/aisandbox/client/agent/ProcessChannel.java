@@ -0,0 +1,192 @@
+package dev.aisandbox.client.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link AgentChannel} that runs the agent as a local process and talks to it over its standard
+ * input and output.
+ *
+ * <p>Each message (in both directions) is a four byte big-endian length followed by that many bytes
+ * of the encoded message, using the agent's language. A zero length reply is treated the same as a
+ * HTTP 205 (Reset Content) response. Anything the process writes to standard error is passed
+ * through to the client's standard error.
+ *
+ * <p>The process is started on the first exchange and stopped when the channel is closed. If it
+ * exits while the simulation is running an {@link AgentConnectionException} is thrown and the next
+ * request starts it again.
+ */
+@Slf4j
+public class ProcessChannel implements AgentChannel {
+
+  /** The largest reply that will be accepted. */
+  public static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+  private static final long SHUTDOWN_WAIT = 2;
+
+  private final String target;
+  private final AgentMessageCodec codec;
+  private volatile Process process = null;
+  private DataOutputStream toAgent = null;
+  private DataInputStream fromAgent = null;
+
+  /**
+   * Create a channel, the process isn't started until the first request.
+   *
+   * @param target the command line used to start the agent.
+   * @param language the language to talk to the agent in.
+   */
+  public ProcessChannel(String target, AgentLanguage language) {
+    this.target = target;
+    this.codec = new AgentMessageCodec(language);
+  }
+
+  @Override
+  public synchronized <T> T exchange(Object request, Type responseType) throws AgentException {
+    byte[] body;
+    try {
+      body = codec.encode(request);
+    } catch (IOException e) {
+      log.error("Error encoding request", e);
+      throw new AgentConnectionException(target, "Error encoding request");
+    }
+    startProcess();
+    byte[] data;
+    try {
+      toAgent.writeInt(body.length);
+      toAgent.write(body);
+      toAgent.flush();
+      int length = fromAgent.readInt();
+      if (length < 0 || length > MAX_MESSAGE_SIZE) {
+        close();
+        throw new AgentParserException(target, "Invalid message length " + length);
+      }
+      data = new byte[length];
+      fromAgent.readFully(data);
+    } catch (EOFException e) {
+      log.error("Agent process closed its output", e);
+      throw processDied();
+    } catch (IOException e) {
+      log.error("Error talking to agent process", e);
+      throw processDied();
+    }
+    if (data.length == 0) {
+      throw new AgentResetException(target, "Reset content request");
+    }
+    try {
+      return codec.decode(data, responseType);
+    } catch (IOException e) {
+      log.error("Error parsing response", e);
+      throw new AgentParserException(
+          target, "Error converting response", -1, new String(data, StandardCharsets.UTF_8));
+    }
+  }
+
+  private void startProcess() throws AgentException {
+    if (process != null) {
+      return;
+    }
+    log.info("Starting agent process '{}'", target);
+    try {
+      process =
+          new ProcessBuilder(splitCommand(target))
+              .redirectError(ProcessBuilder.Redirect.INHERIT)
+              .start();
+    } catch (IOException e) {
+      log.error("Error starting agent process", e);
+      throw new AgentFileNotFoundException(target, "Can't start agent process - " + target);
+    }
+    toAgent = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    fromAgent = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+  }
+
+  private AgentConnectionException processDied() {
+    String message = "Agent process stopped";
+    try {
+      if (process.waitFor(SHUTDOWN_WAIT, TimeUnit.SECONDS)) {
+        message = "Agent process exited with code " + process.exitValue();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    close();
+    return new AgentConnectionException(target, message);
+  }
+
+  /**
+   * Split a command line into arguments, spaces inside double quotes are kept.
+   *
+   * @param command the command line.
+   * @return the command and its arguments.
+   */
+  public static List<String> splitCommand(String command) {
+    List<String> result = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    boolean inToken = false;
+    for (char c : command.toCharArray()) {
+      if (c == '"') {
+        quoted = !quoted;
+        inToken = true;
+      } else if (Character.isWhitespace(c) && !quoted) {
+        if (inToken) {
+          result.add(current.toString());
+          current.setLength(0);
+          inToken = false;
+        }
+      } else {
+        current.append(c);
+        inToken = true;
+      }
+    }
+    if (inToken) {
+      result.add(current.toString());
+    }
+    return result;
+  }
+
+  @Override
+  public void abort() {
+    // not synchronised, the exchange holds the lock while it waits
+    Process running = process;
+    if (running != null) {
+      log.warn("Killing agent process '{}'", target);
+      // the waiting exchange sees the end of the output and tidies up
+      running.destroyForcibly();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (process != null) {
+      log.info("Stopping agent process '{}'", target);
+      try {
+        // closing stdin asks the agent to finish
+        toAgent.close();
+      } catch (IOException e) {
+        log.debug("Error closing agent input", e);
+      }
+      try {
+        if (!process.waitFor(SHUTDOWN_WAIT, TimeUnit.SECONDS)) {
+          process.destroy();
+        }
+      } catch (InterruptedException e) {
+        process.destroy();
+        Thread.currentThread().interrupt();
+      }
+      process = null;
+      toAgent = null;
+      fromAgent = null;
+    }
+  }
+}
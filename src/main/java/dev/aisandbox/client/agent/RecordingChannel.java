@@ -0,0 +1,57 @@
+package dev.aisandbox.client.agent;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AgentChannel} that writes every exchange with another channel to an {@link
+ * AgentRecorder}, including the ones that fail.
+ *
+ * <p>This goes outside any cache, so the cached answers are recorded as well and the replay doesn't
+ * depend on the cache.
+ */
+public class RecordingChannel implements AgentChannel {
+
+  private final AgentChannel channel;
+  private final AgentRecorder recorder;
+
+  /**
+   * Record the exchanges with a channel.
+   *
+   * @param channel the channel to send the requests to.
+   * @param recorder the recording to write to, this is closed with the channel.
+   */
+  public RecordingChannel(AgentChannel channel, AgentRecorder recorder) {
+    this.channel = channel;
+    this.recorder = recorder;
+  }
+
+  @Override
+  public <T> T exchange(Object request, Type responseType) throws AgentException {
+    long start = System.nanoTime();
+    try {
+      T response = channel.exchange(request, responseType);
+      // an empty response is recorded too, or every later response would replay one step early
+      recorder.record(request, response, null, micros(start));
+      return response;
+    } catch (AgentException e) {
+      recorder.record(request, null, e, micros(start));
+      throw e;
+    }
+  }
+
+  private static long micros(long start) {
+    return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+  }
+
+  @Override
+  public void abort() {
+    channel.abort();
+  }
+
+  @Override
+  public void close() {
+    channel.close();
+    recorder.close();
+  }
+}
@@ -0,0 +1,116 @@
+package dev.aisandbox.client.agent;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link AgentChannel} that plays back a recording made by an {@link AgentRecorder}, without an
+ * agent.
+ *
+ * <p>Each exchange returns the next recorded response (null for an empty one, or throws the
+ * recorded error) straight away. The request is compared with the recorded one, and a warning is
+ * logged the first time they differ, as the replayed responses may no longer make sense. Running
+ * past the end of the recording throws an {@link AgentConnectionException}.
+ */
+@Slf4j
+public class ReplayChannel implements AgentChannel {
+
+  /** Recreates each recorded exception from its class name, others become connection errors. */
+  private static final Map<String, BiFunction<String, String, AgentException>> RECORDED_ERRORS =
+      Map.of(
+          AgentResetException.class.getSimpleName(), AgentResetException::new,
+          AgentTimeoutException.class.getSimpleName(), AgentTimeoutException::new,
+          AgentFileNotFoundException.class.getSimpleName(), AgentFileNotFoundException::new,
+          AgentAuthException.class.getSimpleName(), AgentAuthException::new,
+          AgentParserException.class.getSimpleName(), AgentParserException::new,
+          AgentRequestException.class.getSimpleName(), AgentRequestException::new);
+
+  private final String target;
+  private final AgentMessageCodec codec = new AgentMessageCodec(AgentLanguage.CBOR);
+  private InputStream in = null;
+  private long step = 0;
+  private boolean diverged = false;
+
+  /**
+   * Create a channel, the recording isn't opened until the first request.
+   *
+   * @param target the path of the recording.
+   */
+  public ReplayChannel(String target) {
+    this.target = target;
+  }
+
+  @Override
+  public synchronized <T> T exchange(Object request, Type responseType) throws AgentException {
+    try {
+      if (in == null) {
+        open();
+      }
+      long kind = AgentRecorder.readVarint(in);
+      if (kind < 0) {
+        throw new AgentConnectionException(target, "End of recording after " + step + " steps");
+      }
+      step++;
+      // the recorded round trip time isn't used, replays run at full speed
+      AgentRecorder.readVarint(in);
+      byte[] recordedRequest = AgentRecorder.readBytes(in);
+      if (!diverged && !Arrays.equals(recordedRequest, codec.encode(request))) {
+        diverged = true;
+        log.warn("Request {} doesn't match the recording, the replay has diverged", step);
+      }
+      if (kind == AgentRecorder.KIND_ERROR) {
+        String type = new String(AgentRecorder.readBytes(in), StandardCharsets.UTF_8);
+        String message = new String(AgentRecorder.readBytes(in), StandardCharsets.UTF_8);
+        throw recordedError(type, message);
+      }
+      if (kind == AgentRecorder.KIND_EMPTY) {
+        return null;
+      }
+      return codec.decode(AgentRecorder.readBytes(in), responseType);
+    } catch (AgentException e) {
+      throw e;
+    } catch (IOException e) {
+      log.error("Error reading recording", e);
+      throw new AgentParserException(target, "Error reading recording - " + e.getMessage());
+    }
+  }
+
+  private void open() throws IOException, AgentException {
+    try {
+      in = new BufferedInputStream(new FileInputStream(target));
+    } catch (IOException e) {
+      throw new AgentFileNotFoundException(target, "Can't open recording - " + target);
+    }
+    if (!AgentRecorder.checkMagic(in)) {
+      close();
+      throw new AgentParserException(target, "Not an agent recording - " + target);
+    }
+    step = 0;
+    diverged = false;
+    log.info("Replaying agent exchanges from {}", target);
+  }
+
+  private AgentException recordedError(String type, String message) {
+    return RECORDED_ERRORS.getOrDefault(type, AgentConnectionException::new).apply(target, message);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (in != null) {
+      try {
+        in.close();
+      } catch (IOException e) {
+        log.debug("Error closing recording", e);
+      }
+      in = null;
+    }
+  }
+}
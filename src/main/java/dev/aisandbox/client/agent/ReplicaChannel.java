@@ -0,0 +1,75 @@
+package dev.aisandbox.client.agent;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.SessionRequest;
+import dev.aisandbox.client.scenarios.SessionResponse;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.Getter;
+
+/**
+ * An {@link AgentChannel} that shares the requests between the replicas of an agent, each reached
+ * by its own channel.
+ *
+ * <p>An {@link AgentReplicaPool} picks the replica for each request and is told how it went.
+ * Requests that belong to a session, and batches of them, go to the replica holding the session,
+ * and a {@link SessionResponse} binds the new session to the replica that started it.
+ */
+public class ReplicaChannel implements AgentChannel {
+
+  @Getter private final AgentReplicaPool pool;
+  private final Map<String, AgentChannel> channels = new LinkedHashMap<>();
+
+  /**
+   * Create a channel for a pool of replicas.
+   *
+   * @param pool the replicas to share the requests between.
+   * @param channelFactory creates the channel to a replica from its URL.
+   */
+  public ReplicaChannel(AgentReplicaPool pool, Function<String, AgentChannel> channelFactory) {
+    this.pool = pool;
+    for (AgentReplicaPool.Replica replica : pool.getReplicas()) {
+      channels.put(replica.getUrl(), channelFactory.apply(replica.getUrl()));
+    }
+  }
+
+  @Override
+  public <T> T exchange(Object request, Type responseType) throws AgentException {
+    String url;
+    if (request instanceof BatchRequest) {
+      url = pool.chooseForSessions(((BatchRequest<?>) request).sessionKeys());
+    } else {
+      url =
+          pool.choose(
+              request instanceof SessionRequest ? ((SessionRequest) request).sessionKey() : null);
+    }
+    long start = System.nanoTime();
+    boolean failed = false;
+    try {
+      T response = channels.get(url).exchange(request, responseType);
+      if (response instanceof SessionResponse
+          && ((SessionResponse) response).sessionKey() != null) {
+        pool.bind(((SessionResponse) response).sessionKey(), url);
+      }
+      return response;
+    } catch (AgentConnectionException e) {
+      failed = true;
+      throw e;
+    } finally {
+      pool.finished(url, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), failed);
+    }
+  }
+
+  @Override
+  public void abort() {
+    channels.values().forEach(AgentChannel::abort);
+  }
+
+  @Override
+  public void close() {
+    channels.values().forEach(AgentChannel::close);
+  }
+}
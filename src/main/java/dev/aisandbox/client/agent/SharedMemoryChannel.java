@@ -0,0 +1,246 @@
+package dev.aisandbox.client.agent;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Type;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link AgentChannel} for an agent on the same machine, passing messages through a memory
+ * mapped file instead of a socket.
+ *
+ * <p>The client creates (or clears) the file named by the target on the first exchange, the agent
+ * maps the same file and waits for the magic number to appear. The layout, with all numbers
+ * little-endian, is:
+ *
+ * <ul>
+ *   <li>0: magic int {@code 0x4D534941} ("AISM"), written last once the rest is ready.
+ *   <li>4: version int, currently 1.
+ *   <li>8: ring capacity int, the size of each ring's data area. This is a positive multiple of 64,
+ *       so both rings' control blocks start on a cache line.
+ *   <li>12: state int, 1 while the client is running and 2 once it has closed the channel.
+ *   <li>128: the request ring (client to agent), see {@link SharedMemoryRing}.
+ *   <li>256 + capacity: the response ring (agent to client).
+ * </ul>
+ *
+ * <p>Messages are encoded in the agent's language. The agent replies to each request with a message
+ * carrying the same sequence number, an empty reply is treated the same as a HTTP 205 (Reset
+ * Content) response. Replies with an older sequence number (answers to requests that timed out) are
+ * dropped.
+ *
+ * <p>Both sides poll for new messages, spinning briefly (on multi-core machines) before backing off
+ * to short sleeps, so a round trip takes microseconds when the agent is keeping up.
+ */
+@Slf4j
+public class SharedMemoryChannel implements AgentChannel {
+
+  /** The magic number at the start of the file. */
+  public static final int MAGIC = 0x4D534941;
+  /** The layout version. */
+  public static final int VERSION = 1;
+  /** The size of the file header before the request ring. */
+  public static final int HEADER_SIZE = 128;
+  /** The size of each ring's data area. */
+  public static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+  /** The state while the client is using the file. */
+  public static final int STATE_OPEN = 1;
+  /** The state once the client has closed the channel. */
+  public static final int STATE_CLOSED = 2;
+
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int STATE_OFFSET = 12;
+  // spinning only helps when the agent has a processor of its own to run on
+  private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 20000 : 0;
+  private static final int YIELD_LIMIT = SPIN_LIMIT + 1000;
+  private static final long PARK_NANOS = 20000;
+  private static final VarHandle INTS =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final String target;
+  private final AgentMessageCodec codec;
+  private final int readTimeout;
+  private final int capacity;
+  private MappedByteBuffer memory = null;
+  private SharedMemoryRing requests = null;
+  private SharedMemoryRing responses = null;
+  private int sequence = 0;
+  private volatile boolean aborted = false;
+
+  /**
+   * Create a channel, the file isn't created until the first request.
+   *
+   * @param target the path of the shared file.
+   * @param language the language to talk to the agent in.
+   * @param readTimeout how long to wait for a reply in milliseconds, zero to wait forever.
+   */
+  public SharedMemoryChannel(String target, AgentLanguage language, int readTimeout) {
+    this(target, language, readTimeout, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a channel with a different ring size.
+   *
+   * @param target the path of the shared file.
+   * @param language the language to talk to the agent in.
+   * @param readTimeout how long to wait for a reply in milliseconds, zero to wait forever.
+   * @param capacity the size of each ring's data area, a multiple of 64.
+   * @throws IllegalArgumentException if the capacity isn't a positive multiple of 64.
+   */
+  public SharedMemoryChannel(String target, AgentLanguage language, int readTimeout, int capacity) {
+    SharedMemoryRing.checkCapacity(capacity);
+    this.target = target;
+    this.codec = new AgentMessageCodec(language);
+    this.readTimeout = readTimeout;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Where the request ring starts.
+   *
+   * @return the offset of the request ring's control block.
+   */
+  public static int requestRingOffset() {
+    return HEADER_SIZE;
+  }
+
+  /**
+   * Where the response ring starts.
+   *
+   * @param capacity the ring capacity read from the header.
+   * @return the offset of the response ring's control block.
+   */
+  public static int responseRingOffset(int capacity) {
+    return HEADER_SIZE + SharedMemoryRing.CONTROL_SIZE + capacity;
+  }
+
+  /**
+   * The size of the shared file.
+   *
+   * @param capacity the ring capacity.
+   * @return the file size in bytes.
+   */
+  public static int fileSize(int capacity) {
+    return responseRingOffset(capacity) + SharedMemoryRing.CONTROL_SIZE + capacity;
+  }
+
+  @Override
+  public synchronized <T> T exchange(Object request, Type responseType) throws AgentException {
+    byte[] body;
+    try {
+      body = codec.encode(request);
+    } catch (IOException e) {
+      log.error("Error encoding request", e);
+      throw new AgentConnectionException(target, "Error encoding request");
+    }
+    open();
+    if (!requests.fits(body.length)) {
+      throw new AgentParserException(
+          target, "Request of " + body.length + " bytes is too large for shared memory");
+    }
+    aborted = false;
+    int current = ++sequence;
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeout);
+    int attempt = 0;
+    while (!requests.offer(current, body)) {
+      attempt = pause(attempt, end);
+    }
+    byte[] data;
+    while (true) {
+      SharedMemoryRing.Message reply;
+      try {
+        reply = responses.poll();
+      } catch (IllegalStateException e) {
+        close();
+        throw new AgentParserException(target, e.getMessage());
+      }
+      if (reply == null) {
+        attempt = pause(attempt, end);
+      } else if (reply.getSequence() == current) {
+        data = reply.getPayload();
+        break;
+      } else {
+        log.debug("Dropping late reply {} while waiting for {}", reply.getSequence(), current);
+      }
+    }
+    if (data.length == 0) {
+      throw new AgentResetException(target, "Reset content request");
+    }
+    try {
+      return codec.decode(data, responseType);
+    } catch (IOException e) {
+      log.error("Error parsing response", e);
+      throw new AgentParserException(
+          target, "Error converting response", -1, new String(data, StandardCharsets.UTF_8));
+    }
+  }
+
+  /** Wait a little before polling again, spinning at first and then sleeping. */
+  private int pause(int attempt, long end) throws AgentTimeoutException {
+    if (aborted) {
+      throw new AgentTimeoutException(target, "Request aborted");
+    }
+    if (attempt < SPIN_LIMIT) {
+      Thread.onSpinWait();
+    } else if (attempt < YIELD_LIMIT) {
+      Thread.yield();
+    } else {
+      if (readTimeout > 0 && System.nanoTime() - end > 0) {
+        throw new AgentTimeoutException(target, "Timeout waiting for response");
+      }
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+    return attempt + 1;
+  }
+
+  private void open() throws AgentException {
+    if (memory != null) {
+      return;
+    }
+    log.info("Creating shared memory file {}", target);
+    int size = fileSize(capacity);
+    try (RandomAccessFile raf = new RandomAccessFile(target, "rw")) {
+      // clear anything left from the last run, an agent still attached sees the magic go
+      raf.setLength(0);
+      raf.setLength(size);
+      // the mapping stays valid after the file is closed
+      memory = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } catch (IOException e) {
+      log.error("Error creating shared memory file", e);
+      throw new AgentFileNotFoundException(target, "Can't create shared memory file - " + target);
+    }
+    memory.order(ByteOrder.LITTLE_ENDIAN);
+    memory.putInt(4, VERSION);
+    memory.putInt(CAPACITY_OFFSET, capacity);
+    memory.putInt(STATE_OFFSET, STATE_OPEN);
+    requests = new SharedMemoryRing(memory, requestRingOffset(), capacity);
+    responses = new SharedMemoryRing(memory, responseRingOffset(capacity), capacity);
+    sequence = 0;
+    INTS.setRelease(memory, 0, MAGIC);
+  }
+
+  @Override
+  public void abort() {
+    // not synchronised, the exchange holds the lock while it waits
+    aborted = true;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (memory != null) {
+      log.info("Closing shared memory file {}", target);
+      INTS.setRelease(memory, STATE_OFFSET, STATE_CLOSED);
+      // the mapping itself is released when the buffer is garbage collected
+      memory = null;
+      requests = null;
+      responses = null;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package dev.aisandbox.client.agent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import lombok.Getter;
+
+/**
+ * One single-producer / single-consumer ring buffer inside a shared memory region.
+ *
+ * <p>The ring starts with a 128 byte control block holding two little-endian longs, each on its own
+ * cache line: the {@code head} (bytes read so far, only written by the consumer) at offset 0 and
+ * the {@code tail} (bytes written so far, only written by the producer) at offset 64. The data area
+ * of {@code capacity} bytes follows. The capacity must be a positive multiple of 64, so a ring that
+ * starts on a cache line also ends on one. Both counters only ever increase, the position in the
+ * data area is the counter modulo the capacity.
+ *
+ * <p>Each message is an int length, an int sequence number and the payload, padded to a multiple of
+ * eight bytes so the header never wraps (the payload can wrap around the end of the data area). The
+ * producer writes the message and then publishes it by moving the tail, with release semantics. The
+ * consumer reads the tail with acquire semantics, reads the message and then moves the head.
+ *
+ * <p>A ring must only be written by one thread and read by one thread at a time.
+ */
+public class SharedMemoryRing {
+
+  /** Size of the control block before the data area. */
+  public static final int CONTROL_SIZE = 128;
+  /** Size of the length and sequence number before each payload. */
+  public static final int MESSAGE_HEADER = 8;
+  /** The capacity, and the ring's offset, must be a multiple of this. */
+  public static final int ALIGNMENT = 64;
+
+  private static final int TAIL_OFFSET = 64;
+  private static final VarHandle LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final ByteBuffer buffer;
+  private final int headIndex;
+  private final int tailIndex;
+  private final int dataStart;
+  private final int capacity;
+
+  /**
+   * Create a view of a ring.
+   *
+   * @param buffer the shared memory, this should be a direct (or mapped) buffer.
+   * @param offset where the ring's control block starts, a multiple of 64.
+   * @param capacity the size of the data area, a multiple of 64.
+   * @throws IllegalArgumentException if the capacity isn't a positive multiple of 64.
+   */
+  public SharedMemoryRing(ByteBuffer buffer, int offset, int capacity) {
+    checkCapacity(capacity);
+    this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    this.headIndex = offset;
+    this.tailIndex = offset + TAIL_OFFSET;
+    this.dataStart = offset + CONTROL_SIZE;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Check a ring capacity keeps the layout aligned.
+   *
+   * @param capacity the size of the data area.
+   * @throws IllegalArgumentException if the capacity isn't a positive multiple of 64.
+   */
+  public static void checkCapacity(int capacity) {
+    if (capacity <= 0 || capacity % ALIGNMENT != 0) {
+      throw new IllegalArgumentException(
+          "Ring capacity " + capacity + " isn't a positive multiple of " + ALIGNMENT);
+    }
+  }
+
+  /**
+   * The space a message takes in the ring.
+   *
+   * @param length the payload length.
+   * @return the header, payload and padding size in bytes.
+   */
+  public static int paddedSize(int length) {
+    return (MESSAGE_HEADER + length + 7) & ~7;
+  }
+
+  /**
+   * Can a payload ever fit in this ring.
+   *
+   * @param length the payload length.
+   * @return true if an empty ring has room for it.
+   */
+  public boolean fits(int length) {
+    return paddedSize(length) <= capacity;
+  }
+
+  /**
+   * Add a message if there is room, this must only be called by the producer.
+   *
+   * @param sequence the sequence number of the message.
+   * @param payload the message body.
+   * @return false if the ring is too full, try again once the consumer has caught up.
+   */
+  public boolean offer(int sequence, byte[] payload) {
+    int size = paddedSize(payload.length);
+    long tail = (long) LONGS.get(buffer, tailIndex);
+    long head = (long) LONGS.getAcquire(buffer, headIndex);
+    if (capacity - (tail - head) < size) {
+      return false;
+    }
+    int position = (int) (tail % capacity);
+    buffer.putInt(dataStart + position, payload.length);
+    buffer.putInt(dataStart + position + 4, sequence);
+    copyIn(payload, (position + MESSAGE_HEADER) % capacity);
+    LONGS.setRelease(buffer, tailIndex, tail + size);
+    return true;
+  }
+
+  /**
+   * Take the next message if there is one, this must only be called by the consumer.
+   *
+   * @return the message or null if the ring is empty.
+   */
+  public Message poll() {
+    long head = (long) LONGS.get(buffer, headIndex);
+    long tail = (long) LONGS.getAcquire(buffer, tailIndex);
+    if (tail == head) {
+      return null;
+    }
+    int position = (int) (head % capacity);
+    int length = buffer.getInt(dataStart + position);
+    int sequence = buffer.getInt(dataStart + position + 4);
+    if (length < 0 || paddedSize(length) > tail - head) {
+      throw new IllegalStateException("Corrupt message in shared memory ring");
+    }
+    byte[] payload = new byte[length];
+    copyOut(payload, (position + MESSAGE_HEADER) % capacity);
+    LONGS.setRelease(buffer, headIndex, head + paddedSize(length));
+    return new Message(sequence, payload);
+  }
+
+  private void copyIn(byte[] payload, int position) {
+    int first = Math.min(payload.length, capacity - position);
+    buffer.position(dataStart + position);
+    buffer.put(payload, 0, first);
+    if (first < payload.length) {
+      buffer.position(dataStart);
+      buffer.put(payload, first, payload.length - first);
+    }
+  }
+
+  private void copyOut(byte[] payload, int position) {
+    int first = Math.min(payload.length, capacity - position);
+    buffer.position(dataStart + position);
+    buffer.get(payload, 0, first);
+    if (first < payload.length) {
+      buffer.position(dataStart);
+      buffer.get(payload, first, payload.length - first);
+    }
+  }
+
+  /** A message read from a ring. */
+  public static class Message {
+    @Getter private final int sequence;
+    @Getter private final byte[] payload;
+
+    Message(int sequence, byte[] payload) {
+      this.sequence = sequence;
+      this.payload = payload;
+    }
+  }
+}
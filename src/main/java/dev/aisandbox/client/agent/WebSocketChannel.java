@@ -0,0 +1,232 @@
+package dev.aisandbox.client.agent;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * An {@link AgentChannel} that keeps a single WebSocket open to the agent.
+ *
+ * <p>Each request is sent as one message and the next message from the agent is taken as the reply.
+ * JSON and XML are sent as text messages, the binary languages as binary messages. An empty reply
+ * is treated the same as a HTTP 205 (Reset Content) response.
+ *
+ * <p>The socket is opened on the first exchange (using the same OkHttp client, and so the same
+ * authentication headers and connect timeout, as the HTTP transport) and stays open until the
+ * channel is closed or the agent goes away.
+ */
+@Slf4j
+public class WebSocketChannel extends WebSocketListener implements AgentChannel {
+
+  private static final int NORMAL_CLOSURE = 1000;
+
+  private final String target;
+  private final OkHttpClient client;
+  private final Request handshake;
+  private final AgentMessageCodec codec;
+  private final boolean textMessages;
+  private final long readTimeout;
+  // guards the current socket, the listener callbacks arrive on OkHttp's threads
+  private final Object socketLock = new Object();
+  private WebSocket webSocket = null;
+  private final AtomicReference<CompletableFuture<byte[]>> pendingReply = new AtomicReference<>();
+
+  /**
+   * Create a channel, the socket isn't opened until the first request.
+   *
+   * @param target the ws:// or wss:// URL of the agent.
+   * @param client the HTTP client to open the socket with.
+   * @param handshake the upgrade request, including any authentication headers.
+   * @param language the language to talk to the agent in.
+   * @param readTimeout how long to wait for a reply in milliseconds, zero for no limit.
+   */
+  public WebSocketChannel(
+      String target,
+      OkHttpClient client,
+      Request handshake,
+      AgentLanguage language,
+      long readTimeout) {
+    this.target = target;
+    this.client = client;
+    this.handshake = handshake;
+    this.codec = new AgentMessageCodec(language);
+    this.textMessages = !language.isBinary();
+    this.readTimeout = readTimeout;
+  }
+
+  @Override
+  public synchronized <T> T exchange(Object request, Type responseType) throws AgentException {
+    byte[] body;
+    try {
+      body = codec.encode(request);
+    } catch (IOException e) {
+      log.error("Error encoding request", e);
+      throw new AgentConnectionException(target, "Error encoding request");
+    }
+    CompletableFuture<byte[]> reply = new CompletableFuture<>();
+    pendingReply.set(reply);
+    WebSocket socket;
+    synchronized (socketLock) {
+      if (webSocket == null) {
+        log.info("Opening WebSocket to {}", target);
+        webSocket = client.newWebSocket(handshake, this);
+      }
+      socket = webSocket;
+    }
+    boolean sent =
+        textMessages
+            ? socket.send(new String(body, StandardCharsets.UTF_8))
+            : socket.send(ByteString.of(body));
+    if (!sent) {
+      pendingReply.set(null);
+      forget(socket);
+      throw new AgentConnectionException(target, "WebSocket closed");
+    }
+    byte[] data = waitForReply(reply);
+    if (data.length == 0) {
+      throw new AgentResetException(target, "Reset content request");
+    }
+    try {
+      return codec.decode(data, responseType);
+    } catch (IOException e) {
+      log.error("Error parsing response", e);
+      throw new AgentParserException(
+          target, "Error converting response", -1, new String(data, StandardCharsets.UTF_8));
+    }
+  }
+
+  private byte[] waitForReply(CompletableFuture<byte[]> reply) throws AgentException {
+    try {
+      if (readTimeout > 0) {
+        return reply.get(readTimeout, TimeUnit.MILLISECONDS);
+      } else {
+        return reply.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AgentException) {
+        throw (AgentException) e.getCause();
+      }
+      throw new AgentConnectionException(target, "Error reading from WebSocket");
+    } catch (TimeoutException e) {
+      // the late reply would be taken as the answer to the next request, so start again
+      close();
+      throw new AgentTimeoutException(target, "Timeout waiting for response");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AgentConnectionException(target, "Interrupted waiting for response");
+    } finally {
+      pendingReply.compareAndSet(reply, null);
+    }
+  }
+
+  @Override
+  public void onMessage(WebSocket webSocket, String text) {
+    completeReply(webSocket, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void onMessage(WebSocket webSocket, ByteString bytes) {
+    completeReply(webSocket, bytes.toByteArray());
+  }
+
+  private void completeReply(WebSocket socket, byte[] data) {
+    // ignore late messages from a socket that has been dropped
+    CompletableFuture<byte[]> reply = null;
+    synchronized (socketLock) {
+      if (webSocket == socket) {
+        reply = pendingReply.getAndSet(null);
+      }
+    }
+    if (reply == null) {
+      log.warn("Unexpected message from agent {} ignored", target);
+    } else {
+      reply.complete(data);
+    }
+  }
+
+  @Override
+  public void onClosing(WebSocket webSocket, int code, String reason) {
+    log.info("Agent {} closed WebSocket ({} {})", target, code, reason);
+    webSocket.close(NORMAL_CLOSURE, null);
+    failReply(webSocket, new AgentConnectionException(target, "WebSocket closed by agent"));
+  }
+
+  @Override
+  public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+    log.error("WebSocket failure talking to {}", target, t);
+    AgentException exception;
+    if (response == null) {
+      exception = new AgentConnectionException(target, "Error accessing remote resource");
+    } else {
+      switch (response.code()) {
+        case 404:
+          exception = new AgentFileNotFoundException(target, "Error accessing URL - " + target);
+          break;
+        case 401:
+          exception = new AgentAuthException(target, "Auth error accessing URL - " + target);
+          break;
+        default:
+          exception = new AgentConnectionException(target, "HTTP error (" + response.code() + ")");
+      }
+    }
+    failReply(webSocket, exception);
+  }
+
+  private void failReply(WebSocket socket, AgentException exception) {
+    if (forget(socket)) {
+      CompletableFuture<byte[]> reply = pendingReply.getAndSet(null);
+      if (reply != null) {
+        reply.completeExceptionally(exception);
+      }
+    }
+  }
+
+  /**
+   * Drop a dead socket so the next exchange opens a new one.
+   *
+   * @return true if this was the current socket.
+   */
+  private boolean forget(WebSocket socket) {
+    synchronized (socketLock) {
+      if (webSocket == socket) {
+        webSocket = null;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  @Override
+  public void abort() {
+    CompletableFuture<byte[]> reply = pendingReply.getAndSet(null);
+    if (reply != null) {
+      reply.completeExceptionally(new AgentTimeoutException(target, "Request abandoned"));
+    }
+    close();
+  }
+
+  @Override
+  public void close() {
+    WebSocket socket;
+    synchronized (socketLock) {
+      socket = webSocket;
+      webSocket = null;
+    }
+    if (socket != null) {
+      log.info("Closing WebSocket to {}", target);
+      socket.close(NORMAL_CLOSURE, "Simulation finished");
+    }
+  }
+}
@@ -32,6 +32,10 @@ public class CLIParser {
   public static final String OPTION_CONFIG = "config";
   /** parameter for running in headless mode. */
   public static final String OPTION_HEADLESS = "headless";
+  /** parameter for serving a local agent over HTTP. */
+  public static final String OPTION_AGENT_SERVER = "agentserver";
+  /** parameter for the agent server's port. */
+  public static final String OPTION_PORT = "port";
 
   /** Private constructor to stop the class being instantiated. */
   private CLIParser() {}
@@ -54,6 +58,19 @@ public class CLIParser {
     options.addOption(OPTION_DEBUG, false, "Write debug log to file");
     options.addOption(OPTION_LILITH, false, "Connect to lilith log viewer on localhost");
     options.addOption(OPTION_HEADLESS, false, "Run the simulation without the GUI");
+    options.addOption(
+        Option.builder(OPTION_AGENT_SERVER)
+            .hasArg()
+            .argName("agent")
+            .desc(
+                "Serve a built in agent (e.g. random-maze) over HTTP instead of running the client")
+            .build());
+    options.addOption(
+        Option.builder(OPTION_PORT)
+            .hasArg()
+            .argName("port")
+            .desc("The port for the agent server (default 8080)")
+            .build());
     return options;
   }
 
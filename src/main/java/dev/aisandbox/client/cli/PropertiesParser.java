@@ -2,6 +2,10 @@ package dev.aisandbox.client.cli;
 
 import dev.aisandbox.client.ApplicationModel;
 import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentBalancing;
+import dev.aisandbox.client.agent.AgentCompression;
+import dev.aisandbox.client.agent.AgentLanguage;
+import dev.aisandbox.client.agent.AgentTransport;
 import dev.aisandbox.client.output.OutputFormat;
 import dev.aisandbox.client.parameters.ParameterParseException;
 import dev.aisandbox.client.scenarios.Scenario;
@@ -11,6 +15,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -116,11 +123,13 @@ public class PropertiesParser {
         if (props.containsKey("agent" + i + "URL")) {
           agent.setTarget(props.getProperty("agent" + i + "URL"));
         }
-        if ("XML"
-            .equals(
-                props.getProperty(
-                    "agent" + i + "Lang"))) { // we only test for XML as JSON is the default
-          agent.setEnableXML(true);
+        if (props.containsKey("agent" + i + "Lang")) { // JSON is the default
+          String lang = props.getProperty("agent" + i + "Lang").trim();
+          try {
+            agent.setLanguage(AgentLanguage.valueOf(lang.toUpperCase()));
+          } catch (IllegalArgumentException e) {
+            log.warn("Unknown language '{}' for agent {}, using JSON", lang, i);
+          }
         }
         if (props.containsKey("agent" + i + "Username")) {
           agent.setBasicAuth(true);
@@ -132,11 +141,121 @@ public class PropertiesParser {
           agent.setApiKeyHeader(props.getProperty("agent" + i + "HeaderName"));
           agent.setApiKeyValue(props.getProperty("agent" + i + "HeaderValue"));
         }
+        readConnectionSettings(agent, "agent" + i, props);
         model.getAgentList().add(agent);
       }
     }
   }
 
+  /**
+   * Read the connection settings (timeouts, retries, hedging, compression, keep-alive, HTTP/2,
+   * replica balancing, transport, recording and caching) for a single agent.
+   *
+   * @param agent the agent to update
+   * @param prefix the prefix for this agent's properties e.g. "agent1"
+   * @param props the properties object to scan
+   */
+  private void readConnectionSettings(Agent agent, String prefix, Properties props) {
+    // each number is read on its own, so one bad value doesn't skip the rest
+    readInt(props, prefix + "ConnectTimeout", agent::setConnectTimeout);
+    readInt(props, prefix + "ReadTimeout", agent::setReadTimeout);
+    readInt(props, prefix + "Deadline", agent::setDeadline);
+    readInt(props, prefix + "Retries", agent::setRetries);
+    readDouble(props, prefix + "HedgePercentile", agent::setHedgePercentile);
+    readInt(props, prefix + "CompressionThreshold", agent::setCompressionThreshold);
+    readInt(props, prefix + "CacheSize", agent::setCacheSize);
+    if (props.containsKey(prefix + "HedgeTarget")) {
+      agent.setHedgeTarget(props.getProperty(prefix + "HedgeTarget").trim());
+    }
+    if (props.containsKey(prefix + "KeepAlive")) {
+      agent.setKeepAlive(Boolean.parseBoolean(props.getProperty(prefix + "KeepAlive")));
+    }
+    if (props.containsKey(prefix + "HTTP2")) {
+      agent.setHttp2(Boolean.parseBoolean(props.getProperty(prefix + "HTTP2")));
+    }
+    if (props.containsKey(prefix + "Compression")) {
+      String compression = props.getProperty(prefix + "Compression").trim();
+      try {
+        agent.setCompression(AgentCompression.valueOf(compression.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        log.warn("Unknown compression '{}' for {}, sending uncompressed", compression, prefix);
+      }
+    }
+    if (props.containsKey(prefix + "Balancing")) {
+      String balancing = props.getProperty(prefix + "Balancing").trim();
+      try {
+        agent.setBalancing(AgentBalancing.valueOf(balancing.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        log.warn("Unknown balancing '{}' for {}, using round robin", balancing, prefix);
+      }
+    }
+    if (props.containsKey(prefix + "Record")) {
+      agent.setRecordFile(props.getProperty(prefix + "Record").trim());
+    }
+    if (props.containsKey(prefix + "Transport")) {
+      String transport = props.getProperty(prefix + "Transport").trim();
+      try {
+        agent.setTransport(AgentTransport.valueOf(transport.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        log.warn("Unknown transport '{}' for {}, using HTTP", transport, prefix);
+      }
+    }
+  }
+
+  /**
+   * Read a whole number setting, logging (and otherwise ignoring) a value that isn't a number.
+   *
+   * @param props the properties object to scan
+   * @param key the property to read
+   * @param setter where to put the value
+   */
+  private static void readInt(Properties props, String key, IntConsumer setter) {
+    String value = props.getProperty(key);
+    if (value != null) {
+      try {
+        setter.accept(Integer.parseInt(value.trim()));
+      } catch (NumberFormatException e) {
+        log.warn("Error parsing {} - '{}' isn't a whole number, ignoring it", key, value);
+      }
+    }
+  }
+
+  /**
+   * Read a long whole number setting, logging (and otherwise ignoring) a value that isn't a number.
+   *
+   * @param props the properties object to scan
+   * @param key the property to read
+   * @param setter where to put the value
+   */
+  private static void readLong(Properties props, String key, LongConsumer setter) {
+    String value = props.getProperty(key);
+    if (value != null) {
+      try {
+        setter.accept(Long.parseLong(value.trim()));
+      } catch (NumberFormatException e) {
+        log.warn("Error parsing {} - '{}' isn't a whole number, ignoring it", key, value);
+      }
+    }
+  }
+
+  /**
+   * Read a decimal setting, logging (and otherwise ignoring) a value that isn't a number.
+   *
+   * @param props the properties object to scan
+   * @param key the property to read
+   * @param setter where to put the value
+   */
+  private static void readDouble(Properties props, String key, DoubleConsumer setter) {
+    String value = props.getProperty(key);
+    if (value != null) {
+      try {
+        setter.accept(Double.parseDouble(value.trim()));
+      } catch (NumberFormatException e) {
+        log.warn("Error parsing {} - '{}' isn't a number, ignoring it", key, value);
+      }
+    }
+  }
+
   /**
    * Scan a properties object for settings common across all scenarios.
    *
@@ -177,5 +296,24 @@ public class PropertiesParser {
         log.warn("Error parsing stat step count");
       }
     }
+    // run several environments, batching their requests
+    if (props.containsKey("batch")) {
+      try {
+        model.setBatchSize(Integer.parseInt(props.getProperty("batch")));
+      } catch (NumberFormatException e) {
+        log.warn("Error parsing batch size");
+      }
+    }
+    // overlap network requests with drawing
+    if (props.containsKey("pipeline")) {
+      model.setPipelined(Boolean.parseBoolean(props.getProperty("pipeline")));
+    }
+    // run some throwaway steps before measuring
+    readInt(props, "warmup", model::setWarmupSteps);
+    readLong(props, "warmupTimeout", model::setWarmupTimeout);
+    // compare the agents, each running its own copy of the scenario
+    if (props.containsKey("tournament")) {
+      model.setTournament(Boolean.parseBoolean(props.getProperty("tournament")));
+    }
   }
 }
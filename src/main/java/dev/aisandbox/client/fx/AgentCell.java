@@ -64,11 +64,7 @@ public class AgentCell extends ListCell<Agent> {
         urlLabel.getStyleClass().add("error");
       }
       padlock.setColor(Color.DARKGRAY);
-      if (agent.isEnableXML()) {
-        protocolLabel.setText("<>");
-      } else {
-        protocolLabel.setText("{}");
-      }
+      protocolLabel.setText(agent.getLanguage().getSymbol());
 
       urlLabel.setText(agent.getTarget());
 
@@ -1,6 +1,7 @@
 package dev.aisandbox.client.fx;
 
 import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentLanguage;
 import java.net.URL;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
@@ -66,7 +67,12 @@ public class EditAgentController {
     // TODO check target URL is valid
     // copy data from UI to agent
     agent.setTarget(url.getText());
-    agent.setEnableXML(restXMLChoice.isSelected());
+    // binary languages can only be set in the config file, so leave them unless changed
+    if (restXMLChoice.isSelected()) {
+      agent.setLanguage(AgentLanguage.XML);
+    } else if (restJSONChoice.isSelected()) {
+      agent.setLanguage(AgentLanguage.JSON);
+    }
     agent.setBasicAuth(basicAuthentication.isSelected());
     agent.setBasicAuthUsername(username.getText());
     agent.setBasicAuthPassword(password.getText());
@@ -91,9 +97,9 @@ public class EditAgentController {
     // copy the data to the UI
     url.setText(agent.getTarget());
     // link the XML / JSON property
-    if (agent.isEnableXML()) {
+    if (agent.getLanguage() == AgentLanguage.XML) {
       restXMLChoice.selectedProperty().set(true);
-    } else {
+    } else if (agent.getLanguage() == AgentLanguage.JSON) {
       restJSONChoice.selectedProperty().set(true);
     }
     // basic auth
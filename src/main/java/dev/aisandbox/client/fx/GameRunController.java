@@ -1,11 +1,14 @@
 package dev.aisandbox.client.fx;
 
 import dev.aisandbox.client.ApplicationModel;
+import dev.aisandbox.client.SimulationListener;
 import dev.aisandbox.client.SimulationRunThread;
 import dev.aisandbox.client.agent.AgentConnectionException;
 import dev.aisandbox.client.agent.AgentException;
 import dev.aisandbox.client.agent.AgentParserException;
+import dev.aisandbox.client.agent.AgentTimeoutException;
 import dev.aisandbox.client.output.FormatTools;
+import dev.aisandbox.client.profiler.AIProfiler;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ResourceBundle;
@@ -32,12 +35,15 @@ import org.springframework.stereotype.Component;
 /**
  * Controller class used when running the simulations.
  *
+ * <p>This is the JavaFX {@link SimulationListener}, it registers itself with the model when the
+ * screen is loaded.
+ *
  * @author gde
  * @version $Id: $Id
  */
 @Component
 @Slf4j
-public class GameRunController {
+public class GameRunController implements SimulationListener {
 
   private final AtomicBoolean imageReady = new AtomicBoolean(true);
   private final ApplicationModel model;
@@ -47,6 +53,7 @@ public class GameRunController {
   @FXML private Label runTimeField;
   @FXML private Label averageStepField;
   @FXML private Label stepCountField;
+  @FXML private Label latencyField;
   @FXML private Button backButton;
   @FXML private Button startButton;
   @FXML private Pane imageAnchor;
@@ -68,6 +75,7 @@ public class GameRunController {
   void backButtonAction(ActionEvent event) {
     log.info("Resetting scenario");
     model.resetRuntime();
+    model.removeSimulationListener(this);
     log.info("Selecting options screen");
     fxtools.moveToScreen(event, "/dev/aisandbox/client/fx/GameOptions.fxml");
   }
@@ -96,7 +104,8 @@ public class GameRunController {
   }
 
   /** Called when the running thread has stopped running. */
-  public void resetStartButton() {
+  @Override
+  public void simulationStopped() {
     running.set(false);
     thread = null;
   }
@@ -111,6 +120,8 @@ public class GameRunController {
         : "fx:id=\"averageStepField\" was not injected: check your FXML file 'GameRun.fxml'.";
     assert stepCountField != null
         : "fx:id=\"stepCountField\" was not injected: check your FXML file 'GameRun.fxml'.";
+    assert latencyField != null
+        : "fx:id=\"latencyField\" was not injected: check your FXML file 'GameRun.fxml'.";
     assert backButton != null
         : "fx:id=\"backButton\" was not injected: check your FXML file 'GameRun.fxml'.";
     assert stepButton != null
@@ -153,7 +164,8 @@ public class GameRunController {
     stepButton.disableProperty().bind(running);
     backButton.disableProperty().bind(running);
     // initialise simulation
-    model.initialiseRuntime(this);
+    model.addSimulationListener(this);
+    model.initialiseRuntime();
   }
 
   private void repositionImage(ImageView image, double paneWidth, double paneHeight) {
@@ -179,7 +191,8 @@ public class GameRunController {
    *
    * @param image The pre-drawn {@link java.awt.image.BufferedImage} to display.
    */
-  public void updateBoardImage(BufferedImage image) {
+  @Override
+  public void frameReady(BufferedImage image) {
     if (imageReady.getAndSet(false)) {
       Platform.runLater(
           () -> {
@@ -190,21 +203,32 @@ public class GameRunController {
   }
 
   /**
-   * Update the Profile graph.
+   * Update the Profile graph and the agent latency percentiles.
+   *
+   * <p>The chart is drawn on the calling thread, only the conversion to an FX image happens on the
+   * FX thread.
    *
-   * @param image The image to display.
-   * @param runTime The amount of time spent running the simulation, in milliseconds.
-   * @param averageStepTime The average step time, in milliseconds.
+   * @param profiler The profiler for the current run.
    * @param stepCount The number of steps taken.
    */
-  public void updateProfileInformation(
-      BufferedImage image, long runTime, long averageStepTime, long stepCount) {
+  @Override
+  public void profileUpdated(AIProfiler profiler, long stepCount) {
+    BufferedImage image = profiler.getChartImage();
+    long runTime = profiler.getRunTime();
+    long averageStepTime = profiler.getAverateStepTime();
+    StringBuilder latency = new StringBuilder();
+    profiler
+        .getAgentLatency()
+        .forEach(
+            (name, histogram) ->
+                latency.append(name).append(" : ").append(histogram.getSummary()).append('\n'));
     Platform.runLater(
         () -> {
           profileChart.setImage(SwingFXUtils.toFXImage(image, null));
           stepCountField.setText("Steps: " + stepCount);
           averageStepField.setText("Average Step : " + FormatTools.formatTime(averageStepTime));
           runTimeField.setText("Run Time : " + FormatTools.formatTime(runTime));
+          latencyField.setText(latency.toString().trim());
         });
   }
 
@@ -213,9 +237,12 @@ public class GameRunController {
    *
    * @param e a {@link AgentException} object.
    */
-  public void showAgentError(AgentException e) {
+  @Override
+  public void agentError(AgentException e) {
     // special case - is this an agent connection exception
-    if (e instanceof AgentConnectionException) {
+    if (e instanceof AgentTimeoutException) {
+      showAgentError(e.getTarget(), "Agent took too long to respond", e.getMessage());
+    } else if (e instanceof AgentConnectionException) {
       showAgentError(e.getTarget(), "Error connecting to agent", e.getMessage());
     } else if (e instanceof AgentParserException) {
       AgentParserException ape = (AgentParserException) e;
@@ -275,7 +302,8 @@ public class GameRunController {
    *
    * @param e The exception to display.
    */
-  public void showSimulationError(Exception e) {
+  @Override
+  public void simulationError(Exception e) {
     Platform.runLater(
         () -> {
           // show the exception
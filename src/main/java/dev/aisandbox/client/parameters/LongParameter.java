@@ -66,6 +66,10 @@ public class LongParameter implements ScenarioParameter {
     return value.get();
   }
 
+  public void setValue(long val) {
+    value.set(val);
+  }
+
   @Override
   public String toString() {
     return new ToStringBuilder(this)
@@ -1,11 +1,19 @@
 package dev.aisandbox.client.profiler;
 
+import dev.aisandbox.client.agent.AgentResponseCache;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.data.general.DefaultPieDataset;
@@ -13,9 +21,19 @@ import org.jfree.data.general.DefaultPieDataset;
 /**
  * AIProfiler class.
  *
+ * <p>As well as the average time spent in each part of a step, the profiler reports the {@link
+ * LatencyHistogram} of each agent so that slow responses aren't hidden by the averages, and the
+ * hits and misses of any agent with a response cache.
+ *
+ * <p>The agents' {@link NetworkPhases} are reported on their own, as the mean time per request, and
+ * aren't taken out of the "Network" part of each step. Requests can overlap the steps (pipelining,
+ * hedging and batches all send requests the step isn't waiting for), so the phase times don't add
+ * up to the time the step spent waiting.
+ *
  * @author gde
  * @version $Id: $Id
  */
+@Slf4j
 public class AIProfiler {
 
   @Getter long stepCount = 0;
@@ -24,6 +42,12 @@ public class AIProfiler {
 
   Map<String, Double> cumulativeStepTiming = new HashMap<>();
 
+  private final Map<String, LatencyHistogram> agentLatency = new LinkedHashMap<>();
+
+  private final Map<String, AgentResponseCache> agentCache = new HashMap<>();
+
+  private final Map<String, NetworkPhases> agentPhases = new HashMap<>();
+
   /**
    * getRunTime.
    *
@@ -76,6 +100,120 @@ public class AIProfiler {
     return result;
   }
 
+  /**
+   * Add an agent's latency histogram to the profile.
+   *
+   * @param name the name to show for the agent.
+   * @param latency the histogram the agent records its round trip times in.
+   */
+  public void addAgentLatency(String name, LatencyHistogram latency) {
+    agentLatency.put(name, latency);
+  }
+
+  /**
+   * The latency histograms of each agent, in the order they were added.
+   *
+   * @return a {@link java.util.Map} of agent name to histogram.
+   */
+  public Map<String, LatencyHistogram> getAgentLatency() {
+    return Collections.unmodifiableMap(agentLatency);
+  }
+
+  /**
+   * Add an agent's response cache to the profile.
+   *
+   * @param name the name to show for the agent, the same as its latency.
+   * @param cache the agent's response cache.
+   */
+  public void addAgentCache(String name, AgentResponseCache cache) {
+    agentCache.put(name, cache);
+  }
+
+  /**
+   * The response caches of the agents that have one.
+   *
+   * @return a {@link java.util.Map} of agent name to cache.
+   */
+  public Map<String, AgentResponseCache> getAgentCache() {
+    return Collections.unmodifiableMap(agentCache);
+  }
+
+  /**
+   * Add an agent's request phase times to the profile.
+   *
+   * @param name the name to show for the agent, the same as its latency.
+   * @param phases the times the agent records its requests in.
+   */
+  public void addAgentPhases(String name, NetworkPhases phases) {
+    agentPhases.put(name, phases);
+  }
+
+  /**
+   * The request phase times of each agent.
+   *
+   * @return a {@link java.util.Map} of agent name to phase times.
+   */
+  public Map<String, NetworkPhases> getAgentPhases() {
+    return Collections.unmodifiableMap(agentPhases);
+  }
+
+  /**
+   * Write the agent latency percentiles as a CSV file, with one row per agent and times in
+   * microseconds. Agents that report their compute time get two more rows, splitting each request
+   * into the agent's compute time and the transport overhead. The cache columns are left empty for
+   * agents without a response cache, and the mean time of each request phase is left empty for
+   * agents that haven't timed any.
+   *
+   * @param statisticsOutputFile the file to write.
+   */
+  public void writeStatistics(File statisticsOutputFile) {
+    try (PrintWriter out = new PrintWriter(new FileWriter(statisticsOutputFile))) {
+      StringBuilder header =
+          new StringBuilder("Agent,Requests,Mean,P50,P90,P99,P99.9,Max,CacheHits,CacheMisses");
+      for (NetworkPhases.Phase phase : NetworkPhases.Phase.values()) {
+        header.append(',').append(phase.getLabel().replace(" ", ""));
+      }
+      out.println(header);
+      agentLatency.forEach(
+          (name, latency) -> {
+            AgentResponseCache cache = agentCache.get(name);
+            NetworkPhases phases = agentPhases.get(name);
+            StringBuilder row = latencyRow(name, latency);
+            row.append(',').append(cache == null ? "" : Long.toString(cache.getHits()));
+            row.append(',').append(cache == null ? "" : Long.toString(cache.getMisses()));
+            for (NetworkPhases.Phase phase : NetworkPhases.Phase.values()) {
+              row.append(',');
+              if (phases != null && phases.getRequests() > 0) {
+                row.append(String.format("%.0f", phases.getMeanMicros(phase)));
+              }
+            }
+            out.println(row);
+            if (phases != null && phases.getCompute().getCount() > 0) {
+              // the agent reported its compute time, so show it apart from the transport
+              out.println(latencyRow(name + " compute", phases.getCompute()));
+              out.println(latencyRow(name + " overhead", phases.getOverhead()));
+            }
+          });
+    } catch (IOException e) {
+      log.warn("Error writing latency stats", e);
+    }
+  }
+
+  /** The name, count and percentile columns for one histogram. */
+  private static StringBuilder latencyRow(String name, LatencyHistogram latency) {
+    return new StringBuilder(
+        String.format(
+            "%s,%d,%.0f,%d,%d,%d,%d,%d",
+            name,
+            latency.getCount(),
+            latency.getMean(),
+            latency.getValueAtPercentile(50.0),
+            latency.getValueAtPercentile(90.0),
+            latency.getValueAtPercentile(99.0),
+            latency.getValueAtPercentile(99.9),
+            latency.getMax()));
+  }
+
   /**
    * getChart.
    *
@@ -0,0 +1,136 @@
+package dev.aisandbox.client.profiler;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size histogram of latencies, used to report percentiles of agent response times.
+ *
+ * <p>Values (in microseconds) are counted in log-linear buckets: exact below 128, then 64 buckets
+ * for each power of two above that. This keeps every recorded value to within 1/64 (about 1.6%) of
+ * its real value over the whole range of a {@code long}, while the histogram takes the same
+ * (roughly 30KB of) memory however many values are recorded. The mean and maximum are kept exactly.
+ *
+ * <p>All methods are synchronised as agents may be called from background threads.
+ */
+public class LatencyHistogram {
+
+  private static final int LINEAR_BUCKETS = 128;
+  private static final int SUB_BUCKETS = 64;
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long totalCount = 0;
+  private long total = 0;
+  private long max = 0;
+
+  /**
+   * Record a single latency.
+   *
+   * @param micros the latency in microseconds, negative values are counted as zero.
+   */
+  public synchronized void recordValue(long micros) {
+    long value = Math.max(0, micros);
+    counts[bucketIndex(value)]++;
+    totalCount++;
+    total += value;
+    max = Math.max(max, value);
+  }
+
+  /**
+   * The number of values recorded.
+   *
+   * @return the count.
+   */
+  public synchronized long getCount() {
+    return totalCount;
+  }
+
+  /**
+   * The largest value recorded.
+   *
+   * @return the maximum in microseconds, zero if nothing has been recorded.
+   */
+  public synchronized long getMax() {
+    return max;
+  }
+
+  /**
+   * The mean of the values recorded.
+   *
+   * @return the mean in microseconds, zero if nothing has been recorded.
+   */
+  public synchronized double getMean() {
+    return totalCount == 0 ? 0.0 : (double) total / totalCount;
+  }
+
+  /**
+   * Find the value below which a percentage of the recorded values fall.
+   *
+   * <p>The result is the top of the matching bucket, so it never understates the latency (other
+   * than being capped at the exact maximum).
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @return the value in microseconds, zero if nothing has been recorded.
+   */
+  public synchronized long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    double clamped = Math.min(100.0, Math.max(0.0, percentile));
+    long target = Math.max(1, (long) Math.ceil(clamped / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.min(max, highestValueInBucket(i));
+      }
+    }
+    return max;
+  }
+
+  /** Remove all the recorded values. */
+  public synchronized void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    total = 0;
+    max = 0;
+  }
+
+  /**
+   * Summarise the histogram for display.
+   *
+   * @return the median, 90th, 99th and 99.9th percentile and maximum, in milliseconds.
+   */
+  public synchronized String getSummary() {
+    return String.format(
+        "p50 %s p90 %s p99 %s p99.9 %s max %s",
+        formatMillis(getValueAtPercentile(50.0)),
+        formatMillis(getValueAtPercentile(90.0)),
+        formatMillis(getValueAtPercentile(99.0)),
+        formatMillis(getValueAtPercentile(99.9)),
+        formatMillis(max));
+  }
+
+  private static String formatMillis(long micros) {
+    return String.format("%.1fms", micros / 1000.0);
+  }
+
+  static int bucketIndex(long value) {
+    if (value < LINEAR_BUCKETS) {
+      return (int) value;
+    }
+    // shift the value until it is between 64 and 127
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long highestValueInBucket(int index) {
+    if (index < LINEAR_BUCKETS) {
+      return index;
+    }
+    int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+    long sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+}
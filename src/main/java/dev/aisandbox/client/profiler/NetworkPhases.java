@@ -0,0 +1,134 @@
+package dev.aisandbox.client.profiler;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * The total time an agent's requests have spent in each phase of a HTTP exchange, so a slow agent
+ * can be told apart from a slow network or slow message conversion.
+ *
+ * <p>If the agent reports how long it spent working out each response, that time is taken out of
+ * the wait for the first byte as its own phase. The reported times are also kept in a {@code
+ * compute} histogram, alongside an {@code overhead} histogram of the rest of each request.
+ *
+ * <p>All methods are synchronised as agents may be called from background threads.
+ */
+public class NetworkPhases {
+
+  /** The parts of a request. */
+  public enum Phase {
+    /** Looking up the host and opening (and securing) a new connection. */
+    CONNECT("Connect"),
+    /** Converting the request into the agent's language (and compressing it). */
+    ENCODE("Encode"),
+    /** Sending the request headers and body. */
+    WRITE("Write"),
+    /**
+     * From the end of the request to the start of the response, mostly the agent thinking unless
+     * the agent reports its compute time.
+     */
+    FIRST_BYTE("First Byte"),
+    /** The time the agent reports spending on the response. */
+    COMPUTE("Agent Compute"),
+    /** Receiving the response headers and body. */
+    READ("Read"),
+    /** Converting the response from the agent's language. */
+    DECODE("Decode");
+
+    @Getter private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+  }
+
+  private final long[] totals = new long[Phase.values().length];
+  private long requests = 0;
+
+  /** The compute times reported by the agent, in microseconds. */
+  @Getter private final LatencyHistogram compute = new LatencyHistogram();
+
+  /** The rest of each request that had a reported compute time, in microseconds. */
+  @Getter private final LatencyHistogram overhead = new LatencyHistogram();
+
+  /**
+   * Add time to a phase.
+   *
+   * @param phase the phase.
+   * @param nanos the time spent in nanoseconds, negative values are ignored.
+   */
+  public synchronized void add(Phase phase, long nanos) {
+    if (nanos > 0) {
+      totals[phase.ordinal()] += nanos;
+    }
+  }
+
+  /**
+   * Record the compute time reported for a request.
+   *
+   * @param computeMicros the time the agent reported, in microseconds.
+   * @param totalMicros the time the whole request took, in microseconds.
+   */
+  public void recordCompute(long computeMicros, long totalMicros) {
+    compute.recordValue(computeMicros);
+    overhead.recordValue(totalMicros - computeMicros);
+  }
+
+  /** Count a finished request, used to work out the averages. */
+  public synchronized void countRequest() {
+    requests++;
+  }
+
+  /**
+   * The number of requests timed.
+   *
+   * @return the count.
+   */
+  public synchronized long getRequests() {
+    return requests;
+  }
+
+  /**
+   * The total time spent in a phase.
+   *
+   * @param phase the phase.
+   * @return the time in nanoseconds.
+   */
+  public synchronized long getTotal(Phase phase) {
+    return totals[phase.ordinal()];
+  }
+
+  /**
+   * The average time each request spent in a phase.
+   *
+   * @param phase the phase.
+   * @return the mean in microseconds, zero if nothing has been timed.
+   */
+  public synchronized double getMeanMicros(Phase phase) {
+    return requests == 0 ? 0.0 : totals[phase.ordinal()] / 1000.0 / requests;
+  }
+
+  /**
+   * A one line summary of the average phase times.
+   *
+   * @return the mean of each phase in milliseconds.
+   */
+  public synchronized String getSummary() {
+    StringBuilder summary = new StringBuilder();
+    for (Phase phase : Phase.values()) {
+      if (summary.length() > 0) {
+        summary.append(' ');
+      }
+      summary.append(String.format("%s=%.2fms", phase.getLabel(), getMeanMicros(phase) / 1000.0));
+    }
+    return summary.toString();
+  }
+
+  /** Clear all of the times. */
+  public synchronized void reset() {
+    Arrays.fill(totals, 0);
+    requests = 0;
+    compute.reset();
+    overhead.reset();
+  }
+}
@@ -25,11 +25,14 @@ public class ProfileStep {
   /**
    * addStep.
    *
+   * <p>Records the time since the last step against {@code name}, adding to any time already
+   * recorded under that name in this step.
+   *
    * @param name a {@link java.lang.String} object.
    */
   public void addStep(String name) {
     long time = System.currentTimeMillis();
-    timings.put(name, time - cursor);
+    timings.merge(name, time - cursor, Long::sum);
     cursor = time;
   }
 }
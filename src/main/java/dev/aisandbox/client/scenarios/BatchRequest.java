@@ -0,0 +1,83 @@
+package dev.aisandbox.client.scenarios;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * BatchRequest class.
+ *
+ * <p>Envelope used to send the requests from several environments to an agent in one call. The
+ * agent should reply with a {@link BatchResponse} holding one response for each request, in the
+ * same order. Environments that don't need a decision this step are left out, so {@code
+ * environments} records which environment each request came from.
+ *
+ * <p>A batch is sent to one replica of the agent, so any sessions its requests belong to (see
+ * {@link SessionRequest}) have to be kept together, {@link #sessionKeys()} lists them.
+ *
+ * <p>A batch is only {@link #stateful()} if one of its requests is.
+ *
+ * <p>Batches are written with Jackson, so they can be sent as JSON, CBOR, Smile or MessagePack but
+ * not XML.
+ *
+ * @param <T> the type of request being batched.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+public class BatchRequest<T extends ServerRequest> implements StatefulRequest {
+
+  private List<Integer> environments = new ArrayList<>();
+
+  private List<T> requests = new ArrayList<>();
+
+  /**
+   * Add a request to the batch.
+   *
+   * @param environment the index of the environment making the request.
+   * @param request the request.
+   */
+  public void add(int environment, T request) {
+    environments.add(environment);
+    requests.add(request);
+  }
+
+  /**
+   * The number of requests in the batch.
+   *
+   * @return the number of requests.
+   */
+  public int size() {
+    return requests.size();
+  }
+
+  /**
+   * The sessions the requests in the batch belong to.
+   *
+   * <p>This isn't a bean property, so it is never sent to the agent.
+   *
+   * @return the session keys in request order, empty if no request is part of a session.
+   */
+  public List<String> sessionKeys() {
+    List<String> keys = new ArrayList<>();
+    for (T request : requests) {
+      if (request instanceof SessionRequest) {
+        String key = ((SessionRequest) request).sessionKey();
+        if (key != null) {
+          keys.add(key);
+        }
+      }
+    }
+    return keys;
+  }
+
+  @Override
+  public boolean stateful() {
+    for (T request : requests) {
+      if (request instanceof StatefulRequest && ((StatefulRequest) request).stateful()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
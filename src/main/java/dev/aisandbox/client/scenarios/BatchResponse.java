@@ -0,0 +1,20 @@
+package dev.aisandbox.client.scenarios;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * BatchResponse class.
+ *
+ * <p>The reply to a {@link BatchRequest}, holding one response for each request in the same order.
+ *
+ * @param <T> the type of response being batched.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+public class BatchResponse<T extends ServerResponse> implements ServerResponse {
+
+  private List<T> responses = new ArrayList<>();
+}
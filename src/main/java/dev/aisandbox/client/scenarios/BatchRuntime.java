@@ -0,0 +1,196 @@
+package dev.aisandbox.client.scenarios;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.agent.AgentResetException;
+import dev.aisandbox.client.profiler.ProfileStep;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * BatchRuntime class.
+ *
+ * <p>Runs several independent copies (environments) of a scenario at once. Each step the requests
+ * from every environment are sent to the agent together as a {@link BatchRequest} and the agent
+ * replies with a {@link BatchResponse}, so there is one HTTP round trip per step however many
+ * environments are running.
+ *
+ * <p>Only the first environment is drawn, statistics are written for each environment with the
+ * environment number added to the file name.
+ *
+ * @param <Q> the request type of the environments.
+ * @param <R> the response type of the environments.
+ */
+@Slf4j
+public class BatchRuntime<Q extends ServerRequest, R extends ServerResponse>
+    implements ScenarioRuntime {
+
+  private final List<BatchableRuntime<Q, R>> environments;
+  private Agent agent = null;
+
+  /**
+   * Create a runtime for a set of environments.
+   *
+   * @param environments the runtimes to run, these must all be for the same scenario.
+   */
+  public BatchRuntime(List<BatchableRuntime<Q, R>> environments) {
+    this.environments = environments;
+  }
+
+  /**
+   * Create a batched runtime with one environment per index.
+   *
+   * @param scenario the scenario to run.
+   * @param size the number of environments.
+   * @return the new runtime, or null if the scenario can't be batched.
+   */
+  public static ScenarioRuntime create(Scenario scenario, int size) {
+    return create(scenario, size, 0);
+  }
+
+  /**
+   * Create a batched runtime with one environment per index, starting from a given index.
+   *
+   * @param scenario the scenario to run.
+   * @param size the number of environments.
+   * @param firstEnvironment the index of the first environment.
+   * @return the new runtime, or null if the scenario can't be batched.
+   */
+  @SuppressWarnings("unchecked")
+  public static ScenarioRuntime create(Scenario scenario, int size, int firstEnvironment) {
+    List<BatchableRuntime<ServerRequest, ServerResponse>> environments = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      ScenarioRuntime runtime = scenario.getRuntime(firstEnvironment + i);
+      if (!(runtime instanceof BatchableRuntime)) {
+        return null;
+      }
+      environments.add((BatchableRuntime<ServerRequest, ServerResponse>) runtime);
+    }
+    return new BatchRuntime<>(environments);
+  }
+
+  /**
+   * Create the runtime for a run, batching the environments if there is more than one and the
+   * scenario supports it, otherwise falling back to a single environment.
+   *
+   * @param scenario the scenario to run.
+   * @param size the number of environments.
+   * @param firstEnvironment the index of the first environment.
+   * @return the new runtime.
+   */
+  public static ScenarioRuntime createRuntime(Scenario scenario, int size, int firstEnvironment) {
+    ScenarioRuntime runtime = null;
+    if (size > 1) {
+      runtime = create(scenario, size, firstEnvironment);
+      if (runtime == null) {
+        log.warn("{} can't run in batches, using a single environment", scenario.getName());
+      }
+    }
+    if (runtime == null) {
+      runtime = scenario.getRuntime(firstEnvironment);
+    }
+    return runtime;
+  }
+
+  @Override
+  public void setAgents(List<Agent> agents) {
+    agent = agents.get(0);
+    for (BatchableRuntime<Q, R> environment : environments) {
+      environment.setAgents(agents);
+    }
+  }
+
+  @Override
+  public void initialise() {
+    log.info("Initialising {} environments", environments.size());
+    for (BatchableRuntime<Q, R> environment : environments) {
+      environment.initialise();
+    }
+  }
+
+  @Override
+  public RuntimeResponse advance() throws AgentException, SimulationException {
+    ProfileStep profileStep = new ProfileStep();
+    prepare();
+    BatchRequest<Q> batch = createBatch();
+    profileStep.addStep("Simulation");
+    // send them together
+    List<R> responses = new ArrayList<>();
+    for (int i = 0; i < environments.size(); i++) {
+      responses.add(null);
+    }
+    if (batch.size() > 0) {
+      List<R> batchResponses;
+      try {
+        batchResponses = agent.postBatch(batch, environments.get(0).getResponseType());
+      } catch (AgentResetException e) {
+        // the agent has lost track of the state, every environment starts afresh
+        for (BatchableRuntime<Q, R> environment : environments) {
+          if (!environment.resetRequest()) {
+            throw e;
+          }
+        }
+        log.info("Agent asked for the state to be resent");
+        prepare();
+        batch = createBatch();
+        batchResponses = agent.postBatch(batch, environments.get(0).getResponseType());
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        responses.set(batch.getEnvironments().get(i), batchResponses.get(i));
+      }
+    }
+    profileStep.addStep("Network");
+    // apply the results, drawing the first environment
+    List<BufferedImage> images = new ArrayList<>();
+    for (int i = 0; i < environments.size(); i++) {
+      RuntimeResponse response =
+          environments.get(i).applyResponse(responses.get(i), profileStep, i == 0);
+      if (i == 0) {
+        images.addAll(response.getImages());
+      }
+    }
+    return new RuntimeResponse(profileStep, images);
+  }
+
+  @Override
+  public void close() {
+    for (BatchableRuntime<Q, R> environment : environments) {
+      environment.close();
+    }
+  }
+
+  private void prepare() throws AgentException {
+    for (BatchableRuntime<Q, R> environment : environments) {
+      environment.prepare();
+    }
+  }
+
+  /** Collect the requests from every environment that needs a response. */
+  private BatchRequest<Q> createBatch() {
+    BatchRequest<Q> batch = new BatchRequest<>();
+    for (int i = 0; i < environments.size(); i++) {
+      Q request = environments.get(i).createRequest();
+      if (request != null) {
+        batch.add(i, request);
+      }
+    }
+    return batch;
+  }
+
+  @Override
+  public void writeStatistics(File statisticsOutputFile) {
+    environments.get(0).writeStatistics(statisticsOutputFile);
+    String name = statisticsOutputFile.getName();
+    int dot = name.lastIndexOf('.');
+    for (int i = 1; i < environments.size(); i++) {
+      String environmentName =
+          dot < 0 ? name + "-" + i : name.substring(0, dot) + "-" + i + name.substring(dot);
+      environments
+          .get(i)
+          .writeStatistics(new File(statisticsOutputFile.getParentFile(), environmentName));
+    }
+  }
+}
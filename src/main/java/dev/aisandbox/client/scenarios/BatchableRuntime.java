@@ -0,0 +1,69 @@
+package dev.aisandbox.client.scenarios;
+
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.profiler.ProfileStep;
+
+/**
+ * A runtime whose step can be split into asking for a decision and acting on it.
+ *
+ * <p>This lets a {@link BatchRuntime} run several copies of the runtime side by side, sending all
+ * of their requests to the agent in a single {@link BatchRequest}.
+ *
+ * @param <Q> the request type sent to the agent.
+ * @param <R> the response type returned by the agent.
+ */
+public interface BatchableRuntime<Q extends ServerRequest, R extends ServerResponse>
+    extends ScenarioRuntime {
+
+  /**
+   * The class of the responses this runtime expects.
+   *
+   * @return the response class.
+   */
+  public Class<R> getResponseType();
+
+  /**
+   * Set up anything the runtime needs from the agent before its requests can be created, such as a
+   * session. This is called at the start of every step, before {@link #createRequest()}, so it is
+   * only sent once the agent is ready (after any warm-up).
+   *
+   * @throws AgentException if the agent can't be used.
+   */
+  public default void prepare() throws AgentException {
+    // nothing to set up by default
+  }
+
+  /**
+   * Create the request for the next step.
+   *
+   * <p>Each call returns a new request, which the runtime doesn't change afterwards. A request can
+   * still be in use after its step is over, by a pipelined or hedged send or by the recorder.
+   *
+   * @return the request, or null if the runtime doesn't need a response this step.
+   */
+  public Q createRequest();
+
+  /**
+   * Complete a step using the agent's response.
+   *
+   * @param response the response to the last request, or null if there wasn't one.
+   * @param profileStep the timings for this step.
+   * @param draw true if the frames for this step should be drawn.
+   * @return any frames drawn along with the timings.
+   * @throws AgentException if the response isn't valid.
+   * @throws SimulationException if the simulation can't continue.
+   */
+  public RuntimeResponse applyResponse(R response, ProfileStep profileStep, boolean draw)
+      throws AgentException, SimulationException;
+
+  /**
+   * Get ready to send the whole state again, after the agent has asked for it by replying with HTTP
+   * 205 (an {@link dev.aisandbox.client.agent.AgentResetException}).
+   *
+   * @return true if the next request from {@link #createRequest()} starts afresh, false if this
+   *     runtime can't resend its state.
+   */
+  public default boolean resetRequest() {
+    return false;
+  }
+}
@@ -1,5 +1,7 @@
 package dev.aisandbox.client.scenarios;
 
+import dev.aisandbox.client.parameters.LongParameter;
+
 /**
  * Interface class for describing and launching a scenario.
  *
@@ -86,10 +88,34 @@ public interface Scenario {
    */
   public ScenarioParameter[] getParameterArray();
 
+  /**
+   * The parameter holding the scenario's random salt, where zero means a random environment.
+   *
+   * <p>The tournament sets this to share one environment between all of its agents.
+   *
+   * @return the salt parameter, or null if the scenario doesn't have one.
+   */
+  public default LongParameter getSaltParameter() {
+    return null;
+  }
+
   /**
    * Get a runtime object that can be called to run the AI.
    *
    * @return a {link dev.aidandbox.client.scenarios.ScenarioRuntime} object.
    */
   public ScenarioRuntime getRuntime();
+
+  /**
+   * Get a runtime for one of several environments run side by side.
+   *
+   * <p>Scenarios with a fixed random salt should give each environment a different (but repeatable)
+   * seed.
+   *
+   * @param environment the index of the environment, starting at zero.
+   * @return a {link dev.aidandbox.client.scenarios.ScenarioRuntime} object.
+   */
+  public default ScenarioRuntime getRuntime(int environment) {
+    return getRuntime();
+  }
 }
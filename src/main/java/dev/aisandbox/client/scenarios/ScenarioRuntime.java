@@ -14,4 +14,40 @@ public interface ScenarioRuntime {
   public RuntimeResponse advance() throws AgentException, SimulationException;
 
   public void writeStatistics(File statisticsOutputFile);
+
+  /**
+   * Allow the runtime to send the request for the next step before it has finished this one.
+   *
+   * <p>A pipelined runtime still returns one step per call to {@link #advance()}, but once the
+   * simulation has been updated it posts the next request with {@link
+   * Agent#postRequestAsync(dev.aisandbox.client.scenarios.ServerRequest, Class)} and then draws the
+   * frame (and the caller writes the output) while the agent is working. The next call to {@code
+   * advance} waits for that response. This means the agent will see one more request than the
+   * number of steps run, the last response is never used.
+   *
+   * <p>Runtimes that can't overlap their work ignore this setting, see {@link
+   * #isPipelineSupported()}.
+   *
+   * @param pipelined true to send requests ahead of time.
+   */
+  default void setPipelined(boolean pipelined) {
+    // not supported by default
+  }
+
+  /**
+   * Does this runtime act on {@link #setPipelined(boolean)}.
+   *
+   * @return true if the runtime can send requests ahead of time.
+   */
+  default boolean isPipelineSupported() {
+    return false;
+  }
+
+  /**
+   * Stop any work the runtime still has in progress, such as a request sent ahead of time when
+   * pipelined. This is called before the agents are closed, the runtime won't be advanced again.
+   */
+  default void close() {
+    // nothing in progress by default
+  }
 }
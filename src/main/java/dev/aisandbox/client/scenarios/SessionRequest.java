@@ -0,0 +1,19 @@
+package dev.aisandbox.client.scenarios;
+
+/**
+ * SessionRequest interface.
+ *
+ * <p>A request about state the agent keeps between requests (a session), which has to reach the
+ * same copy of the agent as the requests before it when the agent has several replicas.
+ */
+public interface SessionRequest extends ServerRequest {
+
+  /**
+   * The session this request belongs to.
+   *
+   * <p>This isn't a bean property, so it is never sent to the agent.
+   *
+   * @return the session key, or null if the request can go to any replica.
+   */
+  String sessionKey();
+}
@@ -0,0 +1,19 @@
+package dev.aisandbox.client.scenarios;
+
+/**
+ * SessionResponse interface.
+ *
+ * <p>A response that starts a session on the agent, later {@link SessionRequest}s with the same key
+ * are sent to the replica that gave this response.
+ */
+public interface SessionResponse extends ServerResponse {
+
+  /**
+   * The session the agent started.
+   *
+   * <p>This isn't a bean property, so it is never read from the agent's reply.
+   *
+   * @return the session key, or null if no session was started.
+   */
+  String sessionKey();
+}
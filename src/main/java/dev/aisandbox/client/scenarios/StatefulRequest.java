@@ -0,0 +1,23 @@
+package dev.aisandbox.client.scenarios;
+
+/**
+ * StatefulRequest interface.
+ *
+ * <p>A request that changes (or relies on) the state the agent keeps, such as starting a session or
+ * sending a Mine Hunter board in delta mode. Sending the same request twice can give a different
+ * answer each time, so these are never answered from a cache.
+ */
+public interface StatefulRequest extends ServerRequest {
+
+  /**
+   * Does this request change or rely on the agent's state, for request types that only do so some
+   * of the time.
+   *
+   * <p>This isn't a bean property, so it is never sent to the agent.
+   *
+   * @return true if the request has to reach the agent.
+   */
+  default boolean stateful() {
+    return true;
+  }
+}
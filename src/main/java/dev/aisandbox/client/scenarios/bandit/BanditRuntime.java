@@ -7,8 +7,8 @@ import dev.aisandbox.client.output.charts.AverageRewardGraph;
 import dev.aisandbox.client.output.charts.BanditGraph;
 import dev.aisandbox.client.output.charts.OptimalActionGraph;
 import dev.aisandbox.client.profiler.ProfileStep;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
 import dev.aisandbox.client.scenarios.RuntimeResponse;
-import dev.aisandbox.client.scenarios.ScenarioRuntime;
 import dev.aisandbox.client.scenarios.SimulationException;
 import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
 import dev.aisandbox.client.scenarios.bandit.api.BanditRequestHistory;
@@ -32,7 +32,7 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RequiredArgsConstructor
-public class BanditRuntime implements ScenarioRuntime {
+public class BanditRuntime implements BatchableRuntime<BanditRequest, BanditResponse> {
 
   private Agent agent;
   private final Random rand;
@@ -81,15 +81,31 @@ public class BanditRuntime implements ScenarioRuntime {
   @Override
   public RuntimeResponse advance() throws AgentException, SimulationException {
     ProfileStep profileStep = new ProfileStep();
+    log.info("Requesting next pull");
+    BanditResponse response = agent.postRequest(createRequest(), BanditResponse.class);
+    profileStep.addStep("Network");
+    return applyResponse(response, profileStep, true);
+  }
+
+  @Override
+  public Class<BanditResponse> getResponseType() {
+    return BanditResponse.class;
+  }
+
+  @Override
+  public BanditRequest createRequest() {
     BanditRequest request = new BanditRequest();
     request.setHistory(history);
     request.setSessionID(currentSession.getSessionID());
     request.setBanditCount(banditCount);
     request.setPullCount(pullCount);
     request.setPull(iteration);
-    log.info("Requesting next pull");
-    BanditResponse response = agent.postRequest(request, BanditResponse.class);
-    profileStep.addStep("Network");
+    return request;
+  }
+
+  @Override
+  public RuntimeResponse applyResponse(
+      BanditResponse response, ProfileStep profileStep, boolean draw) {
     // resolve the response
     // TODO - check if arm exists (array out of bounds?)
     history = new BanditRequestHistory();
@@ -119,7 +135,7 @@ public class BanditRuntime implements ScenarioRuntime {
     profileStep.addStep("Simulation");
     // draw screen
     BufferedImage image = null;
-    if (!skipGraphics || (iteration == 0)) {
+    if (draw && (!skipGraphics || (iteration == 0))) {
       image = OutputTools.getWhiteScreen();
       Graphics2D graphics2D = image.createGraphics();
       // draw logo
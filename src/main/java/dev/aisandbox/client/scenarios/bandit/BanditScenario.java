@@ -92,11 +92,21 @@ public class BanditScenario extends BaseScenario implements Scenario {
     };
   }
 
+  @Override
+  public LongParameter getSaltParameter() {
+    return banditSalt;
+  }
+
   @Override
   public ScenarioRuntime getRuntime() {
+    return getRuntime(0);
+  }
+
+  @Override
+  public ScenarioRuntime getRuntime(int environment) {
     Random random;
     if (banditSalt.getValue() != 0) {
-      random = new Random(banditSalt.getValue());
+      random = new Random(banditSalt.getValue() + environment);
     } else {
       random = new Random();
     }
@@ -0,0 +1,37 @@
+package dev.aisandbox.client.scenarios.bandit;
+
+import dev.aisandbox.client.agent.LocalAgent;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.util.List;
+import java.util.Random;
+
+/** Reference {@link LocalAgent} for the multi-armed bandit, pulling a random arm each step. */
+public class RandomBanditAgent implements LocalAgent {
+
+  private final Random random = new Random();
+
+  @Override
+  public String getName() {
+    return "random-bandit";
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends ServerRequest>> getRequestTypes() {
+    return List.of(BanditRequest.class);
+  }
+
+  @Override
+  public ServerResponse respond(ServerRequest request) {
+    BanditResponse response = new BanditResponse();
+    response.setArm(random.nextInt(((BanditRequest) request).getBanditCount()));
+    return response;
+  }
+}
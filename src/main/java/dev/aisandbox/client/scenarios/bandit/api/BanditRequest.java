@@ -1,7 +1,7 @@
 package dev.aisandbox.client.scenarios.bandit.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.SessionRequest;
 import javax.xml.bind.annotation.XmlRootElement;
 import lombok.Data;
 
@@ -9,10 +9,15 @@ import lombok.Data;
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 @XmlRootElement(name = "BanditRequest")
-public class BanditRequest implements ServerRequest {
+public class BanditRequest implements SessionRequest {
   private BanditRequestHistory history = null;
   private String sessionID;
   private int banditCount;
   private int pullCount;
   private int pull;
+
+  @Override
+  public String sessionKey() {
+    return sessionID;
+  }
 }
@@ -1,6 +1,7 @@
 package dev.aisandbox.client.scenarios.bandit.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import dev.aisandbox.client.scenarios.ServerResponse;
 import javax.xml.bind.annotation.XmlRootElement;
 import lombok.Data;
 
@@ -8,6 +9,6 @@ import lombok.Data;
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 @XmlRootElement(name = "BanditResponse")
-public class BanditResponse {
+public class BanditResponse implements ServerResponse {
   private int arm;
 }
@@ -5,8 +5,8 @@ import dev.aisandbox.client.agent.AgentException;
 import dev.aisandbox.client.output.OutputTools;
 import dev.aisandbox.client.output.charts.ForgetfulLineGraph;
 import dev.aisandbox.client.profiler.ProfileStep;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
 import dev.aisandbox.client.scenarios.RuntimeResponse;
-import dev.aisandbox.client.scenarios.ScenarioRuntime;
 import dev.aisandbox.client.scenarios.SimulationException;
 import dev.aisandbox.client.scenarios.maze.api.History;
 import dev.aisandbox.client.scenarios.maze.api.MazeRequest;
@@ -21,12 +21,13 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import javax.imageio.ImageIO;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class MazeRuntime implements ScenarioRuntime {
+public class MazeRuntime implements BatchableRuntime<MazeRequest, MazeResponse> {
 
   // agents
   private Agent agent = null;
@@ -44,6 +45,8 @@ public class MazeRuntime implements ScenarioRuntime {
   long stepCount = 0;
   long stepToFinish = 0;
   Long fastestSolve = null;
+  @Setter boolean pipelined = false;
+  private CompletableFuture<MazeResponse> pendingResponse = null;
   // UI
   private ForgetfulLineGraph graph;
   private BufferedImage graphCache;
@@ -57,6 +60,11 @@ public class MazeRuntime implements ScenarioRuntime {
     this.mazeRenderer = mazeRenderer;
   }
 
+  @Override
+  public boolean isPipelineSupported() {
+    return true;
+  }
+
   @Override
   public void setAgents(List<Agent> agents) {
     agent = agents.get(0);
@@ -124,21 +132,63 @@ public class MazeRuntime implements ScenarioRuntime {
   public RuntimeResponse advance() throws AgentException, SimulationException {
     // keep timings
     ProfileStep profileStep = new ProfileStep();
-    // work out postRequest
+    // send and get response (unless it was sent at the end of the last step)
+    MazeResponse response;
+    if (pendingResponse != null) {
+      response = agent.awaitResponse(pendingResponse);
+      pendingResponse = null;
+    } else {
+      response = agent.postRequest(createRequest(), MazeResponse.class);
+    }
+    log.info("Recieved response from server - {}", response);
+    profileStep.addStep("Network");
+    moveAgent(response);
+    profileStep.addStep("Simulation");
+    // ask for the next move while this one is drawn
+    if (pipelined) {
+      pendingResponse = agent.postRequestAsync(createRequest(), MazeResponse.class);
+    }
+    return new RuntimeResponse(profileStep, drawMaze());
+  }
+
+  /** Give up on the request sent ahead of time, its answer will never be used. */
+  @Override
+  public void close() {
+    if (pendingResponse != null) {
+      if (!pendingResponse.isDone()) {
+        pendingResponse.cancel(true);
+        agent.abort();
+      }
+      pendingResponse = null;
+    }
+  }
+
+  @Override
+  public Class<MazeResponse> getResponseType() {
+    return MazeResponse.class;
+  }
+
+  @Override
+  public MazeRequest createRequest() {
     MazeRequest request = new MazeRequest();
     // populate the config
     request.setConfig(maze.getConfig());
-    if (lastMove != null) {
-      request.setHistory(lastMove);
-    }
+    request.setHistory(lastMove);
     request.setCurrentPosition(currentCell.getPosition());
-    // send and get response
+    return request;
+  }
 
+  @Override
+  public RuntimeResponse applyResponse(
+      MazeResponse response, ProfileStep profileStep, boolean draw) {
+    moveAgent(response);
+    profileStep.addStep("Simulation");
+    return new RuntimeResponse(profileStep, draw ? drawMaze() : null);
+  }
+
+  private void moveAgent(MazeResponse response) {
     stepCount++;
     stepToFinish++;
-    MazeResponse response = agent.postRequest(request, MazeResponse.class);
-    log.info("Recieved response from server - {}", response);
-    profileStep.addStep("Network");
     lastMove = new History();
     lastMove.setLastPosition(currentCell.getPosition());
     lastMove.setAction(response.getMove());
@@ -165,8 +215,9 @@ public class MazeRuntime implements ScenarioRuntime {
     }
     log.info("Moved to {}", currentCell);
     lastMove.setNewPosition(currentCell.getPosition());
-    profileStep.addStep("Simulation");
-    // redraw the map
+  }
+
+  private BufferedImage drawMaze() {
     BufferedImage image = OutputTools.getWhiteScreen();
     Graphics2D g = image.createGraphics();
     g.setFont(myFont);
@@ -188,7 +239,7 @@ public class MazeRuntime implements ScenarioRuntime {
     g.drawString("Fastest Solve: " + (fastestSolve == null ? "NA" : fastestSolve), 1200, 500 + 60);
     // graph
     g.drawImage(graphCache, 1200, 200, null);
-    return new RuntimeResponse(profileStep, image);
+    return image;
   }
 
   @Override
@@ -65,11 +65,21 @@ public class MazeScenario extends BaseScenario implements Scenario {
     return new ScenarioParameter[] {scenarioSalt, mazeType, mazeSize};
   }
 
+  @Override
+  public LongParameter getSaltParameter() {
+    return scenarioSalt;
+  }
+
   @Override
   public ScenarioRuntime getRuntime() {
+    return getRuntime(0);
+  }
+
+  @Override
+  public ScenarioRuntime getRuntime(int environment) {
     MazeRuntime runtime = new MazeRuntime(mazeRenderer);
     if (scenarioSalt.getValue() != 0) {
-      runtime.setRandom(new Random(scenarioSalt.getValue()));
+      runtime.setRandom(new Random(scenarioSalt.getValue() + environment));
     }
     runtime.setMazeSize(mazeSize.getValue());
     runtime.setMazeType(mazeType.getValue());
@@ -0,0 +1,38 @@
+package dev.aisandbox.client.scenarios.maze;
+
+import dev.aisandbox.client.agent.LocalAgent;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import dev.aisandbox.client.scenarios.maze.api.MazeRequest;
+import dev.aisandbox.client.scenarios.maze.api.MazeResponse;
+import java.util.List;
+import java.util.Random;
+
+/** Reference {@link LocalAgent} for the maze, picking a random direction each step. */
+public class RandomMazeAgent implements LocalAgent {
+
+  private final Random random = new Random();
+
+  @Override
+  public String getName() {
+    return "random-maze";
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends ServerRequest>> getRequestTypes() {
+    return List.of(MazeRequest.class);
+  }
+
+  @Override
+  public ServerResponse respond(ServerRequest request) {
+    String[] moves = ((MazeRequest) request).getConfig().getValidMoves();
+    MazeResponse response = new MazeResponse();
+    response.setMove(moves[random.nextInt(moves.length)]);
+    return response;
+  }
+}
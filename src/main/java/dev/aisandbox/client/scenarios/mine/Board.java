@@ -1,6 +1,7 @@
 package dev.aisandbox.client.scenarios.mine;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -26,6 +27,9 @@ public class Board {
 
   @Getter private int unfoundMines = 0;
 
+  // cells whose player view has changed, indexed by x + y * width
+  private final BitSet changedCells = new BitSet();
+
   /**
    * Constructor based on a predefined width and height.
    *
@@ -101,6 +105,24 @@ public class Board {
     return result;
   }
 
+  /**
+   * Get the cells that have changed since the last call, and start recording again.
+   *
+   * @return the locations of the changed cells, in row order.
+   */
+  public List<CellLocation> takeChangedCells() {
+    List<CellLocation> result = new ArrayList<>(changedCells.cardinality());
+    for (int i = changedCells.nextSetBit(0); i >= 0; i = changedCells.nextSetBit(i + 1)) {
+      result.add(new CellLocation(i % width, i / width));
+    }
+    changedCells.clear();
+    return result;
+  }
+
+  private void markChanged(int x, int y) {
+    changedCells.set(x + y * width);
+  }
+
   /**
    * look at the cell @ x,y and return 1 if it is mined. If it doesn't have a mine or is lies
    * outside the grid, return 0.
@@ -176,11 +198,13 @@ public class Board {
     } else if (c.isMine()) {
       LOG.info("Correctly found a mine");
       c.setFlagged(true);
+      markChanged(x, y);
       unfoundMines--;
       change = true;
     } else {
       LOG.info("Incorrectly marked a mine");
       c.setFlagged(true);
+      markChanged(x, y);
       state = GameState.LOST;
       change = true;
     }
@@ -210,6 +234,7 @@ public class Board {
       LOG.warn("trying to uncover an used cell - ignoring");
     } else {
       c.setCovered(false);
+      markChanged(x, y);
       change = true;
       if (c.isMine()) {
         LOG.info("Bad move");
@@ -233,6 +258,7 @@ public class Board {
       visited.add(currentCellLocation);
       // uncover it
       currentCell.setCovered(false);
+      markChanged(currentCellLocation.getX(), currentCellLocation.getY());
       // look at neighbours
       if (currentCell.getNeighbours() == 0) {
         // place neighbours on the stack
@@ -2,12 +2,14 @@ package dev.aisandbox.client.scenarios.mine;
 
 import dev.aisandbox.client.agent.Agent;
 import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.agent.AgentResetException;
 import dev.aisandbox.client.output.OutputTools;
 import dev.aisandbox.client.output.charts.SuccessRateGraph;
 import dev.aisandbox.client.profiler.ProfileStep;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
 import dev.aisandbox.client.scenarios.RuntimeResponse;
-import dev.aisandbox.client.scenarios.ScenarioRuntime;
 import dev.aisandbox.client.scenarios.SimulationException;
+import dev.aisandbox.client.scenarios.mine.api.CellChange;
 import dev.aisandbox.client.scenarios.mine.api.LastMove;
 import dev.aisandbox.client.scenarios.mine.api.MineHunterRequest;
 import dev.aisandbox.client.scenarios.mine.api.MineHunterResponse;
@@ -29,7 +31,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class MineHunterRuntime implements ScenarioRuntime {
+public class MineHunterRuntime implements BatchableRuntime<MineHunterRequest, MineHunterResponse> {
 
   // agents
   private Agent agent = null;
@@ -51,6 +53,11 @@ public class MineHunterRuntime implements ScenarioRuntime {
   Font myFont = new Font("Sans-Serif", Font.PLAIN, 28);
   // API elements
   LastMove last = null;
+  /** Send the board once per boardID and then only the cells that change. */
+  @Setter private boolean deltaMode = false;
+
+  private String snapshotBoardID = null;
+  private long sequence = 0;
 
   public MineHunterRuntime(SpriteLoader spriteLoader) {
     this.spriteLoader = spriteLoader;
@@ -131,15 +138,80 @@ public class MineHunterRuntime implements ScenarioRuntime {
   @Override
   public RuntimeResponse advance() throws AgentException, SimulationException {
     ProfileStep profileStep = new ProfileStep();
-    List<BufferedImage> frames = new ArrayList<>();
     // send a request
+    MineHunterResponse response;
+    try {
+      response = agent.postRequest(createRequest(), MineHunterResponse.class);
+    } catch (AgentResetException e) {
+      if (!resetRequest()) {
+        throw e;
+      }
+      log.info("Agent asked for the board to be resent");
+      response = agent.postRequest(createRequest(), MineHunterResponse.class);
+    }
+    profileStep.addStep("Network");
+    return applyResponse(response, profileStep, true);
+  }
+
+  @Override
+  public Class<MineHunterResponse> getResponseType() {
+    return MineHunterResponse.class;
+  }
+
+  @Override
+  public MineHunterRequest createRequest() {
     MineHunterRequest request = new MineHunterRequest();
     request.setLastMove(last);
     request.setBoardID(board.getBoardID());
     request.setFlagsRemaining(board.getUnfoundMines());
-    request.setBoard(board.getBoardToString());
-    MineHunterResponse response = agent.postRequest(request, MineHunterResponse.class);
-    profileStep.addStep("Network");
+    if (!deltaMode) {
+      request.setBoard(board.getBoardToString());
+    } else if (!board.getBoardID().equals(snapshotBoardID)) {
+      // first request for this board, the snapshot covers any changes so far
+      snapshotBoardID = board.getBoardID();
+      sequence = 0;
+      board.takeChangedCells();
+      request.setBoard(board.getBoardToString());
+      request.setSequence(sequence);
+    } else {
+      sequence++;
+      request.setChanges(getChanges());
+      request.setSequence(sequence);
+    }
+    return request;
+  }
+
+  /**
+   * In delta mode the agent can lose track of the changes, so the next request sends the whole
+   * board again.
+   */
+  @Override
+  public boolean resetRequest() {
+    if (!deltaMode) {
+      return false;
+    }
+    snapshotBoardID = null;
+    return true;
+  }
+
+  private CellChange[] getChanges() {
+    List<CellLocation> changed = board.takeChangedCells();
+    CellChange[] changes = new CellChange[changed.size()];
+    for (int i = 0; i < changes.length; i++) {
+      CellLocation location = changed.get(i);
+      changes[i] =
+          new CellChange(
+              location.getX(),
+              location.getY(),
+              String.valueOf(board.getCell(location.getX(), location.getY()).getPlayerView()));
+    }
+    return changes;
+  }
+
+  @Override
+  public RuntimeResponse applyResponse(
+      MineHunterResponse response, ProfileStep profileStep, boolean draw) {
+    List<BufferedImage> frames = new ArrayList<>();
     for (Move move : response.getMoves()) {
       boolean change =
           move.isFlag()
@@ -147,7 +219,7 @@ public class MineHunterRuntime implements ScenarioRuntime {
               : board.uncover(move.getX(), move.getY());
       profileStep.addStep("Simulation");
       // if something has changed, redraw the screen
-      if (change) {
+      if (change && draw) {
         frames.add(createLevelImage());
       }
       profileStep.addStep("Graphics");
@@ -1,5 +1,6 @@
 package dev.aisandbox.client.scenarios.mine;
 
+import dev.aisandbox.client.parameters.BooleanParameter;
 import dev.aisandbox.client.parameters.EnumerationParameter;
 import dev.aisandbox.client.parameters.LongParameter;
 import dev.aisandbox.client.scenarios.BaseScenario;
@@ -54,18 +55,37 @@ public class MineHunterScenario extends BaseScenario implements Scenario {
       new EnumerationParameter<>(
           "mine.size", MineSize.SMALL, "Board size", "Select the size of the boards to generate");
 
+  @Getter
+  private BooleanParameter mineHunterDelta =
+      new BooleanParameter(
+          "mine.delta",
+          false,
+          "Send changes only",
+          "If true the board is sent once per game, then only the cells that have changed");
+
   @Override
   public ScenarioParameter[] getParameterArray() {
-    return new ScenarioParameter[] {scenarioSalt, mineHunterBoardSize};
+    return new ScenarioParameter[] {scenarioSalt, mineHunterBoardSize, mineHunterDelta};
+  }
+
+  @Override
+  public LongParameter getSaltParameter() {
+    return scenarioSalt;
   }
 
   @Override
   public ScenarioRuntime getRuntime() {
+    return getRuntime(0);
+  }
+
+  @Override
+  public ScenarioRuntime getRuntime(int environment) {
     MineHunterRuntime runtime = new MineHunterRuntime(spriteLoader);
     if (scenarioSalt.getValue() != 0) {
-      runtime.setRandom(new Random(scenarioSalt.getValue()));
+      runtime.setRandom(new Random(scenarioSalt.getValue() + environment));
     }
     runtime.setBoardSize(mineHunterBoardSize.getValue());
+    runtime.setDeltaMode(mineHunterDelta.getValue());
     return runtime;
   }
 }
@@ -0,0 +1,99 @@
+package dev.aisandbox.client.scenarios.mine;
+
+import dev.aisandbox.client.agent.AgentResetException;
+import dev.aisandbox.client.agent.LocalAgent;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import dev.aisandbox.client.scenarios.mine.api.CellChange;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterRequest;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterResponse;
+import dev.aisandbox.client.scenarios.mine.api.Move;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reference {@link LocalAgent} for mine hunter, uncovering a random covered cell each step.
+ *
+ * <p>Works with both full boards and delta mode, though it doesn't check the sequence numbers. The
+ * boards are kept by boardID, so several environments (or clients) can share the agent, and a
+ * change to a board it doesn't know asks for the board to be resent.
+ */
+public class RandomMineAgent implements LocalAgent {
+
+  /** Boards remembered before the oldest are forgotten. */
+  private static final int MAX_BOARDS = 1000;
+
+  private final Random random = new Random();
+
+  // each board as last seen, kept up to date from the changes in delta mode
+  private final Map<String, char[][]> boards =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, char[][]> eldest) {
+              return size() > MAX_BOARDS;
+            }
+          });
+
+  @Override
+  public String getName() {
+    return "random-mine";
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends ServerRequest>> getRequestTypes() {
+    return List.of(MineHunterRequest.class);
+  }
+
+  @Override
+  public ServerResponse respond(ServerRequest request) throws AgentResetException {
+    MineHunterRequest mineRequest = (MineHunterRequest) request;
+    char[][] board;
+    if (mineRequest.getBoard() != null) {
+      String[] rows = mineRequest.getBoard();
+      board = new char[rows.length][];
+      for (int y = 0; y < rows.length; y++) {
+        board[y] = rows[y].toCharArray();
+      }
+      boards.put(mineRequest.getBoardID(), board);
+    } else {
+      board = boards.get(mineRequest.getBoardID());
+      if (board == null) {
+        throw new AgentResetException(getName(), "Unknown board " + mineRequest.getBoardID());
+      }
+      if (mineRequest.getChanges() != null) {
+        for (CellChange change : mineRequest.getChanges()) {
+          board[change.getY()][change.getX()] = change.getValue().charAt(0);
+        }
+      }
+    }
+    // find the covered cells
+    List<Move> covered = new ArrayList<>();
+    for (int y = 0; y < board.length; y++) {
+      for (int x = 0; x < board[y].length; x++) {
+        if (board[y][x] == '#') {
+          Move move = new Move();
+          move.setX(x);
+          move.setY(y);
+          covered.add(move);
+        }
+      }
+    }
+    MineHunterResponse response = new MineHunterResponse();
+    if (covered.isEmpty()) {
+      response.setMoves(new Move[0]);
+    } else {
+      response.setMoves(new Move[] {covered.get(random.nextInt(covered.size()))});
+    }
+    return response;
+  }
+}
@@ -0,0 +1,20 @@
+package dev.aisandbox.client.scenarios.mine.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CellChange class.
+ *
+ * <p>A single cell that has changed since the last request, sent instead of the whole board when
+ * the scenario is in delta mode. The value uses the same characters as a board row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CellChange {
+  private int x;
+  private int y;
+  private String value;
+}
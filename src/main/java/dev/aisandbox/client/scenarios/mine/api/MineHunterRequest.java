@@ -1,22 +1,59 @@
 package dev.aisandbox.client.scenarios.mine.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import dev.aisandbox.client.scenarios.ServerRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.aisandbox.client.scenarios.SessionRequest;
+import dev.aisandbox.client.scenarios.StatefulRequest;
 import javax.xml.bind.annotation.XmlRootElement;
 import lombok.Data;
 
 /**
  * MineHunterRequest class.
  *
+ * <p>Normally every request holds the whole {@code board}. In delta mode the board is only sent for
+ * the first request about each {@code boardID} (with {@code sequence} zero), after that {@code
+ * changes} lists the cells that have changed and {@code sequence} goes up by one each request, so
+ * an agent that sees a gap can ask for the board again by replying with HTTP 205 (Reset Content).
+ *
  * @author gde
  * @version $Id: $Id
  */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 @XmlRootElement(name = "MineRequest")
-public class MineHunterRequest implements ServerRequest {
+public class MineHunterRequest implements SessionRequest, StatefulRequest {
   private LastMove lastMove;
   private String boardID;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   private String[] board;
+
   private int flagsRemaining;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long sequence;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private CellChange[] changes;
+
+  /**
+   * In delta mode the agent keeps each board, so requests about it go to the same replica.
+   *
+   * @return the board ID in delta mode, otherwise null.
+   */
+  @Override
+  public String sessionKey() {
+    return sequence == null ? null : boardID;
+  }
+
+  /**
+   * In delta mode the agent builds up each board from the changes, so a request has to reach the
+   * agent even if the same request has been answered before.
+   *
+   * @return true in delta mode.
+   */
+  @Override
+  public boolean stateful() {
+    return sequence != null;
+  }
 }
@@ -0,0 +1,77 @@
+package dev.aisandbox.client.scenarios.twisty;
+
+import dev.aisandbox.client.agent.AgentResetException;
+import dev.aisandbox.client.agent.LocalAgent;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Reference {@link LocalAgent} for twisty puzzles, making a random move each step.
+ *
+ * <p>The moves from each session start are kept by session ID, so several environments (or clients)
+ * can share the agent, and a request for a session it doesn't know asks for the puzzle to be reset.
+ */
+public class RandomTwistyAgent implements LocalAgent {
+
+  /** Sessions remembered before the oldest are forgotten. */
+  private static final int MAX_SESSIONS = 1000;
+
+  private final Random random = new Random();
+
+  // the moves sent at the start of each session, by session ID
+  private final Map<String, List<String>> sessions =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+              return size() > MAX_SESSIONS;
+            }
+          });
+
+  @Override
+  public String getName() {
+    return "random-twisty";
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends ServerRequest>> getRequestTypes() {
+    return List.of(TwistySessionRequest.class, TwistyRequest.class);
+  }
+
+  @Override
+  public ServerResponse respond(ServerRequest request) throws AgentResetException {
+    if (request instanceof TwistySessionRequest) {
+      TwistySessionResponse session = new TwistySessionResponse();
+      session.setSessionID(UUID.randomUUID().toString());
+      sessions.put(session.getSessionID(), ((TwistySessionRequest) request).getMoves());
+      return session;
+    }
+    TwistyRequest twistyRequest = (TwistyRequest) request;
+    List<String> moves = twistyRequest.getMoves();
+    // decoded requests have an empty move list rather than none
+    if (moves == null || moves.isEmpty()) {
+      moves = sessions.get(twistyRequest.getSessionID());
+      if (moves == null) {
+        throw new AgentResetException(getName(), "Unknown session " + twistyRequest.getSessionID());
+      }
+    }
+    TwistyResponse response = new TwistyResponse();
+    response.setMove(moves.get(random.nextInt(moves.size())));
+    return response;
+  }
+}
@@ -27,6 +27,7 @@ public class TPPuzzle implements TwistyPuzzle {
   private String currentState;
   private final Map<Character, Set<Integer>> faces;
   private final String name;
+  private final List<String> moveList;
 
   public TPPuzzle(String tpResourceName, String name) {
     log.info("Creating TP Puzzle based on {}", tpResourceName);
@@ -39,6 +40,8 @@ public class TPPuzzle implements TwistyPuzzle {
         puzzle.getCells().size(),
         puzzle.getMoves().size(),
         puzzle.getCompiledMoves().keySet());
+    // the moves never change, so build the list once
+    moveList = List.copyOf(puzzle.getCompiledMoves().keySet());
     // compile moves
     // work out initial state
     StringBuilder stringBuilder = new StringBuilder();
@@ -94,7 +97,7 @@ public class TPPuzzle implements TwistyPuzzle {
 
   @Override
   public List<String> getMoveList() {
-    return List.copyOf(puzzle.getCompiledMoves().keySet());
+    return moveList;
   }
 
   @Override
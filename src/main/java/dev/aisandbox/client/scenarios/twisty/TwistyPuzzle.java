@@ -46,6 +46,8 @@ public interface TwistyPuzzle {
   /**
    * getMoveList.
    *
+   * <p>The list can't be changed and is the same object on every call.
+   *
    * @return a {@link java.util.List} object.
    */
   public List<String> getMoveList();
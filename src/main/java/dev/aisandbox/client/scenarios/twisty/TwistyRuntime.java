@@ -3,16 +3,19 @@ package dev.aisandbox.client.scenarios.twisty;
 import dev.aisandbox.client.agent.Agent;
 import dev.aisandbox.client.agent.AgentException;
 import dev.aisandbox.client.agent.AgentParserException;
+import dev.aisandbox.client.agent.AgentRequestException;
 import dev.aisandbox.client.agent.AgentResetException;
 import dev.aisandbox.client.output.charts.BaseAWTGraph;
 import dev.aisandbox.client.output.charts.FrequencyMassDistributionGraph;
 import dev.aisandbox.client.profiler.ProfileStep;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
 import dev.aisandbox.client.scenarios.RuntimeResponse;
-import dev.aisandbox.client.scenarios.ScenarioRuntime;
 import dev.aisandbox.client.scenarios.SimulationException;
 import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
 import dev.aisandbox.client.scenarios.twisty.api.TwistyRequestHistory;
 import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
 import dev.aisandbox.client.scenarios.twisty.tpmodel.Move;
 import java.awt.Color;
 import java.awt.Font;
@@ -30,12 +33,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import javax.imageio.ImageIO;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class TwistyRuntime implements ScenarioRuntime {
+public class TwistyRuntime implements BatchableRuntime<TwistyRequest, TwistyResponse> {
 
   // agents
   private Agent agent = null;
@@ -48,6 +52,15 @@ public class TwistyRuntime implements ScenarioRuntime {
   List<String> actions = new ArrayList<>();
   int moves;
   TwistyRequestHistory history = null;
+  @Setter boolean pipelined = false;
+  /** Send the puzzle type and moves once, in a session start message, rather than every step. */
+  @Setter boolean session = false;
+
+  private String sessionID = null;
+  /** A session should be started before the next request is created. */
+  private boolean sessionPending = false;
+
+  private CompletableFuture<TwistyResponse> pendingResponse = null;
   // UI elements
   private BufferedImage logo;
   private List<String> moveHistory = new ArrayList<>();
@@ -79,6 +92,11 @@ public class TwistyRuntime implements ScenarioRuntime {
     frequencyGraph.setGraphHeight(350);
   }
 
+  @Override
+  public boolean isPipelineSupported() {
+    return true;
+  }
+
   @Override
   public void setAgents(List<Agent> agents) {
     agent = agents.get(0);
@@ -94,6 +112,38 @@ public class TwistyRuntime implements ScenarioRuntime {
     }
     savedState = puzzle.getState();
     moves = 0;
+    // started with the first step, so the agent has had a chance to warm up
+    sessionID = null;
+    sessionPending = session;
+  }
+
+  /**
+   * Start a session if one is needed. An agent that rejects the session start, or answers it
+   * without a session ID, doesn't support sessions and is sent the full puzzle each step instead.
+   * Any other error (such as the agent not being reachable, or refusing the credentials) is passed
+   * on.
+   */
+  @Override
+  public void prepare() throws AgentException {
+    if (!sessionPending) {
+      return;
+    }
+    TwistySessionRequest start = new TwistySessionRequest();
+    start.setPuzzleType(puzzle.getPuzzleName());
+    start.setMoves(puzzle.getMoveList());
+    try {
+      TwistySessionResponse response = agent.postRequest(start, TwistySessionResponse.class);
+      sessionID = response == null ? null : response.getSessionID();
+    } catch (AgentRequestException | AgentParserException e) {
+      log.warn("Agent can't start a session", e);
+      sessionID = null;
+    }
+    sessionPending = false;
+    if (sessionID == null) {
+      log.warn("Agent didn't start a session, sending the full puzzle each step");
+    } else {
+      log.info("Started session {}", sessionID);
+    }
   }
 
   @Override
@@ -107,29 +157,118 @@ public class TwistyRuntime implements ScenarioRuntime {
     }
     if (actions.isEmpty()) {
       try {
-        // get next set of actions
-        TwistyRequest request = new TwistyRequest();
-        request.setPuzzleType(puzzle.getPuzzleName());
-        request.setMoves(puzzle.getMoveList());
-        request.setState(puzzle.getState());
-        request.setHistory(history);
-        log.info("Requesting new actions from state {}", puzzle.getState());
-        TwistyResponse response = agent.postRequest(request, TwistyResponse.class);
-        actions.addAll(Arrays.asList(response.getMove().trim().split(" ")));
-        log.info("Action list now '{}'", actions);
+        // get next set of actions (unless they were requested at the end of the last step)
+        TwistyResponse response;
+        prepare();
+        if (pendingResponse != null) {
+          CompletableFuture<TwistyResponse> pending = pendingResponse;
+          pendingResponse = null;
+          response = agent.awaitResponse(pending);
+        } else {
+          log.info("Requesting new actions from state {}", puzzle.getState());
+          response = agent.postRequest(createRequest(), TwistyResponse.class);
+        }
+        addActions(response);
         profileStep.addStep("Network");
       } catch (AgentResetException r) {
         log.info("Received reset puzzle from user");
         profileStep.addStep("Network");
-        // clear history
-        moves = 0;
-        moveHistory.clear();
-        // reset puzzle
-        puzzle.resetPuzzle(savedState);
-        // reset moves
+        resetRequest();
         profileStep.addStep("Puzzle Setup");
       }
     }
+    frames.addAll(performAction(profileStep, true));
+    return new RuntimeResponse(profileStep, frames);
+  }
+
+  /** Give up on the request sent ahead of time, its answer will never be used. */
+  @Override
+  public void close() {
+    if (pendingResponse != null) {
+      if (!pendingResponse.isDone()) {
+        pendingResponse.cancel(true);
+        agent.abort();
+      }
+      pendingResponse = null;
+    }
+  }
+
+  @Override
+  public Class<TwistyResponse> getResponseType() {
+    return TwistyResponse.class;
+  }
+
+  /**
+   * Create a request for more actions.
+   *
+   * @return the request, or null if there are still actions to perform.
+   */
+  @Override
+  public TwistyRequest createRequest() {
+    if (!actions.isEmpty()) {
+      return null;
+    }
+    TwistyRequest request = new TwistyRequest();
+    if (sessionID == null) {
+      request.setPuzzleType(puzzle.getPuzzleName());
+      request.setMoves(puzzle.getMoveList());
+    } else {
+      request.setSessionID(sessionID);
+      request.setPuzzleType(null);
+      request.setMoves(null);
+    }
+    request.setState(puzzle.getState());
+    request.setHistory(history);
+    return request;
+  }
+
+  /**
+   * The agent has asked to start the current puzzle again from its scrambled state. In session mode
+   * the agent may have lost the session as well, so a new one is started before the next request.
+   */
+  @Override
+  public boolean resetRequest() {
+    if (sessionID != null) {
+      sessionID = null;
+      sessionPending = true;
+    }
+    // clear history
+    moves = 0;
+    moveHistory.clear();
+    // any moves still queued were planned for the old state
+    actions.clear();
+    // reset puzzle
+    puzzle.resetPuzzle(savedState);
+    return true;
+  }
+
+  @Override
+  public RuntimeResponse applyResponse(
+      TwistyResponse response, ProfileStep profileStep, boolean draw) throws AgentException {
+    List<BufferedImage> frames = new ArrayList<>();
+    if (firstFrame) {
+      if (draw) {
+        frames.add(renderPuzzle());
+      }
+      profileStep.addStep("Graphics");
+      firstFrame = false;
+    }
+    if (response != null) {
+      addActions(response);
+    }
+    frames.addAll(performAction(profileStep, draw));
+    return new RuntimeResponse(profileStep, frames);
+  }
+
+  private void addActions(TwistyResponse response) {
+    actions.addAll(Arrays.asList(response.getMove().trim().split(" ")));
+    log.info("Action list now '{}'", actions);
+  }
+
+  /** Apply the next action, resetting the puzzle if it's solved. */
+  private List<BufferedImage> performAction(ProfileStep profileStep, boolean draw)
+      throws AgentException {
+    List<BufferedImage> frames = new ArrayList<>();
     // perform actions
     if (!actions.isEmpty()) {
       String action = actions.remove(0);
@@ -158,7 +297,9 @@ public class TwistyRuntime implements ScenarioRuntime {
       frequencyGraph.addValue(moves);
       frequencyGraphImage = frequencyGraph.getImage();
       // draw the solved image
-      frames.add(renderPuzzle());
+      if (draw) {
+        frames.add(renderPuzzle());
+      }
       profileStep.addStep("Graphics");
       // reset the puzzle
       log.info("Puzzle solved, resetting");
@@ -169,15 +310,21 @@ public class TwistyRuntime implements ScenarioRuntime {
       scramblePuzzle();
       // this is the new saved puzzle
       savedState = puzzle.getState();
+      requestAhead();
       // draw new state
-      frames.add(renderPuzzle());
+      if (draw) {
+        frames.add(renderPuzzle());
+      }
       profileStep.addStep("Puzzle Setup");
     } else {
+      requestAhead();
       // draw the puzzle as normal
-      frames.add(renderPuzzle());
+      if (draw) {
+        frames.add(renderPuzzle());
+      }
       profileStep.addStep("Graphics");
     }
-    return new RuntimeResponse(profileStep, frames);
+    return frames;
   }
 
   @Override
@@ -203,6 +350,14 @@ public class TwistyRuntime implements ScenarioRuntime {
     }
   }
 
+  /** If pipelining, ask for the next set of actions while the current frame is drawn. */
+  private void requestAhead() {
+    if (pipelined && actions.isEmpty()) {
+      log.info("Requesting new actions from state {}", puzzle.getState());
+      pendingResponse = agent.postRequestAsync(createRequest(), TwistyResponse.class);
+    }
+  }
+
   private void scramblePuzzle() {
     for (int i = 0; i < SCRAMBLE_MOVES; i++) {
       try {
@@ -65,20 +65,38 @@ public class TwistyScenario extends BaseScenario implements Scenario {
           "Start Solved",
           "If true the puzzle will start in its solved state");
 
+  private BooleanParameter twistySession =
+      new BooleanParameter(
+          "twisty.session",
+          false,
+          "Start a session",
+          "If true the puzzle type and moves are sent once at the start, not with every step");
+
   @Override
   public ScenarioParameter[] getParameterArray() {
-    return new ScenarioParameter[] {scenarioSalt, twistyType, twistyStartSolved};
+    return new ScenarioParameter[] {scenarioSalt, twistyType, twistyStartSolved, twistySession};
+  }
+
+  @Override
+  public LongParameter getSaltParameter() {
+    return scenarioSalt;
   }
 
   @Override
   public ScenarioRuntime getRuntime() {
+    return getRuntime(0);
+  }
+
+  @Override
+  public ScenarioRuntime getRuntime(int environment) {
     TwistyRuntime runtime = new TwistyRuntime();
     runtime.setPuzzle(
         new TPPuzzle(twistyType.getValue().getResource(), twistyType.getValue().getID()));
     if (scenarioSalt.getValue() != 0) {
-      runtime.setRandom(new Random(scenarioSalt.getValue()));
+      runtime.setRandom(new Random(scenarioSalt.getValue() + environment));
     }
     runtime.setStartSolved(twistyStartSolved.getValue());
+    runtime.setSession(twistySession.getValue());
     return runtime;
   }
 }
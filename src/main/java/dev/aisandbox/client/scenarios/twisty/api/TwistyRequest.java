@@ -1,7 +1,8 @@
 package dev.aisandbox.client.scenarios.twisty.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import dev.aisandbox.client.scenarios.ServerRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.aisandbox.client.scenarios.SessionRequest;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -10,15 +11,31 @@ import lombok.Data;
 /**
  * Request object for Twisty API.
  *
+ * <p>When a session has been started with a {@link TwistySessionRequest}, the {@code sessionID} is
+ * sent instead of the puzzle type and move list.
+ *
  * @author gde
  * @version $Id: $Id
  */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 @XmlRootElement(name = "TwistyRequest")
-public class TwistyRequest implements ServerRequest {
+public class TwistyRequest implements SessionRequest {
   private TwistyRequestHistory history = null;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String sessionID = null;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   private String puzzleType = null;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   private List<String> moves = new ArrayList<>();
+
   private String state = null;
+
+  @Override
+  public String sessionKey() {
+    return sessionID;
+  }
 }
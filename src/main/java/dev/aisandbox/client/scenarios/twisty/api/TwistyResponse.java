@@ -1,6 +1,7 @@
 package dev.aisandbox.client.scenarios.twisty.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import dev.aisandbox.client.scenarios.ServerResponse;
 import javax.xml.bind.annotation.XmlRootElement;
 import lombok.Data;
 
@@ -13,6 +14,6 @@ import lombok.Data;
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 @XmlRootElement(name = "TwistyResponse")
-public class TwistyResponse {
+public class TwistyResponse implements ServerResponse {
   private String move;
 }
@@ -0,0 +1,22 @@
+package dev.aisandbox.client.scenarios.twisty.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import dev.aisandbox.client.scenarios.StatefulRequest;
+import java.util.List;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.Data;
+
+/**
+ * Session start message for the Twisty API.
+ *
+ * <p>Sent once at the start of a run when sessions are turned on, with the details of the puzzle
+ * that don't change between steps. The agent replies with a {@link TwistySessionResponse} holding a
+ * new session, so the request is never cached.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@XmlRootElement(name = "TwistySessionRequest")
+public class TwistySessionRequest implements StatefulRequest {
+  private String puzzleType = null;
+  private List<String> moves = null;
+}
@@ -0,0 +1,24 @@
+package dev.aisandbox.client.scenarios.twisty.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import dev.aisandbox.client.scenarios.SessionResponse;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.Data;
+
+/**
+ * Reply to a {@link TwistySessionRequest}, giving the token to send with each step.
+ *
+ * <p>An agent that doesn't support sessions won't send a {@code sessionID}, in which case each step
+ * carries the puzzle type and move list as before.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@XmlRootElement(name = "TwistySessionResponse")
+public class TwistySessionResponse implements SessionResponse {
+  private String sessionID = null;
+
+  @Override
+  public String sessionKey() {
+    return sessionID;
+  }
+}
@@ -0,0 +1,70 @@
+package dev.aisandbox.launcher;
+
+import dev.aisandbox.client.agent.LocalAgentServer;
+import dev.aisandbox.client.cli.CLIParser;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import org.apache.commons.cli.CommandLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AISandboxAgentServer class.
+ *
+ * <p>Serves one of the built in agents over HTTP on localhost until the JVM is stopped, so the
+ * client can be load tested against an agent that answers straight away.
+ */
+public class AISandboxAgentServer {
+  private static final Logger LOG = LoggerFactory.getLogger(AISandboxAgentServer.class);
+
+  private static final int DEFAULT_PORT = 8080;
+
+  /** Private constructor to stop the class being instantiated. */
+  private AISandboxAgentServer() {}
+
+  /**
+   * Run the agent server named in the "-agentserver" option.
+   *
+   * @param cmd the parsed command line.
+   */
+  public static void run(CommandLine cmd) {
+    int port = DEFAULT_PORT;
+    if (cmd.hasOption(CLIParser.OPTION_PORT)) {
+      try {
+        port = Integer.parseInt(cmd.getOptionValue(CLIParser.OPTION_PORT));
+      } catch (NumberFormatException e) {
+        LOG.error("Invalid port '{}'", cmd.getOptionValue(CLIParser.OPTION_PORT));
+        return;
+      }
+    }
+    // must be set before the JDK's HTTP server classes are loaded, see LocalAgentServer
+    if (System.getProperty(LocalAgentServer.NODELAY_PROPERTY) == null) {
+      System.setProperty(LocalAgentServer.NODELAY_PROPERTY, "true");
+    }
+    LocalAgentServer server;
+    try {
+      server =
+          new LocalAgentServer(
+              cmd.getOptionValue(CLIParser.OPTION_AGENT_SERVER),
+              port,
+              Runtime.getRuntime().availableProcessors());
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.error("Can't start agent server - {}", e.getMessage());
+      return;
+    }
+    LOG.info("Agent server running at {}, press Ctrl-C to stop", server.getUrl());
+    CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  server.close();
+                  stopped.countDown();
+                }));
+    try {
+      stopped.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,13 +1,33 @@
 package dev.aisandbox.launcher;
 
+import dev.aisandbox.client.ApplicationModel;
+import dev.aisandbox.client.LoggingSimulationListener;
+import dev.aisandbox.client.SimulationRunThread;
+import dev.aisandbox.client.TournamentResult;
+import dev.aisandbox.client.TournamentRunner;
+import dev.aisandbox.client.cli.CLIParser;
+import dev.aisandbox.client.cli.PropertiesParser;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import org.apache.commons.cli.CommandLine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 /**
  * AISandboxCLI class.
  *
+ * <p>Runs a simulation without the JavaFX user interface. The scenario, agents and outputs are all
+ * read from the properties file passed with the "-config" option, and the simulation is advanced
+ * until the configured step limit is reached (or forever if there is no limit).
+ *
+ * <p>With {@code tournament=true} each agent instead runs its own copy of the scenario, in
+ * parallel, using a {@link TournamentRunner}.
+ *
  * @author gde
  * @version $Id: $Id
  */
@@ -15,9 +35,139 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class AISandboxCLI implements CommandLineRunner {
   private static final Logger LOG = LoggerFactory.getLogger(AISandboxCLI.class);
 
+  /** How long (in milliseconds) a shutdown waits for a tournament to write its results. */
+  private static final long TOURNAMENT_STOP_TIMEOUT = 30000;
+
+  private final ApplicationModel model;
+  private final PropertiesParser parser;
+
+  @Autowired
+  public AISandboxCLI(ApplicationModel model, PropertiesParser parser) {
+    this.model = model;
+    this.parser = parser;
+  }
+
   /** {@inheritDoc} */
   @Override
   public void run(String... args) throws Exception {
     LOG.info("Launching in spring context - CLI");
+    CommandLine cmd = CLIParser.parseOptions(args);
+    // check for debug
+    if (cmd.hasOption(CLIParser.OPTION_DEBUG)) {
+      CLIParser.enableDegug();
+    }
+    // check for lilith
+    if (cmd.hasOption(CLIParser.OPTION_LILITH)) {
+      CLIParser.enableLilith();
+    }
+    // a headless run is only possible with a config file
+    if (!cmd.hasOption(CLIParser.OPTION_CONFIG)) {
+      LOG.warn("No configuration file supplied, nothing to run");
+      return;
+    }
+    parser.parseConfiguration(model, cmd.getOptionValue(CLIParser.OPTION_CONFIG));
+    if (model.getScenario() == null) {
+      LOG.error("No scenario selected in the configuration file");
+      return;
+    }
+    if (model.isTournament()) {
+      if (model.getAgentList().isEmpty()) {
+        LOG.error("A tournament needs at least one agent");
+        return;
+      }
+      runTournament();
+      return;
+    }
+    if (!model.getValid().get()) {
+      LOG.error(
+          "Scenario {} needs between {} and {} agents, {} configured",
+          model.getScenario().getName(),
+          model.getMinAgents().get(),
+          model.getMaxAgents().get(),
+          model.getAgentList().size());
+      return;
+    }
+    runSimulation();
+  }
+
+  private void runTournament() throws InterruptedException {
+    long steps = model.getLimitRuntime().get() ? model.getMaxStepCount().get() : -1;
+    TournamentRunner runner =
+        new TournamentRunner(model.getScenario(), model.getAgentList(), steps);
+    runner.setBatchSize(model.getBatchSize());
+    runner.setPipelined(model.isPipelined());
+    runner.setWarmupSteps(model.getWarmupSteps());
+    runner.setWarmupTimeout(model.getWarmupTimeout());
+    File reportDirectory =
+        new File(
+            model.getOutputDirectory(),
+            "tournament-" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()));
+    if (reportDirectory.mkdirs()) {
+      runner.setOutputDirectory(reportDirectory);
+    } else {
+      LOG.warn("Can't create {}, no report will be written", reportDirectory);
+    }
+    LOG.info(
+        "Running a tournament of {} agents on {} for {} steps",
+        model.getAgentList().size(),
+        model.getScenario().getName(),
+        steps < 0 ? "unlimited" : Long.toString(steps));
+    // stop the agents cleanly if the JVM is interrupted, waiting for the results to be written
+    Thread shutdownHook = new Thread(() -> runner.stop(TOURNAMENT_STOP_TIMEOUT));
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    List<TournamentResult> results = runner.run();
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // the JVM is already shutting down
+    }
+    for (TournamentResult result : results) {
+      LOG.info(
+          "Agent {} ({}) {} steps in {}ms, latency {}{}",
+          result.getAgentNumber(),
+          result.getTarget(),
+          result.getStepsTaken(),
+          result.getRunTime(),
+          result.getLatency().getSummary(),
+          result.isCompleted() ? "" : " - stopped: " + result.getError());
+    }
+  }
+
+  private void runSimulation() throws InterruptedException {
+    model.addSimulationListener(new LoggingSimulationListener());
+    model.initialiseRuntime();
+    long steps = model.getLimitRuntime().get() ? model.getMaxStepCount().get() : -1;
+    LOG.info(
+        "Running {} for {} steps",
+        model.getScenario().getName(),
+        steps < 0 ? "unlimited" : Long.toString(steps));
+    SimulationRunThread thread = new SimulationRunThread(model, steps);
+    // stop cleanly (closing any output) if the JVM is interrupted
+    Thread shutdownHook =
+        new Thread(
+            () -> {
+              thread.setStopped(true);
+              try {
+                thread.join();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              model.resetRuntime();
+            });
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    long startTime = System.currentTimeMillis();
+    thread.start();
+    thread.join();
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // the JVM is already shutting down and the hook will close the output
+      return;
+    }
+    model.resetRuntime();
+    LOG.info(
+        "Simulation finished after {} steps in {}ms",
+        model.getStepsTaken(),
+        System.currentTimeMillis() - startTime);
   }
 }
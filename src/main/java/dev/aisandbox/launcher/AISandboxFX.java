@@ -9,6 +9,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
+import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.cli.CommandLine;
@@ -45,6 +46,9 @@ public class AISandboxFX extends Application {
   @Override
   public void init() throws Exception {
     log.info("Initialising application - FX");
+    // make sure the fonts are loaded.
+    Font.loadFont(AISandboxFX.class.getResourceAsStream("/fonts/Hack-Regular.ttf"), 12.0);
+    Font.loadFont(AISandboxFX.class.getResourceAsStream("/fonts/OpenSans-Regular.ttf"), 12.0);
     SpringApplicationBuilder builder = new SpringApplicationBuilder(AISandboxFX.class);
     builder.headless(false);
     context = builder.run(getParameters().getRaw().toArray(new String[0]));
@@ -11,7 +11,8 @@ import org.springframework.boot.SpringApplication;
  * Launcher class for AI Sandbox.
  *
  * <p>This will test for the "-headless" option and either call the CLI application launcher of the
- * FX version.
+ * FX version. The "-agentserver" option runs a built in agent over HTTP instead, see {@link
+ * AISandboxAgentServer}.
  *
  * @author gde
  * @version $Id: $Id
@@ -29,7 +30,9 @@ public class AISandboxLauncher {
     // read command line arguments
     CommandLine cmd = CLIParser.parseOptions(args);
     // check for headless and launch the correct application (passing the args)
-    if (cmd.hasOption(CLIParser.OPTION_HEADLESS)) {
+    if (cmd.hasOption(CLIParser.OPTION_AGENT_SERVER)) {
+      AISandboxAgentServer.run(cmd);
+    } else if (cmd.hasOption(CLIParser.OPTION_HEADLESS)) {
       SpringApplication.run(AISandboxCLI.class, args);
     } else {
       Application.launch(AISandboxFX.class, args);
@@ -0,0 +1,45 @@
+package dev.aisandbox.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentConnectionException;
+import dev.aisandbox.client.agent.AgentTransport;
+import dev.aisandbox.client.scenarios.BatchRuntime;
+import dev.aisandbox.client.scenarios.ScenarioRuntime;
+import dev.aisandbox.client.scenarios.bandit.BanditScenario;
+import java.util.Collections;
+import org.junit.Test;
+
+public class AgentWarmupTest {
+
+  @Test
+  public void testReadinessTimeout() throws Exception {
+    Agent agent = new Agent();
+    // nothing listens on port 1, so every probe is refused
+    agent.setTarget("http://localhost:1/ai");
+    agent.setupAgent();
+    long start = System.currentTimeMillis();
+    try {
+      AgentWarmup.warmUp(new BanditScenario(), 1, Collections.singletonList(agent), 5, 1200);
+      throw new AssertionError("Expected the agent not to be ready");
+    } catch (AgentConnectionException e) {
+      long waited = System.currentTimeMillis() - start;
+      assertTrue("Agent wasn't probed again", waited >= 500);
+      assertTrue("Readiness timeout ignored", waited < 5000);
+    }
+  }
+
+  @Test
+  public void testBatchedWarmup() throws Exception {
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-bandit");
+    agent.setupAgent();
+    ScenarioRuntime runtime = AgentWarmup.createRuntime(new BanditScenario(), 3);
+    assertTrue("Warm up not batched", runtime instanceof BatchRuntime);
+    AgentWarmup.warmUp(runtime, Collections.singletonList(agent), 4, 1000);
+    assertEquals("Latency not cleared", 0, agent.getLatency().getCount());
+  }
+}
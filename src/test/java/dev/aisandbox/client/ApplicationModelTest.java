@@ -6,7 +6,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 
 import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentTransport;
 import dev.aisandbox.client.scenarios.Scenario;
+import dev.aisandbox.client.scenarios.bandit.BanditScenario;
 import dev.aisandbox.client.scenarios.twisty.TwistyScenario;
 import org.junit.Test;
 
@@ -64,4 +66,22 @@ public class ApplicationModelTest {
     assertEquals("Wrong Max Agents", 1, model.getMaxAgents().get());
     assertSame("Unexpected scenario", s, model.getScenario());
   }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    ApplicationModel model = new ApplicationModel();
+    model.setScenario(new BanditScenario());
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-bandit");
+    model.getAgentList().add(agent);
+    model.setWarmupSteps(10);
+    model.initialiseRuntime();
+    model.warmUp();
+    assertEquals("Warm up steps were measured", 0, agent.getLatency().getCount());
+    assertEquals("Warm up steps were counted", 0, model.getStepsTaken());
+    model.advanceRuntime();
+    assertEquals("Step not measured", 1, agent.getLatency().getCount());
+    model.resetRuntime();
+  }
 }
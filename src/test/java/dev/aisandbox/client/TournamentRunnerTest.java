@@ -0,0 +1,139 @@
+package dev.aisandbox.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentTransport;
+import dev.aisandbox.client.parameters.LongParameter;
+import dev.aisandbox.client.scenarios.ScenarioRuntime;
+import dev.aisandbox.client.scenarios.bandit.BanditScenario;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TournamentRunnerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static Agent localAgent(String name) {
+    Agent a = new Agent();
+    a.setTransport(AgentTransport.LOCAL);
+    a.setTarget(name);
+    return a;
+  }
+
+  @Test
+  public void testAgentsRunIndependently() throws Exception {
+    BanditScenario scenario = new BanditScenario();
+    List<Agent> agents =
+        Arrays.asList(
+            localAgent("random-bandit"), localAgent("random-bandit"), localAgent("no-such-agent"));
+    TournamentRunner runner = new TournamentRunner(scenario, agents, 20);
+    runner.setOutputDirectory(folder.getRoot());
+    List<TournamentResult> results = runner.run();
+    assertEquals("Wrong number of results", 3, results.size());
+    for (int i = 0; i < 2; i++) {
+      assertTrue("Agent didn't finish", results.get(i).isCompleted());
+      assertEquals("Wrong agent order", i + 1, results.get(i).getAgentNumber());
+      assertEquals("Wrong step count", 20, results.get(i).getStepsTaken());
+      assertEquals("Latency not recorded", 20, results.get(i).getLatency().getCount());
+    }
+    // one broken agent doesn't stop the others
+    assertFalse("Broken agent finished", results.get(2).isCompleted());
+    assertEquals("Broken agent took steps", 0, results.get(2).getStepsTaken());
+    // a report row per agent, plus the header
+    List<String> report = Files.readAllLines(new File(folder.getRoot(), "tournament.csv").toPath());
+    assertEquals("Wrong report size", 4, report.size());
+  }
+
+  @Test
+  public void testFailedWarmupOnlyStopsOneAgent() throws Exception {
+    BanditScenario scenario = new BanditScenario();
+    List<Agent> agents = Arrays.asList(localAgent("no-such-agent"), localAgent("random-bandit"));
+    TournamentRunner runner = new TournamentRunner(scenario, agents, 10);
+    runner.setWarmupSteps(2);
+    runner.setWarmupTimeout(0);
+    runner.setOutputDirectory(folder.getRoot());
+    List<TournamentResult> results = runner.run();
+    assertFalse("Broken agent finished", results.get(0).isCompleted());
+    assertTrue("Agent didn't finish", results.get(1).isCompleted());
+    // the broken agent's runtime never started, so has no statistics
+    assertFalse("Statistics written", new File(folder.getRoot(), "agent-1.csv").exists());
+    assertTrue("Statistics missing", new File(folder.getRoot(), "agent-2.csv").exists());
+  }
+
+  @Test
+  public void testBatchedAgents() throws Exception {
+    BanditScenario scenario = new BanditScenario();
+    TournamentRunner runner =
+        new TournamentRunner(scenario, Arrays.asList(localAgent("random-bandit")), 5);
+    runner.setBatchSize(3);
+    runner.setOutputDirectory(folder.getRoot());
+    List<TournamentResult> results = runner.run();
+    assertTrue("Agent didn't finish", results.get(0).isCompleted());
+    // one request per step, whatever the batch size
+    assertEquals("Not batched", 5, results.get(0).getLatency().getCount());
+    assertTrue("No batch statistics", new File(folder.getRoot(), "agent-1-2.csv").exists());
+  }
+
+  @Test
+  public void testSharedSalt() throws Exception {
+    // remember the salt each runtime is created with
+    Set<Long> seen = new HashSet<>();
+    BanditScenario scenario =
+        new BanditScenario() {
+          @Override
+          public ScenarioRuntime getRuntime(int environment) {
+            seen.add(getSaltParameter().getValue());
+            return super.getRuntime(environment);
+          }
+        };
+    List<Agent> agents = Arrays.asList(localAgent("random-bandit"), localAgent("random-bandit"));
+    new TournamentRunner(scenario, agents, 1).run();
+    assertEquals("Salt not shared", 1, seen.size());
+    assertNotEquals("Salt not set", 0L, (long) seen.iterator().next());
+    assertEquals("Salt not restored", 0, scenario.getSaltParameter().getValue());
+  }
+
+  @Test
+  public void testSaltKeyNotUsed() throws Exception {
+    // the salt is found through the scenario, whatever it is called
+    LongParameter seed = new LongParameter("bandit.seed", 0, "Seed", "Zero for a random test.");
+    Set<Long> seen = new HashSet<>();
+    BanditScenario scenario =
+        new BanditScenario() {
+          @Override
+          public LongParameter getSaltParameter() {
+            return seed;
+          }
+
+          @Override
+          public ScenarioRuntime getRuntime(int environment) {
+            seen.add(seed.getValue());
+            return super.getRuntime(environment);
+          }
+        };
+    List<Agent> agents = Arrays.asList(localAgent("random-bandit"), localAgent("random-bandit"));
+    new TournamentRunner(scenario, agents, 1).run();
+    assertEquals("Salt not shared", 1, seen.size());
+    assertNotEquals("Salt not set", 0L, (long) seen.iterator().next());
+    assertEquals("Salt not restored", 0, seed.getValue());
+  }
+
+  @Test
+  public void testUserSaltKept() throws Exception {
+    BanditScenario scenario = new BanditScenario();
+    scenario.getSaltParameter().setParsableValue("42");
+    new TournamentRunner(scenario, Arrays.asList(localAgent("random-bandit")), 1).run();
+    assertEquals("Salt changed", 42, scenario.getSaltParameter().getValue());
+  }
+}
@@ -0,0 +1,91 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import dev.aisandbox.client.scenarios.TestRequest;
+import dev.aisandbox.client.scenarios.TestResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class AgentCompressionTest {
+
+  private static final String LONG_NAME = "Betty ".repeat(500);
+
+  private static TestRequest request(String name) {
+    TestRequest req = new TestRequest();
+    req.setName(name);
+    return req;
+  }
+
+  private static String unpack(InputStream in) throws IOException {
+    try (in) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void testGzipRequest() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/big");
+    a.setCompression(AgentCompression.GZIP);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/big"))
+        .andExpect(header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(
+            request -> {
+              byte[] body = ((MockClientHttpRequest) request).getBodyAsBytes();
+              String json = unpack(new GZIPInputStream(new ByteArrayInputStream(body)));
+              assertEquals("Wrong body", "{\"name\":\"" + LONG_NAME + "\"}", json);
+              assertEquals("Wrong length", body.length, request.getHeaders().getContentLength());
+            })
+        .andRespond(withSuccess("{\"number\":3}", MediaType.APPLICATION_JSON));
+    TestResponse r = a.postRequest(request(LONG_NAME), TestResponse.class);
+    server.verify();
+    assertEquals("Answer=3", 3, r.getNumber());
+  }
+
+  @Test
+  public void testDeflateRequest() throws Exception {
+    byte[] body = LONG_NAME.getBytes(StandardCharsets.UTF_8);
+    byte[] packed = AgentCompression.DEFLATE.compress(body);
+    assertEquals(
+        "Deflate round trip failed",
+        LONG_NAME,
+        unpack(new InflaterInputStream(new ByteArrayInputStream(packed))));
+  }
+
+  @Test
+  public void testSmallRequestUncompressed() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/small");
+    a.setCompression(AgentCompression.GZIP);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/small"))
+        .andExpect(
+            request ->
+                assertFalse(
+                    "Small request compressed",
+                    request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)))
+        .andRespond(withSuccess("{\"number\":4}", MediaType.APPLICATION_JSON));
+    TestResponse r = a.postRequest(request("Betty"), TestResponse.class);
+    server.verify();
+    assertEquals("Answer=4", 4, r.getNumber());
+  }
+}
@@ -0,0 +1,180 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.aisandbox.client.scenarios.TestRequest;
+import dev.aisandbox.client.scenarios.TestResponse;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+
+public class AgentDeadlineTest {
+
+  /** Reply after a pause, like a busy agent. */
+  private static ResponseCreator slowly(long millis, String body) {
+    return request -> {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return withSuccess(body, MediaType.APPLICATION_JSON).createResponse(request);
+    };
+  }
+
+  private static TestRequest request() {
+    TestRequest req = new TestRequest();
+    req.setName("Betty");
+    return req;
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/slow");
+    a.setDeadline(200);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server.expect(requestTo("http://localhost/slow")).andRespond(slowly(2000, "{\"number\":1}"));
+    long start = System.currentTimeMillis();
+    try {
+      a.postRequest(request(), TestResponse.class);
+      throw new AssertionError("Expected a timeout");
+    } catch (AgentTimeoutException e) {
+      assertTrue("Deadline not enforced", System.currentTimeMillis() - start < 1500);
+    }
+  }
+
+  @Test
+  public void testRetry() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/flaky");
+    a.setRetries(1);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/flaky"))
+        .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+    server
+        .expect(requestTo("http://localhost/flaky"))
+        .andRespond(withSuccess("{\"number\":5}", MediaType.APPLICATION_JSON));
+    TestResponse r = a.postRequest(request(), TestResponse.class);
+    server.verify();
+    assertEquals("Answer=5", 5, r.getNumber());
+  }
+
+  @Test(expected = AgentConnectionException.class)
+  public void testNoRetry() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/flaky");
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/flaky"))
+        .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+    a.postRequest(request(), TestResponse.class);
+  }
+
+  @Test(expected = AgentRequestException.class)
+  public void testBadRequestNotRetried() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/strict");
+    a.setRetries(2);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    // a second request would fail the expectations
+    server
+        .expect(requestTo("http://localhost/strict"))
+        .andRespond(withStatus(HttpStatus.UNPROCESSABLE_ENTITY));
+    a.postRequest(request(), TestResponse.class);
+  }
+
+  @Test
+  public void testHedge() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/primary");
+    a.setHedgeTarget("http://localhost/replica");
+    a.setHedgePercentile(90.0);
+    a.setDeadline(5000);
+    a.setupAgent();
+    // the agent normally answers in about a millisecond
+    for (int i = 0; i < 50; i++) {
+      a.getLatency().recordValue(1000);
+    }
+    MockRestServiceServer server =
+        MockRestServiceServer.bindTo(a.getRestTemplate()).ignoreExpectOrder(true).build();
+    server.expect(requestTo("http://localhost/primary")).andRespond(slowly(3000, "{\"number\":1}"));
+    server
+        .expect(requestTo("http://localhost/replica"))
+        .andRespond(withSuccess("{\"number\":7}", MediaType.APPLICATION_JSON));
+    long start = System.currentTimeMillis();
+    TestResponse r = a.postRequest(request(), TestResponse.class);
+    assertEquals("Hedged answer not used", 7, r.getNumber());
+    assertTrue("Hedge not sent early", System.currentTimeMillis() - start < 2000);
+  }
+
+  @Test
+  public void testHedgeLoserCancelled() throws Exception {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    ExecutorService executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext(
+        "/",
+        exchange -> {
+          if (exchange.getRequestURI().getPath().startsWith("/primary")) {
+            try {
+              Thread.sleep(3000);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          byte[] body = "{\"number\":7}".getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+    try {
+      String url = "http://localhost:" + server.getAddress().getPort();
+      Agent a = new Agent();
+      a.setTarget(url + "/primary");
+      a.setHedgeTarget(url + "/replica");
+      a.setHedgePercentile(90.0);
+      a.setDeadline(5000);
+      a.setupAgent();
+      for (int i = 0; i < 50; i++) {
+        a.getLatency().recordValue(1000);
+      }
+      assertEquals(
+          "Hedged answer not used", 7, a.postRequest(request(), TestResponse.class).getNumber());
+      // the slow request to the primary is cancelled rather than left running
+      long until = System.currentTimeMillis() + 1000;
+      while (a.getHttpClient().dispatcher().runningCallsCount() > 0
+          && System.currentTimeMillis() < until) {
+        Thread.sleep(10);
+      }
+      assertEquals(
+          "Losing request still running", 0, a.getHttpClient().dispatcher().runningCallsCount());
+      a.close();
+    } finally {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+}
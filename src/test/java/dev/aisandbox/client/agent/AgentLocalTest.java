@@ -0,0 +1,64 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import dev.aisandbox.client.scenarios.maze.api.MazeResponse;
+import java.util.List;
+import org.junit.Test;
+
+public class AgentLocalTest {
+
+  @Test
+  public void testValidTarget() {
+    Agent a = new Agent();
+    a.setTransport(AgentTransport.LOCAL);
+    a.setTarget("Random-Bandit");
+    assertTrue("Local agent not found", a.getValidProperty().get());
+    a.setTarget("no-such-agent");
+    assertFalse("Unknown local agent accepted", a.getValidProperty().get());
+  }
+
+  @Test
+  public void testLocalRequest() throws AgentException {
+    Agent a = AgentMockTool.createAgent(AgentTransport.LOCAL, "random-bandit");
+    BanditRequest req = new BanditRequest();
+    req.setBanditCount(5);
+    for (int i = 0; i < 100; i++) {
+      BanditResponse r = a.postRequest(req, BanditResponse.class);
+      assertTrue("Arm out of range", r.getArm() >= 0 && r.getArm() < 5);
+    }
+  }
+
+  @Test
+  public void testLocalBatch() throws AgentException {
+    Agent a = AgentMockTool.createAgent(AgentTransport.LOCAL, "random-bandit");
+    BatchRequest<BanditRequest> batch = new BatchRequest<>();
+    for (int i = 0; i < 3; i++) {
+      BanditRequest req = new BanditRequest();
+      req.setBanditCount(i + 1);
+      batch.add(i, req);
+    }
+    List<BanditResponse> responses = a.postBatch(batch, BanditResponse.class);
+    assertEquals("Wrong number of responses", 3, responses.size());
+    assertEquals("Only one arm to choose", 0, responses.get(0).getArm());
+  }
+
+  @Test(expected = AgentParserException.class)
+  public void testWrongResponseType() throws AgentException {
+    Agent a = AgentMockTool.createAgent(AgentTransport.LOCAL, "random-bandit");
+    BanditRequest req = new BanditRequest();
+    req.setBanditCount(5);
+    a.postRequest(req, MazeResponse.class);
+  }
+
+  @Test(expected = AgentFileNotFoundException.class)
+  public void testUnknownAgent() throws AgentException {
+    Agent a = AgentMockTool.createAgent(AgentTransport.LOCAL, "no-such-agent");
+    a.postRequest(new BanditRequest(), BanditResponse.class);
+  }
+}
@@ -1,6 +1,7 @@
 package dev.aisandbox.client.agent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
@@ -45,7 +46,59 @@ public class AgentLoggerTest {
     assertEquals("Answer=4", 4, r.getNumber());
     // check the correct response was recieved
     AgentResponseLogger l = a.getResponseLogger();
-    assertEquals("Status code", 200, l.lastHTTPCode);
-    assertEquals("Message contents", JSON_TEXT, l.lastResponse.replaceAll("\\s", ""));
+    assertEquals("Status code", 200, l.getLastHTTPCode());
+    assertEquals("Message contents", JSON_TEXT, l.getLastResponse().replaceAll("\\s", ""));
+  }
+
+  @Test
+  public void testErrorResponse() throws AgentException {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postJSON");
+    a.setEnableXML(false);
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postJSON"))
+        .andExpect(method(HttpMethod.POST))
+        .andRespond(withSuccess("{\"number\":\"four\"}", MediaType.APPLICATION_JSON));
+    // run request
+    TestRequest req = new TestRequest();
+    req.setName("Betty");
+    try {
+      a.postRequest(req, TestResponse.class);
+      fail("Parser exception not thrown");
+    } catch (AgentParserException e) {
+      assertEquals("Status code", 200, e.getResponseCode());
+      assertEquals("Message contents", "{\"number\":\"four\"}", e.getResponse());
+    }
+    server.verify();
+  }
+
+  @Test
+  public void testLargeResponse() throws AgentException {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postJSON");
+    a.setEnableXML(false);
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    String padding = "x".repeat(AgentResponseLogger.MAX_CAPTURE);
+    server
+        .expect(requestTo("http://localhost/postJSON"))
+        .andExpect(method(HttpMethod.POST))
+        .andRespond(
+            withSuccess(
+                "{\"name\":\"" + padding + "\",\"number\":\"4\"}", MediaType.APPLICATION_JSON));
+    // run request
+    TestRequest req = new TestRequest();
+    req.setName("Betty");
+    TestResponse r = a.postRequest(req, TestResponse.class);
+    server.verify();
+    assertEquals("Answer=4", 4, r.getNumber());
+    assertEquals(
+        "Capture not bounded",
+        AgentResponseLogger.MAX_CAPTURE,
+        a.getResponseLogger().getLastResponse().length());
   }
 }
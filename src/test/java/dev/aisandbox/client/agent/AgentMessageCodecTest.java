@@ -0,0 +1,156 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.BatchResponse;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequestHistory;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import dev.aisandbox.client.scenarios.maze.api.History;
+import dev.aisandbox.client.scenarios.maze.api.MazeRequest;
+import dev.aisandbox.client.scenarios.maze.api.MazeResponse;
+import dev.aisandbox.client.scenarios.maze.api.Position;
+import dev.aisandbox.client.scenarios.mine.api.CellChange;
+import dev.aisandbox.client.scenarios.mine.api.LastMove;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterRequest;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterResponse;
+import dev.aisandbox.client.scenarios.mine.api.Move;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequestHistory;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+
+public class AgentMessageCodecTest {
+
+  private static final List<AgentLanguage> BINARY_LANGUAGES =
+      List.of(AgentLanguage.CBOR, AgentLanguage.SMILE, AgentLanguage.MSGPACK);
+
+  /** Check a message comes back unchanged from every binary language. */
+  private static void assertRoundTrip(Object message, Type type) throws Exception {
+    for (AgentLanguage language : BINARY_LANGUAGES) {
+      AgentMessageCodec codec = new AgentMessageCodec(language);
+      Object decoded = codec.decode(codec.encode(message), type);
+      assertEquals(
+          message.getClass().getSimpleName() + " changed by " + language, message, decoded);
+    }
+  }
+
+  private static BanditRequest banditRequest() {
+    BanditRequest request = new BanditRequest();
+    request.setSessionID("bandit-1");
+    request.setBanditCount(10);
+    request.setPullCount(1000);
+    request.setPull(7);
+    BanditRequestHistory history = new BanditRequestHistory();
+    history.setSessionID("bandit-1");
+    history.setChosenBandit(3);
+    history.setReward(-0.25);
+    request.setHistory(history);
+    return request;
+  }
+
+  @Test
+  public void banditTest() throws Exception {
+    assertRoundTrip(banditRequest(), BanditRequest.class);
+    BanditResponse response = new BanditResponse();
+    response.setArm(4);
+    assertRoundTrip(response, BanditResponse.class);
+  }
+
+  @Test
+  public void mazeTest() throws Exception {
+    MazeRequest request = new MazeRequest();
+    request.getConfig().setBoardID("maze-1");
+    request.getConfig().setWidth(20);
+    request.getConfig().setHeight(15);
+    History history = new History();
+    history.setLastPosition(new Position(1, 2));
+    history.setAction("North");
+    history.setReward(-1.0);
+    history.setNewPosition(new Position(1, 1));
+    request.setHistory(history);
+    request.setCurrentPosition(new Position(1, 1));
+    assertRoundTrip(request, MazeRequest.class);
+    MazeResponse response = new MazeResponse();
+    response.setMove("East");
+    assertRoundTrip(response, MazeResponse.class);
+  }
+
+  @Test
+  public void mineTest() throws Exception {
+    MineHunterRequest request = new MineHunterRequest();
+    LastMove lastMove = new LastMove();
+    lastMove.setBoardID("board-1");
+    lastMove.setResult("CONTINUE");
+    request.setLastMove(lastMove);
+    request.setBoardID("board-1");
+    request.setFlagsRemaining(9);
+    request.setSequence(3L);
+    request.setChanges(new CellChange[] {new CellChange(2, 3, "1"), new CellChange(4, 5, "f")});
+    assertRoundTrip(request, MineHunterRequest.class);
+    // a full board rather than changes
+    request.setBoard(new String[] {"##1", "#2.", "..."});
+    request.setSequence(null);
+    request.setChanges(null);
+    assertRoundTrip(request, MineHunterRequest.class);
+    Move move = new Move();
+    move.setX(1);
+    move.setY(2);
+    move.setFlag(true);
+    MineHunterResponse response = new MineHunterResponse();
+    response.setMoves(new Move[] {move});
+    assertRoundTrip(response, MineHunterResponse.class);
+  }
+
+  @Test
+  public void twistyTest() throws Exception {
+    TwistyRequest request = new TwistyRequest();
+    request.setPuzzleType("3x3x3");
+    request.setMoves(List.of("F", "B'", "U2"));
+    request.setState("WWWWWWWWW");
+    TwistyRequestHistory history = new TwistyRequestHistory();
+    history.setStartState("WWWWWWWWB");
+    history.setMoves("F");
+    history.setEndState("WWWWWWWWW");
+    history.setSuccess(true);
+    request.setHistory(history);
+    assertRoundTrip(request, TwistyRequest.class);
+    TwistyResponse response = new TwistyResponse();
+    response.setMove("F B'");
+    assertRoundTrip(response, TwistyResponse.class);
+  }
+
+  @Test
+  public void twistySessionTest() throws Exception {
+    TwistySessionRequest request = new TwistySessionRequest();
+    request.setPuzzleType("3x3x3");
+    request.setMoves(List.of("F", "B'", "U2"));
+    assertRoundTrip(request, TwistySessionRequest.class);
+    TwistySessionResponse response = new TwistySessionResponse();
+    response.setSessionID("twisty-1");
+    assertRoundTrip(response, TwistySessionResponse.class);
+  }
+
+  @Test
+  public void batchTest() throws Exception {
+    BatchRequest<BanditRequest> request = new BatchRequest<>();
+    request.add(0, banditRequest());
+    request.add(2, banditRequest());
+    assertRoundTrip(
+        request, new ParameterizedTypeReference<BatchRequest<BanditRequest>>() {}.getType());
+    BatchResponse<BanditResponse> response = new BatchResponse<>();
+    for (int arm = 0; arm < 2; arm++) {
+      BanditResponse banditResponse = new BanditResponse();
+      banditResponse.setArm(arm);
+      response.getResponses().add(banditResponse);
+    }
+    assertRoundTrip(
+        response, new ParameterizedTypeReference<BatchResponse<BanditResponse>>() {}.getType());
+  }
+}
@@ -1,8 +1,6 @@
 package dev.aisandbox.client.agent;
 
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.test.util.ReflectionTestUtils;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
@@ -11,12 +9,43 @@ public class AgentMockTool {
   public static MockRestServiceServer createMockServer(Agent agent) {
     // setup mock server
     RestTemplate template = agent.getRestTemplate();
-    MockRestServiceServer server = MockRestServiceServer.bindTo(template).build();
-    // workaround - recreate the buffering request factory
-    final ClientHttpRequestFactory requestFactory =
-        (ClientHttpRequestFactory) ReflectionTestUtils.getField(template, "requestFactory");
-    template.setRequestFactory(new BufferingClientHttpRequestFactory(requestFactory));
-    // return mock server
-    return server;
+    return MockRestServiceServer.bindTo(template).build();
+  }
+
+  /**
+   * Create an agent that is ready to use, with the default language and read timeout.
+   *
+   * @param transport how to reach the agent.
+   * @param target the URL, name, command or file for the transport.
+   * @return the agent, after {@link Agent#setupAgent()}.
+   */
+  public static Agent createAgent(AgentTransport transport, String target) {
+    return createAgent(transport, target, AgentLanguage.JSON, 0);
+  }
+
+  /**
+   * Create an agent that is ready to use.
+   *
+   * @param transport how to reach the agent.
+   * @param target the URL, name, command or file for the transport.
+   * @param language the message format.
+   * @param readTimeout the read timeout in milliseconds, zero for none.
+   * @return the agent, after {@link Agent#setupAgent()}.
+   */
+  public static Agent createAgent(
+      AgentTransport transport, String target, AgentLanguage language, int readTimeout) {
+    Agent a = new Agent();
+    a.setTransport(transport);
+    a.setTarget(target);
+    a.setLanguage(language);
+    a.setReadTimeout(readTimeout);
+    a.setupAgent();
+    return a;
+  }
+
+  public static BanditRequest banditRequest(int count) {
+    BanditRequest req = new BanditRequest();
+    req.setBanditCount(count);
+    return req;
   }
 }
@@ -0,0 +1,100 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.profiler.AIProfiler;
+import dev.aisandbox.client.profiler.NetworkPhases;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AgentPhaseTimerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testPhasesTimed() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-bandit", 0, 1)) {
+      Agent a = new Agent();
+      a.setTarget(server.getUrl());
+      a.setupAgent();
+      BanditRequest req = new BanditRequest();
+      req.setBanditCount(5);
+      for (int i = 0; i < 20; i++) {
+        assertTrue("Arm out of range", a.postRequest(req, BanditResponse.class).getArm() < 5);
+      }
+      NetworkPhases phases = a.getPhases();
+      assertEquals("Wrong number of requests timed", 20, phases.getRequests());
+      for (NetworkPhases.Phase phase : NetworkPhases.Phase.values()) {
+        // the random agent can answer in under a microsecond
+        assertTrue(
+            phase + " not timed",
+            phase == NetworkPhases.Phase.COMPUTE || phases.getTotal(phase) > 0);
+      }
+      // the local server reports its compute time
+      assertEquals("Compute time not reported", 20, phases.getCompute().getCount());
+      assertEquals("Overhead not recorded", 20, phases.getOverhead().getCount());
+      assertTrue(
+          "Overhead less than the requests",
+          phases.getOverhead().getMean() <= a.getLatency().getMean());
+      long phaseTotal = 0;
+      for (NetworkPhases.Phase phase : NetworkPhases.Phase.values()) {
+        phaseTotal += phases.getTotal(phase);
+      }
+      assertTrue(
+          "Phases longer than the requests",
+          phaseTotal / 1000 <= a.getLatency().getMean() * a.getLatency().getCount() * 1.01);
+      // the profiler reports the mean of each phase
+      AIProfiler profiler = new AIProfiler();
+      profiler.addAgentLatency("Agent 1", a.getLatency());
+      profiler.addAgentPhases("Agent 1", phases);
+      File csv = folder.newFile("latency.csv");
+      profiler.writeStatistics(csv);
+      List<String> lines = Files.readAllLines(csv.toPath());
+      assertTrue(
+          "No phase columns",
+          lines.get(0).endsWith(",Connect,Encode,Write,FirstByte,AgentCompute,Read,Decode"));
+      assertEquals("Phase columns not filled", 17, lines.get(1).split(",").length);
+      assertTrue("No compute row", lines.get(2).startsWith("Agent 1 compute,20,"));
+      assertTrue("No overhead row", lines.get(3).startsWith("Agent 1 overhead,20,"));
+      // setting up again starts from nothing
+      a.setupAgent();
+      assertEquals("Phases not reset", 0, a.getPhases().getRequests());
+      assertEquals("Compute not reset", 0, a.getPhases().getCompute().getCount());
+    }
+  }
+
+  @Test
+  public void testFailedRequestCounted() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-twisty", 0, 1)) {
+      Agent a = new Agent();
+      a.setTarget(server.getUrl());
+      a.setupAgent();
+      BanditRequest req = new BanditRequest();
+      req.setBanditCount(5);
+      try {
+        a.postRequest(req, BanditResponse.class);
+        throw new AssertionError("Expected the request to be rejected");
+      } catch (AgentRequestException e) {
+        // the twisty agent can't read a bandit request
+      }
+      NetworkPhases phases = a.getPhases();
+      assertTrue("Failed request not timed", phases.getTotal(NetworkPhases.Phase.WRITE) > 0);
+      assertEquals("Failed request not counted", 1, phases.getRequests());
+    }
+  }
+
+  @Test
+  public void testComputeHeader() {
+    assertEquals("Wrong compute time", 1500, AgentPhaseTimer.parseComputeMicros(" 1500 "));
+    assertEquals("Missing header used", -1, AgentPhaseTimer.parseComputeMicros(null));
+    assertEquals("Negative time used", -1, AgentPhaseTimer.parseComputeMicros("-5"));
+    assertEquals("Bad time used", -1, AgentPhaseTimer.parseComputeMicros("1.5ms"));
+  }
+}
@@ -0,0 +1,106 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.scenarios.TestRequest;
+import dev.aisandbox.client.scenarios.TestResponse;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class AgentProcessTest {
+
+  /** Build a command line running {@link ProcessTestAgent} with the current JVM. */
+  private static String agentCommand(String mode) {
+    String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+    String classes =
+        new File(
+                ProcessTestAgent.class
+                    .getProtectionDomain()
+                    .getCodeSource()
+                    .getLocation()
+                    .getPath())
+            .getAbsolutePath();
+    return "\""
+        + java
+        + "\" -cp \""
+        + classes
+        + "\" "
+        + ProcessTestAgent.class.getName()
+        + " "
+        + mode;
+  }
+
+  @Test
+  public void testValidTarget() {
+    Agent a = new Agent();
+    a.setTarget("python3 agent.py");
+    assertFalse("Command valid for HTTP", a.getValidProperty().get());
+    a.setTransport(AgentTransport.PROCESS);
+    assertTrue("Command invalid for process", a.getValidProperty().get());
+    a.setTarget(" ");
+    assertFalse("Blank command valid for process", a.getValidProperty().get());
+  }
+
+  @Test
+  public void testSplitCommand() {
+    assertEquals(
+        Arrays.asList("java", "-cp", "my classes", "Agent", ""),
+        ProcessChannel.splitCommand("java  -cp \"my classes\" Agent \"\""));
+  }
+
+  @Test
+  public void testProcessAgent() throws Exception {
+    Agent a = AgentMockTool.createAgent(AgentTransport.PROCESS, agentCommand(""));
+    try {
+      TestRequest req = new TestRequest();
+      for (String name : new String[] {"Fred", "Wilma", "Pebbles"}) {
+        req.setName(name);
+        TestResponse r = a.postRequest(req, TestResponse.class);
+        assertEquals("Wrong answer for " + name, name.length(), r.getNumber());
+      }
+    } finally {
+      a.close();
+    }
+  }
+
+  @Test(expected = AgentResetException.class)
+  public void testProcessReset() throws Exception {
+    Agent a = AgentMockTool.createAgent(AgentTransport.PROCESS, agentCommand("reset"));
+    try {
+      TestRequest req = new TestRequest();
+      req.setName("Fred");
+      a.postRequest(req, TestResponse.class);
+    } finally {
+      a.close();
+    }
+  }
+
+  @Test
+  public void testProcessDies() throws Exception {
+    Agent a = AgentMockTool.createAgent(AgentTransport.PROCESS, agentCommand("die"));
+    try {
+      TestRequest req = new TestRequest();
+      req.setName("Fred");
+      a.postRequest(req, TestResponse.class);
+      throw new AssertionError("Expected the process to fail");
+    } catch (AgentConnectionException e) {
+      assertTrue("Exit code not reported", e.getMessage().contains("3"));
+    } finally {
+      a.close();
+    }
+  }
+
+  @Test(expected = AgentFileNotFoundException.class)
+  public void testMissingProgram() throws Exception {
+    Agent a = new Agent();
+    a.setTransport(AgentTransport.PROCESS);
+    a.setTarget("no-such-agent-program");
+    a.setupAgent();
+    TestRequest req = new TestRequest();
+    req.setName("Fred");
+    a.postRequest(req, TestResponse.class);
+  }
+}
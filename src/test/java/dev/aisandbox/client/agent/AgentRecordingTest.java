@@ -0,0 +1,209 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import dev.aisandbox.client.scenarios.TestRequest;
+import dev.aisandbox.client.scenarios.TestResponse;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class AgentRecordingTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRecordAndReplay() throws Exception {
+    File recording = new File(folder.getRoot(), "bandit.rec");
+    Agent recorder = new Agent();
+    recorder.setTransport(AgentTransport.LOCAL);
+    recorder.setTarget("random-bandit");
+    recorder.setRecordFile(recording.getPath());
+    recorder.setupAgent();
+    List<Integer> arms = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      arms.add(
+          recorder.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class).getArm());
+    }
+    recorder.close();
+    assertTrue(
+        "Recording not valid for replay", AgentTransport.REPLAY.isValidTarget(recording.getPath()));
+    Agent replay = AgentMockTool.createAgent(AgentTransport.REPLAY, recording.getPath());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(
+          "Wrong arm replayed",
+          (int) arms.get(i),
+          replay.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class).getArm());
+    }
+    try {
+      replay.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class);
+      throw new AssertionError("Expected the end of the recording");
+    } catch (AgentConnectionException e) {
+      assertTrue("Wrong message", e.getMessage().startsWith("End of recording"));
+    }
+    // setting up again starts from the beginning
+    replay.setupAgent();
+    assertEquals(
+        "Replay didn't restart",
+        (int) arms.get(0),
+        replay.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class).getArm());
+    replay.close();
+  }
+
+  @Test
+  public void testRecordingReplaced() throws Exception {
+    File recording = new File(folder.getRoot(), "again.rec");
+    Agent recorder = new Agent();
+    recorder.setTransport(AgentTransport.LOCAL);
+    recorder.setTarget("random-bandit");
+    recorder.setRecordFile(recording.getPath());
+    for (int run = 0; run < 2; run++) {
+      recorder.setupAgent();
+      recorder.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class);
+    }
+    recorder.close();
+    // only the second run is kept
+    Agent replay = AgentMockTool.createAgent(AgentTransport.REPLAY, recording.getPath());
+    replay.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class);
+    try {
+      replay.postRequest(AgentMockTool.banditRequest(10), BanditResponse.class);
+      throw new AssertionError("Expected the end of the recording");
+    } catch (AgentConnectionException e) {
+      assertTrue("Wrong message", e.getMessage().startsWith("End of recording"));
+    }
+    replay.close();
+  }
+
+  @Test
+  public void testErrorReplayed() throws Exception {
+    File recording = new File(folder.getRoot(), "reset.rec");
+    Agent a = new Agent();
+    a.setTarget("http://localhost/agent");
+    a.setRecordFile(recording.getPath());
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/agent"))
+        .andRespond(withSuccess("{\"number\":7}", MediaType.APPLICATION_JSON));
+    server
+        .expect(requestTo("http://localhost/agent"))
+        .andRespond(withStatus(HttpStatus.RESET_CONTENT));
+    TestRequest req = new TestRequest();
+    req.setName("Betty");
+    assertEquals("Answer=7", 7, a.postRequest(req, TestResponse.class).getNumber());
+    try {
+      a.postRequest(req, TestResponse.class);
+      throw new AssertionError("Expected a reset");
+    } catch (AgentResetException e) {
+      // expected
+    }
+    a.close();
+    Agent replay = AgentMockTool.createAgent(AgentTransport.REPLAY, recording.getPath());
+    assertEquals("Answer=7", 7, replay.postRequest(req, TestResponse.class).getNumber());
+    try {
+      replay.postRequest(req, TestResponse.class);
+      throw new AssertionError("Expected a replayed reset");
+    } catch (AgentResetException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testEmptyResponseReplayed() throws Exception {
+    File recording = new File(folder.getRoot(), "empty.rec");
+    Agent a = new Agent();
+    a.setTarget("http://localhost/agent");
+    a.setRecordFile(recording.getPath());
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server.expect(requestTo("http://localhost/agent")).andRespond(withSuccess());
+    server
+        .expect(requestTo("http://localhost/agent"))
+        .andRespond(withSuccess("{\"number\":7}", MediaType.APPLICATION_JSON));
+    TestRequest req = new TestRequest();
+    assertNull("Response not empty", a.postRequest(req, TestResponse.class));
+    assertEquals("Answer=7", 7, a.postRequest(req, TestResponse.class).getNumber());
+    a.close();
+    Agent replay = AgentMockTool.createAgent(AgentTransport.REPLAY, recording.getPath());
+    assertNull("Empty response not replayed", replay.postRequest(req, TestResponse.class));
+    assertEquals("Answer=7", 7, replay.postRequest(req, TestResponse.class).getNumber());
+    replay.close();
+  }
+
+  @Test
+  public void testBadRequestReplayed() throws Exception {
+    File recording = new File(folder.getRoot(), "bad.rec");
+    Agent a = new Agent();
+    a.setTarget("http://localhost/agent");
+    a.setRecordFile(recording.getPath());
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/agent"))
+        .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+    TestRequest req = new TestRequest();
+    try {
+      a.postRequest(req, TestResponse.class);
+      throw new AssertionError("Expected a bad request");
+    } catch (AgentRequestException e) {
+      // expected
+    }
+    a.close();
+    try {
+      AgentMockTool.createAgent(AgentTransport.REPLAY, recording.getPath())
+          .postRequest(req, TestResponse.class);
+      throw new AssertionError("Expected a replayed bad request");
+    } catch (AgentRequestException e) {
+      // expected, not replayed as a (retryable) connection error
+    }
+  }
+
+  @Test
+  public void testVarint() throws Exception {
+    long[] values = {0, 1, 127, 128, 300, 1L << 35, Long.MAX_VALUE};
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (long value : values) {
+      AgentRecorder.writeVarint(out, value);
+    }
+    assertEquals("Small values aren't compact", 1, countBytes(127));
+    ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+    for (long value : values) {
+      assertEquals("Wrong value read", value, AgentRecorder.readVarint(in));
+    }
+    assertEquals("Expected end of stream", -1, AgentRecorder.readVarint(in));
+  }
+
+  private static int countBytes(long value) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AgentRecorder.writeVarint(out, value);
+    return out.size();
+  }
+
+  @Test
+  public void testNotARecording() throws Exception {
+    File file = folder.newFile("empty.rec");
+    assertFalse("Missing file accepted", AgentTransport.REPLAY.isValidTarget("no-such-file"));
+    try {
+      AgentMockTool.createAgent(AgentTransport.REPLAY, file.getPath())
+          .postRequest(AgentMockTool.banditRequest(1), BanditResponse.class);
+      throw new AssertionError("Expected a parser error");
+    } catch (AgentParserException e) {
+      // expected
+    }
+  }
+}
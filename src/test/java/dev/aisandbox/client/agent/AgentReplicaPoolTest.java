@@ -0,0 +1,187 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
+import java.net.ServerSocket;
+import java.util.List;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class AgentReplicaPoolTest {
+
+  private static final List<String> URLS =
+      List.of("http://one/agent", "http://two/agent", "http://three/agent");
+
+  @Test
+  public void testParseTargets() {
+    assertEquals(
+        "Wrong replicas",
+        List.of("http://a/", "http://b/"),
+        AgentReplicaPool.parseTargets(" http://a/ , http://b/,"));
+    assertTrue("Comma list not valid", AgentTransport.HTTP.isValidTarget("http://a/,http://b/"));
+    assertFalse("Bad replica accepted", AgentTransport.HTTP.isValidTarget("http://a/,rubbish"));
+    assertFalse("Empty list accepted", AgentTransport.HTTP.isValidTarget(","));
+  }
+
+  @Test
+  public void testRoundRobinAndEjection() {
+    AgentReplicaPool pool = new AgentReplicaPool(URLS, AgentBalancing.ROUND_ROBIN);
+    for (int i = 0; i < 6; i++) {
+      String url = pool.choose(null);
+      assertEquals("Not round robin", URLS.get(i % 3), url);
+      pool.finished(url, 100, url.equals(URLS.get(1)));
+    }
+    // one more failure ejects the second replica
+    assertEquals("Wrong replica", URLS.get(0), pool.choose(null));
+    pool.finished(URLS.get(0), 100, false);
+    assertEquals("Wrong replica", URLS.get(1), pool.choose(null));
+    pool.finished(URLS.get(1), 100, true);
+    assertTrue("Replica not ejected", pool.getReplicas().get(1).isEjected());
+    for (int i = 0; i < 10; i++) {
+      String url = pool.choose(null);
+      assertNotEquals("Ejected replica used", URLS.get(1), url);
+      pool.finished(url, 100, false);
+    }
+  }
+
+  @Test
+  public void testLeastOutstanding() {
+    AgentReplicaPool pool = new AgentReplicaPool(URLS, AgentBalancing.LEAST_OUTSTANDING);
+    // give each replica a response time, the third is ten times slower
+    for (int i = 0; i < 3; i++) {
+      String url = pool.choose(null);
+      pool.finished(url, url.equals(URLS.get(2)) ? 10000 : 1000, false);
+    }
+    int slow = 0;
+    for (int i = 0; i < 24; i++) {
+      // leave them all in progress, the slow one is only worth using once the others have ten
+      if (pool.choose(null).equals(URLS.get(2))) {
+        slow++;
+      }
+    }
+    assertEquals("Slow replica given the wrong share", 1, slow);
+    assertEquals("Outstanding not counted", 12, pool.getReplicas().get(0).getOutstanding());
+  }
+
+  @Test
+  public void testSessionsStick() {
+    AgentReplicaPool pool = new AgentReplicaPool(URLS, AgentBalancing.ROUND_ROBIN);
+    String first = pool.choose("abc");
+    pool.finished(first, 100, false);
+    for (int i = 0; i < 5; i++) {
+      assertEquals("Session moved", first, pool.choose("abc"));
+      pool.finished(first, 100, false);
+      pool.finished(pool.choose(null), 100, false);
+    }
+    pool.bind("xyz", URLS.get(2));
+    assertEquals("Session not bound", URLS.get(2), pool.choose("xyz"));
+    pool.finished(URLS.get(2), 100, false);
+    // the session moves once its replica is ejected
+    for (int i = 0; i < AgentReplicaPool.EJECT_AFTER_FAILURES; i++) {
+      pool.finished(pool.choose("abc"), 100, true);
+    }
+    String moved = pool.choose("abc");
+    assertNotEquals("Session not moved", first, moved);
+    pool.finished(moved, 100, false);
+    assertEquals("Session not moved", moved, pool.choose("abc"));
+  }
+
+  @Test
+  public void testBatchSessionsKeptTogether() {
+    AgentReplicaPool pool = new AgentReplicaPool(URLS, AgentBalancing.ROUND_ROBIN);
+    pool.bind("b", URLS.get(2));
+    // the first bound session decides, the new one joins it
+    String url = pool.chooseForSessions(List.of("a", "b"));
+    assertEquals("Batch not sent to the bound replica", URLS.get(2), url);
+    pool.finished(url, 100, false);
+    assertEquals("Session not moved to the batch", URLS.get(2), pool.choose("a"));
+  }
+
+  @Test
+  public void testAgentBatchSticks() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://one/agent,http://two/agent");
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    // round robin would alternate, but the sessions keep every batch on the first replica
+    server
+        .expect(times(4), requestTo("http://one/agent"))
+        .andRespond(
+            withSuccess(
+                "{\"responses\":[{\"move\":\"F\"},{\"move\":\"B\"}]}", MediaType.APPLICATION_JSON));
+    for (int i = 0; i < 4; i++) {
+      BatchRequest<TwistyRequest> batch = new BatchRequest<>();
+      for (int env = 0; env < 2; env++) {
+        TwistyRequest req = new TwistyRequest();
+        req.setSessionID("session-" + env);
+        batch.add(env, req);
+      }
+      assertEquals("Wrong responses", 2, a.postBatch(batch, TwistyResponse.class).size());
+    }
+    server.verify();
+  }
+
+  @Test
+  public void testAgentFailsOver() throws Exception {
+    int deadPort;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      deadPort = socket.getLocalPort();
+    }
+    try (LocalAgentServer server = new LocalAgentServer("random-bandit", 0, 2)) {
+      Agent a = new Agent();
+      a.setTarget("http://localhost:" + deadPort + "/agent," + server.getUrl());
+      a.setRetries(1);
+      a.setupAgent();
+      BanditRequest req = new BanditRequest();
+      req.setBanditCount(5);
+      for (int i = 0; i < 10; i++) {
+        assertTrue("Arm out of range", a.postRequest(req, BanditResponse.class).getArm() < 5);
+      }
+      List<AgentReplicaPool.Replica> replicas = a.getReplicas().getReplicas();
+      assertTrue("Dead replica not ejected", replicas.get(0).isEjected());
+      assertEquals(
+          "Dead replica kept getting requests",
+          AgentReplicaPool.EJECT_AFTER_FAILURES,
+          replicas.get(0).getRequests());
+      assertEquals("Live replica missed requests", 10, replicas.get(1).getRequests());
+    }
+  }
+
+  @Test
+  public void testSessionStartedOnReplica() throws Exception {
+    try (LocalAgentServer one = new LocalAgentServer("random-twisty", 0, 1);
+        LocalAgentServer two = new LocalAgentServer("random-twisty", 0, 1)) {
+      Agent a = new Agent();
+      a.setTarget(one.getUrl() + "," + two.getUrl());
+      a.setupAgent();
+      TwistySessionRequest start = new TwistySessionRequest();
+      start.setPuzzleType("Test");
+      start.setMoves(List.of("F", "B"));
+      TwistySessionResponse session = a.postRequest(start, TwistySessionResponse.class);
+      TwistyRequest req = new TwistyRequest();
+      req.setSessionID(session.getSessionID());
+      req.setMoves(null);
+      req.setState("WWWW");
+      // only the replica that started the session knows its moves
+      for (int i = 0; i < 5; i++) {
+        assertTrue(
+            "Move not from the session",
+            start.getMoves().contains(a.postRequest(req, TwistyResponse.class).getMove()));
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.TestRequest;
+import dev.aisandbox.client.scenarios.TestResponse;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequestHistory;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterRequest;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterResponse;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class AgentResponseCacheTest {
+
+  private static BanditRequest banditRequest(int count, String session, int lastArm) {
+    BanditRequest req = new BanditRequest();
+    req.setBanditCount(count);
+    req.setSessionID(session);
+    BanditRequestHistory history = new BanditRequestHistory();
+    history.setSessionID(session);
+    history.setChosenBandit(lastArm);
+    req.setHistory(history);
+    return req;
+  }
+
+  @Test
+  public void testRepeatedRequestNotSent() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/agent");
+    a.setCacheSize(10);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    // only expect each distinct request once
+    server
+        .expect(times(2), requestTo("http://localhost/agent"))
+        .andRespond(withSuccess("{\"number\":7}", MediaType.APPLICATION_JSON));
+    TestRequest betty = new TestRequest();
+    betty.setName("Betty");
+    TestRequest fred = new TestRequest();
+    fred.setName("Fred");
+    for (int i = 0; i < 5; i++) {
+      assertEquals("Answer=7", 7, a.postRequest(betty, TestResponse.class).getNumber());
+      assertEquals("Answer=7", 7, a.postRequest(fred, TestResponse.class).getNumber());
+    }
+    server.verify();
+    assertEquals("Wrong hits", 8, a.getCache().getHits());
+    assertEquals("Wrong misses", 2, a.getCache().getMisses());
+    assertEquals("Cached answers timed", 2, a.getLatency().getCount());
+  }
+
+  private static MineHunterRequest mineRequest(Long sequence) {
+    MineHunterRequest req = new MineHunterRequest();
+    req.setBoardID("board");
+    req.setBoard(new String[] {"##", "##"});
+    req.setFlagsRemaining(1);
+    req.setSequence(sequence);
+    return req;
+  }
+
+  @Test
+  public void testDeltaRequestsNotCached() throws Exception {
+    AgentResponseCache cache = new AgentResponseCache(10);
+    assertNotNull("Full board not cached", cache.key(mineRequest(null)));
+    assertNull("Delta snapshot cached", cache.key(mineRequest(0L)));
+    BatchRequest<MineHunterRequest> batch = new BatchRequest<>();
+    batch.add(0, mineRequest(null));
+    assertNotNull("Full board batch not cached", cache.key(batch));
+    batch.add(1, mineRequest(0L));
+    assertNull("Delta batch cached", cache.key(batch));
+    // a snapshot resent after a reset has to reach the agent, even though it is unchanged
+    Agent a = new Agent();
+    a.setTarget("http://localhost/agent");
+    a.setCacheSize(10);
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(times(2), requestTo("http://localhost/agent"))
+        .andRespond(withSuccess("{\"moves\":[]}", MediaType.APPLICATION_JSON));
+    a.postRequest(mineRequest(0L), MineHunterResponse.class);
+    a.postRequest(mineRequest(0L), MineHunterResponse.class);
+    server.verify();
+    assertEquals("Delta request answered from cache", 0, a.getCache().getHits());
+  }
+
+  @Test
+  public void testVolatileFieldsIgnored() {
+    AgentResponseCache cache = new AgentResponseCache(10);
+    assertEquals(
+        "History and session changed the key",
+        cache.key(banditRequest(5, "one", 1)),
+        cache.key(banditRequest(5, "two", 3)));
+    assertNotEquals(
+        "Different requests share a key",
+        cache.key(banditRequest(5, "one", 1)),
+        cache.key(banditRequest(6, "one", 1)));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedDropped() {
+    AgentResponseCache cache = new AgentResponseCache(2);
+    for (int count = 1; count <= 2; count++) {
+      BanditResponse response = new BanditResponse();
+      response.setArm(count);
+      cache.put(cache.key(banditRequest(count, "s", 0)), response);
+    }
+    // use the first so the second is the oldest
+    assertEquals(
+        "Wrong arm",
+        1,
+        cache
+            .<BanditResponse>get(cache.key(banditRequest(1, "s", 0)), BanditResponse.class)
+            .getArm());
+    cache.put(cache.key(banditRequest(3, "s", 0)), new BanditResponse());
+    assertEquals("Cache too large", 2, cache.size());
+    assertNull(
+        "Oldest entry kept", cache.get(cache.key(banditRequest(2, "s", 0)), BanditResponse.class));
+    // each hit is a fresh copy
+    BanditResponse copy = cache.get(cache.key(banditRequest(1, "s", 0)), BanditResponse.class);
+    copy.setArm(99);
+    assertEquals(
+        "Cached response changed",
+        1,
+        cache
+            .<BanditResponse>get(cache.key(banditRequest(1, "s", 0)), BanditResponse.class)
+            .getArm());
+  }
+}
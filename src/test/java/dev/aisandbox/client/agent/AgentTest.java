@@ -3,6 +3,7 @@ package dev.aisandbox.client.agent;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
@@ -12,12 +13,23 @@ import static org.springframework.test.web.client.match.MockRestRequestMatchers.
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import dev.aisandbox.client.scenarios.BatchRequest;
 import dev.aisandbox.client.scenarios.TestRequest;
 import dev.aisandbox.client.scenarios.TestResponse;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import okhttp3.OkHttpClient;
 import org.junit.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 
 public class AgentTest {
@@ -198,4 +210,196 @@ public class AgentTest {
     TestResponse r = a.postRequest(req, TestResponse.class);
     server.verify();
   }
+
+  @Test
+  public void testPostCBOR() throws Exception {
+    testPostBinary(AgentLanguage.CBOR, new CBORMapper());
+  }
+
+  @Test
+  public void testPostSmile() throws Exception {
+    testPostBinary(AgentLanguage.SMILE, new SmileMapper());
+  }
+
+  @Test
+  public void testPostMessagePack() throws Exception {
+    testPostBinary(AgentLanguage.MSGPACK, new ObjectMapper(new MessagePackFactory()));
+  }
+
+  private void testPostBinary(AgentLanguage language, ObjectMapper mapper) throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postBinary");
+    a.setLanguage(language);
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    // setup expectations
+    TestRequest req = new TestRequest();
+    req.setName("Wilma");
+    TestResponse resp = new TestResponse();
+    resp.setNumber(4);
+    server
+        .expect(requestTo("http://localhost/postBinary"))
+        .andExpect(method(HttpMethod.POST))
+        .andExpect(content().contentType(language.getMediaType()))
+        .andExpect(header("Accept", language.getMediaType().toString()))
+        .andExpect(content().bytes(mapper.writeValueAsBytes(req)))
+        .andRespond(withSuccess(mapper.writeValueAsBytes(resp), language.getMediaType()));
+    // run request
+    TestResponse r = a.postRequest(req, TestResponse.class);
+    server.verify();
+    assertEquals("Answer=4", 4, r.getNumber());
+  }
+
+  @Test
+  public void testPostAsync() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postAsync");
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postAsync"))
+        .andExpect(method(HttpMethod.POST))
+        .andExpect(jsonPath("name").value("Barney"))
+        .andRespond(withSuccess("{\"number\":\"5\"}", MediaType.APPLICATION_JSON));
+    // run request
+    TestRequest req = new TestRequest();
+    req.setName("Barney");
+    CompletableFuture<TestResponse> future = a.postRequestAsync(req, TestResponse.class);
+    TestResponse r = a.awaitResponse(future);
+    server.verify();
+    assertEquals("Answer=5", 5, r.getNumber());
+  }
+
+  @Test
+  public void testLatencyRecorded() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/latency");
+    a.setupAgent();
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(ExpectedCount.times(3), requestTo("http://localhost/latency"))
+        .andRespond(withSuccess("{\"number\":\"5\"}", MediaType.APPLICATION_JSON));
+    TestRequest req = new TestRequest();
+    req.setName("Barney");
+    for (int i = 0; i < 3; i++) {
+      a.postRequest(req, TestResponse.class);
+    }
+    server.verify();
+    assertEquals("Requests not timed", 3, a.getLatency().getCount());
+    // a new run starts a new histogram
+    a.setupAgent();
+    assertEquals("Latency not reset", 0, a.getLatency().getCount());
+  }
+
+  @Test(expected = AgentFileNotFoundException.class)
+  public void testPostAsyncError() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postAsync");
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postAsync"))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND));
+    // the original exception should be thrown when waiting
+    a.awaitResponse(a.postRequestAsync(new TestRequest(), TestResponse.class));
+  }
+
+  @Test
+  public void testPostBatch() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postBatch");
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postBatch"))
+        .andExpect(method(HttpMethod.POST))
+        .andExpect(jsonPath("environments[1]").value(2))
+        .andExpect(jsonPath("requests[0].name").value("Pebbles"))
+        .andExpect(jsonPath("requests[1].name").value("Bamm-Bamm"))
+        .andRespond(
+            withSuccess(
+                "{\"responses\":[{\"number\":\"1\"},{\"number\":\"2\"}]}",
+                MediaType.APPLICATION_JSON));
+    // run request
+    BatchRequest<TestRequest> batch = new BatchRequest<>();
+    TestRequest req1 = new TestRequest();
+    req1.setName("Pebbles");
+    batch.add(0, req1);
+    TestRequest req2 = new TestRequest();
+    req2.setName("Bamm-Bamm");
+    batch.add(2, req2);
+    List<TestResponse> r = a.postBatch(batch, TestResponse.class);
+    server.verify();
+    assertEquals("Two responses", 2, r.size());
+    assertEquals("First answer", 1, r.get(0).getNumber());
+    assertEquals("Second answer", 2, r.get(1).getNumber());
+  }
+
+  @Test(expected = AgentParserException.class)
+  public void testPostBatchMissingResponse() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postBatch");
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postBatch"))
+        .andRespond(
+            withSuccess("{\"responses\":[{\"number\":\"1\"}]}", MediaType.APPLICATION_JSON));
+    BatchRequest<TestRequest> batch = new BatchRequest<>();
+    batch.add(0, new TestRequest());
+    batch.add(1, new TestRequest());
+    a.postBatch(batch, TestResponse.class);
+  }
+
+  @Test
+  public void testPostBatchMissingResponseWithDeadline() throws Exception {
+    Agent a = new Agent();
+    a.setTarget("http://localhost/postBatch");
+    a.setDeadline(5000);
+    a.setupAgent();
+    // setup mock server
+    MockRestServiceServer server = AgentMockTool.createMockServer(a);
+    server
+        .expect(requestTo("http://localhost/postBatch"))
+        .andRespond(
+            withSuccess("{\"responses\":[{\"number\":\"1\"}]}", MediaType.APPLICATION_JSON));
+    BatchRequest<TestRequest> batch = new BatchRequest<>();
+    batch.add(0, new TestRequest());
+    batch.add(1, new TestRequest());
+    try {
+      a.postBatch(batch, TestResponse.class);
+      fail("Missing response not noticed");
+    } catch (AgentParserException e) {
+      // the response was received on a background thread, but is still reported
+      assertEquals("Wrong response code", 200, e.getResponseCode());
+      assertEquals("Wrong response", "{\"responses\":[{\"number\":\"1\"}]}", e.getResponse());
+    }
+  }
+
+  @Test
+  public void testCloseReleasesConnections() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-bandit", 0, 1)) {
+      Agent a = new Agent();
+      a.setTarget(server.getUrl());
+      a.setupAgent();
+      BanditRequest req = new BanditRequest();
+      req.setBanditCount(3);
+      a.postRequest(req, BanditResponse.class);
+      OkHttpClient first = a.getHttpClient();
+      assertEquals("Connection not kept alive", 1, first.connectionPool().idleConnectionCount());
+      // setting up again closes the last client
+      a.setupAgent();
+      assertEquals("Connection left open", 0, first.connectionPool().idleConnectionCount());
+      assertTrue("Dispatcher left running", first.dispatcher().executorService().isShutdown());
+      a.postRequest(req, BanditResponse.class);
+      a.close();
+      assertEquals(
+          "Connection left open", 0, a.getHttpClient().connectionPool().idleConnectionCount());
+    }
+  }
 }
@@ -0,0 +1,93 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
+import java.util.List;
+import org.junit.Test;
+
+public class LocalAgentServerTest {
+
+  private static void checkBandit(Agent a) throws AgentException {
+    BanditRequest req = new BanditRequest();
+    req.setBanditCount(5);
+    for (int i = 0; i < 20; i++) {
+      BanditResponse r = a.postRequest(req, BanditResponse.class);
+      assertTrue("Arm out of range", r.getArm() >= 0 && r.getArm() < 5);
+    }
+  }
+
+  @Test
+  public void testLanguages() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-bandit", 0, 2)) {
+      for (AgentLanguage language : AgentLanguage.values()) {
+        checkBandit(AgentMockTool.createAgent(AgentTransport.HTTP, server.getUrl(), language, 0));
+      }
+    }
+  }
+
+  @Test
+  public void testCompressedRequest() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-bandit", 0, 2)) {
+      Agent a = new Agent();
+      a.setTarget(server.getUrl());
+      a.setCompression(AgentCompression.GZIP);
+      a.setCompressionThreshold(0);
+      a.setupAgent();
+      checkBandit(a);
+    }
+  }
+
+  @Test
+  public void testRequestTypeChosen() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-twisty", 0, 2)) {
+      for (AgentLanguage language : new AgentLanguage[] {AgentLanguage.JSON, AgentLanguage.XML}) {
+        Agent a = AgentMockTool.createAgent(AgentTransport.HTTP, server.getUrl(), language, 0);
+        TwistySessionRequest start = new TwistySessionRequest();
+        start.setPuzzleType("Test");
+        start.setMoves(List.of("F", "B"));
+        TwistySessionResponse session = a.postRequest(start, TwistySessionResponse.class);
+        assertNotNull("No session started", session.getSessionID());
+        TwistyRequest req = new TwistyRequest();
+        req.setSessionID(session.getSessionID());
+        req.setMoves(null);
+        req.setState("WWWW");
+        TwistyResponse r = a.postRequest(req, TwistyResponse.class);
+        assertTrue("Move not from the session", start.getMoves().contains(r.getMove()));
+      }
+    }
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    try (LocalAgentServer server = new LocalAgentServer("random-twisty", 0, 2)) {
+      Agent a =
+          AgentMockTool.createAgent(AgentTransport.HTTP, server.getUrl(), AgentLanguage.CBOR, 0);
+      BatchRequest<TwistyRequest> batch = new BatchRequest<>();
+      for (int i = 0; i < 3; i++) {
+        TwistyRequest req = new TwistyRequest();
+        req.setMoves(List.of("F", "B"));
+        req.setState("WWWW");
+        batch.add(i, req);
+      }
+      List<TwistyResponse> responses = a.postBatch(batch, TwistyResponse.class);
+      assertEquals("Wrong number of responses", 3, responses.size());
+      for (TwistyResponse r : responses) {
+        assertTrue("Move not from the request", List.of("F", "B").contains(r.getMove()));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownAgent() throws Exception {
+    new LocalAgentServer("no-such-agent", 0, 1).close();
+  }
+}
@@ -0,0 +1,51 @@
+package dev.aisandbox.client.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A small agent program for the process transport, replying to JSON requests with the length of the
+ * name sent.
+ *
+ * <p>Only uses the JDK so it can be run from the test classes directory. With the argument {@code
+ * die} it exits after the first request, with {@code reset} it always asks for a reset.
+ */
+public class ProcessTestAgent {
+
+  private static final Pattern NAME = Pattern.compile("\"name\"\\s*:\\s*\"([^\"]*)\"");
+
+  public static void main(String[] args) throws IOException {
+    String mode = args.length > 0 ? args[0] : "";
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+    while (true) {
+      byte[] request;
+      try {
+        request = new byte[in.readInt()];
+      } catch (EOFException e) {
+        // the client has finished
+        return;
+      }
+      in.readFully(request);
+      if ("die".equals(mode)) {
+        System.exit(3);
+      }
+      byte[] reply = new byte[0];
+      if (!"reset".equals(mode)) {
+        Matcher matcher = NAME.matcher(new String(request, StandardCharsets.UTF_8));
+        int length = matcher.find() ? matcher.group(1).length() : -1;
+        reply = ("{\"number\":" + length + "}").getBytes(StandardCharsets.UTF_8);
+      }
+      out.writeInt(reply.length);
+      out.write(reply);
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package dev.aisandbox.client.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.io.File;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SharedMemoryChannelTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testExchange() throws Exception {
+    File file = new File(folder.getRoot(), "agent.shm");
+    SharedMemoryTestAgent peer = new SharedMemoryTestAgent(file);
+    peer.start();
+    Agent a =
+        AgentMockTool.createAgent(
+            AgentTransport.SHARED_MEMORY, file.getPath(), AgentLanguage.JSON, 5000);
+    try {
+      for (int i = 1; i <= 1000; i++) {
+        BanditResponse r = a.postRequest(AgentMockTool.banditRequest(i), BanditResponse.class);
+        assertEquals("Wrong reply", i - 1, r.getArm());
+      }
+    } finally {
+      a.close();
+      peer.shutdown();
+    }
+  }
+
+  @Test
+  public void testResetAndTimeout() throws Exception {
+    File file = new File(folder.getRoot(), "agent.shm");
+    SharedMemoryTestAgent peer = new SharedMemoryTestAgent(file);
+    peer.start();
+    Agent a =
+        AgentMockTool.createAgent(
+            AgentTransport.SHARED_MEMORY, file.getPath(), AgentLanguage.JSON, 200);
+    try {
+      try {
+        a.postRequest(AgentMockTool.banditRequest(-1), BanditResponse.class);
+        throw new AssertionError("Expected a reset");
+      } catch (AgentResetException e) {
+        // expected
+      }
+      try {
+        a.postRequest(AgentMockTool.banditRequest(-2), BanditResponse.class);
+        throw new AssertionError("Expected a timeout");
+      } catch (AgentTimeoutException e) {
+        // expected
+      }
+      // the channel is still usable after a timeout
+      assertEquals(
+          "Wrong reply",
+          4,
+          a.postRequest(AgentMockTool.banditRequest(5), BanditResponse.class).getArm());
+    } finally {
+      a.close();
+      peer.shutdown();
+    }
+  }
+
+  @Test
+  public void testRingWraps() {
+    ByteBuffer memory = ByteBuffer.allocateDirect(SharedMemoryRing.CONTROL_SIZE + 64);
+    SharedMemoryRing producer = new SharedMemoryRing(memory, 0, 64);
+    SharedMemoryRing consumer = new SharedMemoryRing(memory, 0, 64);
+    assertFalse("Oversized message fits", producer.fits(57));
+    assertTrue("Largest message doesn't fit", producer.fits(56));
+    for (int i = 0; i < 20; i++) {
+      byte[] payload = new byte[(i * 7) % 30];
+      for (int j = 0; j < payload.length; j++) {
+        payload[j] = (byte) (i + j);
+      }
+      assertTrue("No room in an empty ring", producer.offer(i, payload));
+      SharedMemoryRing.Message message = consumer.poll();
+      assertNotNull("Message lost", message);
+      assertEquals("Wrong sequence", i, message.getSequence());
+      for (int j = 0; j < payload.length; j++) {
+        assertEquals("Wrong payload", payload[j], message.getPayload()[j]);
+      }
+      assertNull("Extra message", consumer.poll());
+    }
+    // fill the ring
+    assertTrue(producer.offer(1, new byte[32]));
+    assertFalse("Ring overfilled", producer.offer(2, new byte[32]));
+  }
+
+  @Test
+  public void testCapacityAligned() {
+    for (int capacity : new int[] {0, -64, 8, 100, 4096 + 8}) {
+      try {
+        new SharedMemoryChannel("agent.shm", AgentLanguage.JSON, 0, capacity);
+        throw new AssertionError("Capacity " + capacity + " accepted");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+    new SharedMemoryChannel("agent.shm", AgentLanguage.JSON, 0, 4096).close();
+    assertEquals(
+        "Response ring not on a cache line",
+        0,
+        SharedMemoryChannel.responseRingOffset(4096) % SharedMemoryRing.ALIGNMENT);
+  }
+}
@@ -0,0 +1,78 @@
+package dev.aisandbox.client.agent;
+
+import dev.aisandbox.client.scenarios.bandit.api.BanditRequest;
+import dev.aisandbox.client.scenarios.bandit.api.BanditResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The agent end of a shared memory channel, answering bandit requests on a background thread.
+ *
+ * <p>Arm -1 asks for a reset (an empty reply) and arm -2 for no reply at all.
+ */
+public class SharedMemoryTestAgent extends Thread {
+
+  private final File file;
+  private final AgentMessageCodec codec = new AgentMessageCodec(AgentLanguage.JSON);
+  private volatile boolean stopped = false;
+
+  public SharedMemoryTestAgent(File file) {
+    this.file = file;
+    setDaemon(true);
+  }
+
+  public void shutdown() throws InterruptedException {
+    stopped = true;
+    join(5000);
+  }
+
+  @Override
+  public void run() {
+    try {
+      // wait for the client to create the file
+      while (!stopped && file.length() == 0) {
+        Thread.sleep(1);
+      }
+      MappedByteBuffer memory;
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        memory = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+      }
+      memory.order(ByteOrder.LITTLE_ENDIAN);
+      while (!stopped && memory.getInt(0) != SharedMemoryChannel.MAGIC) {
+        Thread.yield();
+      }
+      int capacity = memory.getInt(8);
+      SharedMemoryRing requests =
+          new SharedMemoryRing(memory, SharedMemoryChannel.requestRingOffset(), capacity);
+      SharedMemoryRing responses =
+          new SharedMemoryRing(memory, SharedMemoryChannel.responseRingOffset(capacity), capacity);
+      while (!stopped && memory.getInt(12) == SharedMemoryChannel.STATE_OPEN) {
+        SharedMemoryRing.Message message = requests.poll();
+        if (message == null) {
+          Thread.yield();
+          continue;
+        }
+        BanditRequest request = codec.decode(message.getPayload(), BanditRequest.class);
+        byte[] reply;
+        if (request.getBanditCount() == -1) {
+          reply = new byte[0];
+        } else if (request.getBanditCount() == -2) {
+          continue;
+        } else {
+          BanditResponse response = new BanditResponse();
+          response.setArm(request.getBanditCount() - 1);
+          reply = codec.encode(response);
+        }
+        while (!responses.offer(message.getSequence(), reply)) {
+          Thread.yield();
+        }
+      }
+    } catch (IOException | InterruptedException e) {
+      // the test will fail waiting for a reply
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package dev.aisandbox.client.agent;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/** A very small WebSocket server, answering each message using a handler. */
+@Slf4j
+public class WebSocketTestServer implements AutoCloseable {
+
+  private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  private final ServerSocket serverSocket;
+  private final UnaryOperator<byte[]> handler;
+  @Getter private final AtomicInteger connections = new AtomicInteger();
+  @Getter private volatile String lastUpgradeRequest = null;
+
+  public WebSocketTestServer(UnaryOperator<byte[]> handler) throws IOException {
+    this.handler = handler;
+    serverSocket = new ServerSocket(0);
+    Thread thread = new Thread(this::acceptConnections, "websocket-test-server");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public String getURL() {
+    return "ws://localhost:" + serverSocket.getLocalPort() + "/ai";
+  }
+
+  private void acceptConnections() {
+    try {
+      while (!serverSocket.isClosed()) {
+        Socket socket = serverSocket.accept();
+        connections.incrementAndGet();
+        Thread thread = new Thread(() -> serve(socket), "websocket-test-connection");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    } catch (IOException e) {
+      log.debug("Test server closed", e);
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (socket) {
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      OutputStream out = socket.getOutputStream();
+      handshake(in, out);
+      while (true) {
+        int first = in.readUnsignedByte();
+        int opcode = first & 0x0f;
+        int second = in.readUnsignedByte();
+        long length = second & 0x7f;
+        if (length == 126) {
+          length = in.readUnsignedShort();
+        } else if (length == 127) {
+          length = in.readLong();
+        }
+        byte[] mask = new byte[4];
+        if ((second & 0x80) != 0) {
+          in.readFully(mask);
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        for (int i = 0; i < payload.length; i++) {
+          payload[i] ^= mask[i % 4];
+        }
+        if (opcode == 8) {
+          // echo the close
+          writeFrame(out, 8, new byte[0]);
+          return;
+        } else if (opcode == 1 || opcode == 2) {
+          writeFrame(out, opcode, handler.apply(payload));
+        }
+      }
+    } catch (IOException e) {
+      log.debug("Test connection closed", e);
+    }
+  }
+
+  private void handshake(DataInputStream in, OutputStream out) throws IOException {
+    // read the headers a byte at a time so nothing after them is buffered
+    StringBuilder request = new StringBuilder();
+    while (!request.toString().endsWith("\r\n\r\n")) {
+      request.append((char) in.readUnsignedByte());
+    }
+    lastUpgradeRequest = request.toString();
+    String key = null;
+    BufferedReader reader = new BufferedReader(new StringReader(lastUpgradeRequest));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+        key = line.substring(line.indexOf(':') + 1).trim();
+      }
+    }
+    String accept;
+    try {
+      accept =
+          Base64.getEncoder()
+              .encodeToString(
+                  MessageDigest.getInstance("SHA-1")
+                      .digest((key + GUID).getBytes(StandardCharsets.US_ASCII)));
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    out.write(
+        ("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: "
+                + accept
+                + "\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  private void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+    out.write(0x80 | opcode);
+    if (payload.length < 126) {
+      out.write(payload.length);
+    } else {
+      out.write(126);
+      out.write(payload.length >> 8);
+      out.write(payload.length);
+    }
+    out.write(payload);
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+}
@@ -6,6 +6,10 @@ import static org.junit.Assert.assertTrue;
 
 import dev.aisandbox.client.ApplicationModel;
 import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentBalancing;
+import dev.aisandbox.client.agent.AgentCompression;
+import dev.aisandbox.client.agent.AgentLanguage;
+import dev.aisandbox.client.agent.AgentTransport;
 import dev.aisandbox.client.output.OutputFormat;
 import dev.aisandbox.client.parameters.EnumerationParameter;
 import dev.aisandbox.client.parameters.LongParameter;
@@ -159,6 +163,36 @@ public class PropertiesParserTest {
     assertTrue("Agent 2 not using XML", agent2.isEnableXML());
   }
 
+  @Test
+  public void binaryLanguageTest() {
+    Properties props = new Properties();
+    props.setProperty("agents", "2");
+    props.setProperty("agent1URL", "http://www.test.com/");
+    props.setProperty("agent1Lang", "CBOR");
+    props.setProperty("agent2URL", "http://www.test2.com/");
+    props.setProperty("agent2Lang", "msgpack");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    assertEquals("Wrong number of agents configured", 2, model.getAgentList().size());
+    assertEquals(
+        "Agent 1 not using CBOR", AgentLanguage.CBOR, model.getAgentList().get(0).getLanguage());
+    assertEquals(
+        "Agent 2 not using MessagePack",
+        AgentLanguage.MSGPACK,
+        model.getAgentList().get(1).getLanguage());
+  }
+
+  @Test
+  public void webSocketTransportTest() {
+    Properties props = new Properties();
+    props.setProperty("agents", "1");
+    props.setProperty("agent1URL", "ws://www.test.com/ai");
+    props.setProperty("agent1Transport", "websocket");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    Agent agent1 = model.getAgentList().get(0);
+    assertEquals("Transport incorrect", AgentTransport.WEBSOCKET, agent1.getTransport());
+    assertTrue("WebSocket URL not valid", agent1.getValidProperty().get());
+  }
+
   @Test
   public void authKeyTest() {
     Properties props = new Properties();
@@ -190,4 +224,75 @@ public class PropertiesParserTest {
     assertEquals("Basic auth key incorrect", "key", agent1.getBasicAuthUsername());
     assertEquals("Basic auth value incorrect", "value", agent1.getBasicAuthPassword());
   }
+
+  @Test
+  public void connectionSettingsTest() {
+    Properties props = new Properties();
+    props.setProperty("agents", "1");
+    props.setProperty("agent1URL", "http://www.test.com/");
+    props.setProperty("agent1ConnectTimeout", "500");
+    props.setProperty("agent1ReadTimeout", "2000");
+    props.setProperty("agent1KeepAlive", "false");
+    props.setProperty("agent1HTTP2", "true");
+    props.setProperty("agent1Deadline", "3000");
+    props.setProperty("agent1Retries", "2");
+    props.setProperty("agent1HedgeTarget", "http://www.test2.com/");
+    props.setProperty("agent1HedgePercentile", "99");
+    props.setProperty("agent1Compression", "gzip");
+    props.setProperty("agent1CompressionThreshold", "4096");
+    props.setProperty("agent1CacheSize", "10000");
+    props.setProperty("agent1Balancing", "least_outstanding");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    Agent agent1 = model.getAgentList().get(0);
+    assertEquals("Connect timeout incorrect", 500, agent1.getConnectTimeout());
+    assertEquals("Read timeout incorrect", 2000, agent1.getReadTimeout());
+    assertFalse("Keep alive not disabled", agent1.isKeepAlive());
+    assertTrue("HTTP/2 not enabled", agent1.isHttp2());
+    assertEquals("Deadline incorrect", 3000, agent1.getDeadline());
+    assertEquals("Retries incorrect", 2, agent1.getRetries());
+    assertEquals("Hedge target incorrect", "http://www.test2.com/", agent1.getHedgeTarget());
+    assertEquals("Hedge percentile incorrect", 99.0, agent1.getHedgePercentile(), 0.0);
+    assertEquals("Compression incorrect", AgentCompression.GZIP, agent1.getCompression());
+    assertEquals("Compression threshold incorrect", 4096, agent1.getCompressionThreshold());
+    assertEquals("Cache size incorrect", 10000, agent1.getCacheSize());
+    assertEquals("Balancing incorrect", AgentBalancing.LEAST_OUTSTANDING, agent1.getBalancing());
+  }
+
+  @Test
+  public void badConnectionSettingTest() {
+    Properties props = new Properties();
+    props.setProperty("agents", "1");
+    props.setProperty("agent1ConnectTimeout", "soon");
+    props.setProperty("agent1ReadTimeout", "2000");
+    props.setProperty("agent1CacheSize", "100");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    Agent agent1 = model.getAgentList().get(0);
+    // the bad value is ignored, but the others are still read
+    assertEquals("Connect timeout changed", 10000, agent1.getConnectTimeout());
+    assertEquals("Read timeout incorrect", 2000, agent1.getReadTimeout());
+    assertEquals("Cache size incorrect", 100, agent1.getCacheSize());
+  }
+
+  @Test
+  public void warmupSettingsTest() {
+    Properties props = new Properties();
+    props.setProperty("warmup", "200");
+    props.setProperty("warmupTimeout", "5000");
+    props.setProperty("tournament", "true");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    assertEquals("Warm up steps incorrect", 200, model.getWarmupSteps());
+    assertEquals("Warm up timeout incorrect", 5000, model.getWarmupTimeout());
+    assertTrue("Tournament not enabled", model.isTournament());
+  }
+
+  @Test
+  public void badWarmupSettingTest() {
+    Properties props = new Properties();
+    props.setProperty("warmup", "lots");
+    props.setProperty("warmupTimeout", "5000");
+    ApplicationModel model = parser.parseConfiguration(new ApplicationModel(), props);
+    // the bad step count is ignored, but the timeout is still read
+    assertEquals("Warm up steps changed", 0, model.getWarmupSteps());
+    assertEquals("Warm up timeout incorrect", 5000, model.getWarmupTimeout());
+  }
 }
@@ -0,0 +1,27 @@
+package dev.aisandbox.client.profiler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class AIProfilerTest {
+
+  @Test
+  public void phasesKeptApartFromStepsTest() {
+    AIProfiler profiler = new AIProfiler();
+    profiler.stepCount = 2;
+    profiler.cumulativeStepTiming.put("Network", 10.0);
+    profiler.cumulativeStepTiming.put("Graphics", 4.0);
+    // a request sent ahead of time can take longer than the steps spent waiting for it
+    NetworkPhases phases = new NetworkPhases();
+    phases.add(NetworkPhases.Phase.FIRST_BYTE, 50000000L);
+    phases.countRequest();
+    profiler.addAgentPhases("agent", phases);
+    Map<String, Double> times = profiler.getAverageTime();
+    assertEquals("Phases added to the steps", Set.of("Network", "Graphics"), times.keySet());
+    assertEquals("Network time changed", 5.0, times.get("Network"), 0.0);
+    assertEquals("Graphics time changed", 2.0, times.get("Graphics"), 0.0);
+  }
+}
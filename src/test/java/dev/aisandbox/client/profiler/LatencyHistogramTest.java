@@ -0,0 +1,71 @@
+package dev.aisandbox.client.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void emptyTest() {
+    LatencyHistogram h = new LatencyHistogram();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getValueAtPercentile(99.0));
+    assertEquals(0.0, h.getMean(), 0.0);
+  }
+
+  @Test
+  public void percentileTest() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      h.recordValue(i * 1000L);
+    }
+    assertEquals(1000, h.getCount());
+    assertEquals(1000000, h.getMax());
+    assertEquals(500500.0, h.getMean(), 0.001);
+    assertWithin(500000, h.getValueAtPercentile(50.0));
+    assertWithin(900000, h.getValueAtPercentile(90.0));
+    assertWithin(990000, h.getValueAtPercentile(99.0));
+    assertEquals(1000000, h.getValueAtPercentile(100.0));
+  }
+
+  @Test
+  public void stallTest() {
+    // one 2 second stall in 10000 fast responses shows in the max but not the median
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 0; i < 10000; i++) {
+      h.recordValue(1000);
+    }
+    h.recordValue(2000000);
+    assertWithin(1000, h.getValueAtPercentile(50.0));
+    assertWithin(1000, h.getValueAtPercentile(99.9));
+    assertEquals(2000000, h.getMax());
+  }
+
+  @Test
+  public void bucketRangeTest() {
+    long[] values = {0, 1, 127, 128, 129, 255, 256, 1000, 123456789L, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = LatencyHistogram.bucketIndex(value);
+      long high = LatencyHistogram.highestValueInBucket(index);
+      assertTrue("Bucket for " + value + " tops out at " + high, high >= value);
+      assertTrue("Bucket for " + value + " too wide", high - value <= value / 64);
+    }
+  }
+
+  @Test
+  public void resetTest() {
+    LatencyHistogram h = new LatencyHistogram();
+    h.recordValue(5000);
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getMax());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(
+        "Expected about " + expected + " but was " + actual,
+        actual >= expected && actual <= expected + expected / 64);
+  }
+}
@@ -5,9 +5,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import dev.aisandbox.client.ApplicationModel;
+import dev.aisandbox.client.NoSimulationListener;
 import dev.aisandbox.client.SimulationRunThread;
 import dev.aisandbox.client.cli.PropertiesParser;
-import dev.aisandbox.client.fx.FakeGameRunController;
 import dev.aisandbox.client.scenarios.maze.agent.MazeTestAgent;
 import dev.aisandbox.launcher.AISandboxCLI;
 import java.io.File;
@@ -52,6 +52,20 @@ public class MazeRunTest {
 
   @Test(timeout = 100000)
   public void runFullMazeTest() throws Exception {
+    runMaze(false, 1);
+  }
+
+  @Test(timeout = 100000)
+  public void runPipelinedMazeTest() throws Exception {
+    runMaze(true, 1);
+  }
+
+  @Test(timeout = 100000)
+  public void runBatchedMazeTest() throws Exception {
+    runMaze(false, 4);
+  }
+
+  private void runMaze(boolean pipelined, int batchSize) throws Exception {
     log.info("Running simulation manually");
     assertNotNull("Null parser", parser);
     assertNotNull("Null application model", model);
@@ -69,8 +83,13 @@ public class MazeRunTest {
     model.getAgentList().clear();
     model.getAgentList().add(new MazeTestAgent());
     assertTrue("Model not ready", model.getValid().get());
-    // setup a fake UI
-    model.initialiseRuntime(new FakeGameRunController(model, null));
+    // ignore the simulation results
+    model.addSimulationListener(new NoSimulationListener());
+    model.setPipelined(pipelined);
+    model.setBatchSize(batchSize);
+    model.initialiseRuntime();
+    model.setPipelined(false);
+    model.setBatchSize(1);
     // run the model
     SimulationRunThread thread;
     thread = new SimulationRunThread(model, model.getMaxStepCount().get());
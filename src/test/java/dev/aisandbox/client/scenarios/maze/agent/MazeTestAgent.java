@@ -2,9 +2,13 @@ package dev.aisandbox.client.scenarios.maze.agent;
 
 import dev.aisandbox.client.agent.Agent;
 import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.scenarios.BatchRequest;
 import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.ServerResponse;
 import dev.aisandbox.client.scenarios.maze.api.MazeRequest;
 import dev.aisandbox.client.scenarios.maze.api.MazeResponse;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 public class MazeTestAgent extends Agent {
@@ -19,4 +23,14 @@ public class MazeTestAgent extends Agent {
         r.getConfig().getValidMoves()[rand.nextInt(r.getConfig().getValidMoves().length)]);
     return responseType.cast(response);
   }
+
+  @Override
+  public <T extends ServerResponse> List<T> postBatch(BatchRequest<?> batch, Class<T> responseType)
+      throws AgentException {
+    List<T> responses = new ArrayList<>();
+    for (ServerRequest req : batch.getRequests()) {
+      responses.add(postRequest(req, responseType));
+    }
+    return responses;
+  }
 }
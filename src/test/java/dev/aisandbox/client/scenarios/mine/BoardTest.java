@@ -3,6 +3,8 @@ package dev.aisandbox.client.scenarios.mine;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import org.junit.Test;
 
@@ -24,6 +26,20 @@ public class BoardTest {
     assertEquals("Row 1", "##", b.getRowToString(1));
   }
 
+  @Test
+  public void changedCellsTest() {
+    Board b = new Board(3, 1);
+    b.getCell(2, 0).setMine(true);
+    b.countNeighbours();
+    // uncovering the empty corner flood fills the middle cell too
+    b.uncover(0, 0);
+    List<CellLocation> changed = b.takeChangedCells();
+    assertEquals(Arrays.asList(new CellLocation(0, 0), new CellLocation(1, 0)), changed);
+    assertTrue("Changes not cleared", b.takeChangedCells().isEmpty());
+    b.placeFlag(2, 0);
+    assertEquals(Arrays.asList(new CellLocation(2, 0)), b.takeChangedCells());
+  }
+
   @Test
   public void singleCellBoardTest() {
     Board b = new Board(1, 1);
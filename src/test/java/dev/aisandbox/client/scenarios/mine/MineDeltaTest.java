@@ -0,0 +1,105 @@
+package dev.aisandbox.client.scenarios.mine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentTransport;
+import dev.aisandbox.client.profiler.ProfileStep;
+import dev.aisandbox.client.scenarios.BatchRuntime;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
+import dev.aisandbox.client.scenarios.mine.api.CellChange;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterRequest;
+import dev.aisandbox.client.scenarios.mine.api.MineHunterResponse;
+import dev.aisandbox.client.scenarios.mine.api.Move;
+import dev.aisandbox.client.sprite.SpriteLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class MineDeltaTest {
+
+  private static MineHunterResponse uncover(int x, int y) {
+    Move move = new Move();
+    move.setX(x);
+    move.setY(y);
+    MineHunterResponse response = new MineHunterResponse();
+    response.setMoves(new Move[] {move});
+    return response;
+  }
+
+  @Test
+  public void deltaRequestTest() {
+    MineHunterRuntime runtime = new MineHunterRuntime(new SpriteLoader());
+    runtime.setRandom(new Random(42));
+    runtime.setDeltaMode(true);
+    runtime.initialise();
+    // the first request holds the whole board
+    MineHunterRequest request = runtime.createRequest();
+    assertNotNull("No snapshot", request.getBoard());
+    assertEquals("Snapshot sequence", 0L, (long) request.getSequence());
+    String boardID = request.getBoardID();
+    MineHunterRequest snapshot = request;
+    runtime.applyResponse(uncover(0, 0), new ProfileStep(), false);
+    request = runtime.createRequest();
+    // the snapshot may still be being sent, so it isn't reused
+    assertNotNull("Sent request changed", snapshot.getBoard());
+    assertEquals("Sent request changed", 0L, (long) snapshot.getSequence());
+    if (boardID.equals(request.getBoardID())) {
+      assertNull("Board sent in delta", request.getBoard());
+      assertEquals("Delta sequence", 1L, (long) request.getSequence());
+      assertTrue("No changes", request.getChanges().length > 0);
+      CellChange first = request.getChanges()[0];
+      assertTrue("Uncovered cell still covered", !"#".equals(first.getValue()));
+    } else {
+      // hit a mine, so a new board is sent in full
+      assertNotNull("No snapshot for new board", request.getBoard());
+      assertEquals("New snapshot sequence", 0L, (long) request.getSequence());
+    }
+  }
+
+  @Test
+  public void fullBoardTest() {
+    MineHunterRuntime runtime = new MineHunterRuntime(new SpriteLoader());
+    runtime.initialise();
+    runtime.createRequest();
+    runtime.applyResponse(uncover(0, 0), new ProfileStep(), false);
+    MineHunterRequest request = runtime.createRequest();
+    assertNotNull("Board not sent", request.getBoard());
+    assertNull("Sequence sent without delta mode", request.getSequence());
+    assertNull("Changes sent without delta mode", request.getChanges());
+  }
+
+  @Test
+  public void batchResetTest() throws Exception {
+    List<BatchableRuntime<MineHunterRequest, MineHunterResponse>> environments = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      MineHunterRuntime runtime = new MineHunterRuntime(new SpriteLoader());
+      runtime.setRandom(new Random(i));
+      runtime.setDeltaMode(true);
+      environments.add(runtime);
+    }
+    BatchRuntime<MineHunterRequest, MineHunterResponse> batch = new BatchRuntime<>(environments);
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-mine");
+    batch.setAgents(Collections.singletonList(agent));
+    agent.setupAgent();
+    batch.initialise();
+    // the agent keeps both environments' boards apart
+    for (int i = 0; i < 10; i++) {
+      batch.advance();
+    }
+    // a new agent doesn't know the boards, so asks for them to be resent
+    agent.setupAgent();
+    for (int i = 0; i < 10; i++) {
+      batch.advance();
+    }
+    // setting up again clears the latency, leaving the steps and the request that was refused
+    assertEquals("Board not resent", 11, agent.getLatency().getCount());
+  }
+}
@@ -5,9 +5,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import dev.aisandbox.client.ApplicationModel;
+import dev.aisandbox.client.NoSimulationListener;
 import dev.aisandbox.client.SimulationRunThread;
 import dev.aisandbox.client.cli.PropertiesParser;
-import dev.aisandbox.client.fx.FakeGameRunController;
 import dev.aisandbox.client.scenarios.mine.agent.MineTestAgent;
 import dev.aisandbox.launcher.AISandboxCLI;
 import java.io.File;
@@ -66,8 +66,9 @@ public class MineRunTest {
     model.getAgentList().clear();
     model.getAgentList().add(new MineTestAgent());
     assertTrue("Model not ready", model.getValid().get());
-    // setup a fake UI
-    model.initialiseRuntime(new FakeGameRunController(model, null));
+    // ignore the simulation results
+    model.addSimulationListener(new NoSimulationListener());
+    model.initialiseRuntime();
     // run the model
     SimulationRunThread thread = new SimulationRunThread(model, model.getMaxStepCount().get());
     // run the simulation
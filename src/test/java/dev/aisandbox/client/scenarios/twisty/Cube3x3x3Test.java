@@ -21,6 +21,12 @@ public class Cube3x3x3Test {
     assertEquals("Number of moves", 45, cube.getMoveList().size());
   }
 
+  @Test
+  public void moveListCachedTest() {
+    TPPuzzle cube = new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID());
+    assertSame("Move list rebuilt", cube.getMoveList(), cube.getMoveList());
+  }
+
   @Test
   public void solvedTestStatic() {
     TPPuzzle cube = new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID());
@@ -0,0 +1,57 @@
+package dev.aisandbox.client.scenarios.twisty;
+
+import static org.junit.Assert.assertTrue;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentConnectionException;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TwistyPipelineTest {
+
+  /** Answers the first request, then holds every other request until it is aborted. */
+  private static class StallingAgent extends Agent {
+    final AtomicInteger requests = new AtomicInteger();
+    final CountDownLatch aborted = new CountDownLatch(1);
+
+    @Override
+    public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+      if (requests.incrementAndGet() > 1) {
+        try {
+          aborted.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw new AgentConnectionException(getTarget(), "Aborted");
+      }
+      TwistyResponse response = new TwistyResponse();
+      response.setMove("F");
+      return responseType.cast(response);
+    }
+
+    @Override
+    public void abort() {
+      aborted.countDown();
+    }
+  }
+
+  @Test
+  public void closeAbortsPendingRequestTest() throws Exception {
+    StallingAgent agent = new StallingAgent();
+    TwistyRuntime runtime = new TwistyRuntime();
+    runtime.setPuzzle(new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID()));
+    runtime.setPipelined(true);
+    runtime.setAgents(Collections.singletonList(agent));
+    runtime.initialise();
+    runtime.advance();
+    // the next request was sent ahead, stopping the run gives up on it
+    runtime.close();
+    assertTrue("Pending request not aborted", agent.aborted.await(5, TimeUnit.SECONDS));
+  }
+}
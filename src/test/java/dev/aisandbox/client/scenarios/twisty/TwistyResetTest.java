@@ -0,0 +1,66 @@
+package dev.aisandbox.client.scenarios.twisty;
+
+import static org.junit.Assert.assertEquals;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.agent.AgentResetException;
+import dev.aisandbox.client.agent.AgentTransport;
+import dev.aisandbox.client.scenarios.BatchRequest;
+import dev.aisandbox.client.scenarios.BatchRuntime;
+import dev.aisandbox.client.scenarios.BatchableRuntime;
+import dev.aisandbox.client.scenarios.ServerResponse;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TwistyResetTest {
+
+  /** A local agent that asks for a reset when told to. */
+  private static class ResettingAgent extends Agent {
+    boolean reset = false;
+
+    @Override
+    public <T extends ServerResponse> List<T> postBatch(
+        BatchRequest<?> batch, Class<T> responseType) throws AgentException {
+      if (reset) {
+        reset = false;
+        throw new AgentResetException(getTarget(), "Start again");
+      }
+      return super.postBatch(batch, responseType);
+    }
+  }
+
+  @Test
+  public void batchResetTest() throws Exception {
+    List<TwistyRuntime> runtimes = new ArrayList<>();
+    List<BatchableRuntime<TwistyRequest, TwistyResponse>> environments = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      TwistyRuntime runtime = new TwistyRuntime();
+      runtime.setRandom(new Random(i));
+      runtime.setPuzzle(new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID()));
+      runtimes.add(runtime);
+      environments.add(runtime);
+    }
+    BatchRuntime<TwistyRequest, TwistyResponse> batch = new BatchRuntime<>(environments);
+    ResettingAgent agent = new ResettingAgent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-twisty");
+    batch.setAgents(Collections.singletonList(agent));
+    agent.setupAgent();
+    batch.initialise();
+    for (int i = 0; i < 5; i++) {
+      batch.advance();
+    }
+    // the reset puts every puzzle back to its scrambled state before the next move
+    agent.reset = true;
+    batch.advance();
+    for (TwistyRuntime runtime : runtimes) {
+      assertEquals("Puzzle not reset", runtime.savedState, runtime.history.getStartState());
+    }
+  }
+}
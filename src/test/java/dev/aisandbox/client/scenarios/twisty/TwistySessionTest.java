@@ -0,0 +1,155 @@
+package dev.aisandbox.client.scenarios.twisty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import dev.aisandbox.client.agent.Agent;
+import dev.aisandbox.client.agent.AgentAuthException;
+import dev.aisandbox.client.agent.AgentException;
+import dev.aisandbox.client.agent.AgentRequestException;
+import dev.aisandbox.client.agent.AgentTransport;
+import dev.aisandbox.client.scenarios.ServerRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistyRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionRequest;
+import dev.aisandbox.client.scenarios.twisty.api.TwistySessionResponse;
+import java.util.Collections;
+import org.junit.Test;
+
+public class TwistySessionTest {
+
+  /** A local agent that rejects session starts when told to. */
+  private static class SessionRejectingAgent extends Agent {
+    boolean rejectSessions = false;
+
+    @Override
+    public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+      if (rejectSessions && req instanceof TwistySessionRequest) {
+        throw new AgentRequestException(getTarget(), "HTTP error (400)");
+      }
+      return super.postRequest(req, responseType);
+    }
+  }
+
+  private static TwistyRuntime createRuntime(Agent agent) throws AgentException {
+    TwistyRuntime runtime = new TwistyRuntime();
+    runtime.setPuzzle(new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID()));
+    runtime.setSession(true);
+    runtime.setAgents(Collections.singletonList(agent));
+    agent.setupAgent();
+    runtime.initialise();
+    runtime.prepare();
+    return runtime;
+  }
+
+  @Test
+  public void sessionTest() throws Exception {
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-twisty");
+    TwistyRuntime runtime = createRuntime(agent);
+    TwistyRequest request = runtime.createRequest();
+    assertNotNull("No session", request.getSessionID());
+    assertNull("Moves sent in session", request.getMoves());
+    assertNull("Puzzle type sent in session", request.getPuzzleType());
+    // the agent can still play using the moves from the session start
+    runtime.advance();
+    runtime.advance();
+  }
+
+  @Test
+  public void lostSessionTest() throws Exception {
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-twisty");
+    TwistyRuntime runtime = createRuntime(agent);
+    String session = runtime.createRequest().getSessionID();
+    runtime.advance();
+    // a new agent doesn't know the session, so asks for a reset and a new session is started
+    agent.setupAgent();
+    runtime.advance();
+    runtime.advance();
+    assertNotNull("Session not restarted", runtime.createRequest().getSessionID());
+    assertNotEquals("Old session kept", session, runtime.createRequest().getSessionID());
+  }
+
+  @Test
+  public void cachedSessionTest() throws Exception {
+    Agent agent = new Agent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-twisty");
+    agent.setCacheSize(10);
+    // both runtimes send the same session start, each still gets its own session
+    TwistyRuntime first = createRuntime(agent);
+    String firstSession = first.createRequest().getSessionID();
+    TwistyRuntime second = createRuntime(agent);
+    assertNotEquals("Session shared", firstSession, second.createRequest().getSessionID());
+  }
+
+  @Test
+  public void noSessionTest() throws Exception {
+    // an agent that doesn't understand sessions
+    Agent agent =
+        new Agent() {
+          @Override
+          public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+            return responseType.cast(new TwistySessionResponse());
+          }
+        };
+    TwistyRuntime runtime = createRuntime(agent);
+    TwistyRequest request = runtime.createRequest();
+    assertNull("Session without ID", request.getSessionID());
+    assertEquals("Moves not sent", 45, request.getMoves().size());
+  }
+
+  @Test
+  public void lazySessionTest() {
+    // the session isn't started until the first step, after any warm-up
+    Agent agent =
+        new Agent() {
+          @Override
+          public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+            throw new AssertionError("Agent used before the first step");
+          }
+        };
+    TwistyRuntime runtime = new TwistyRuntime();
+    runtime.setPuzzle(new TPPuzzle(PuzzleType.CUBE3.getResource(), PuzzleType.CUBE3.getID()));
+    runtime.setSession(true);
+    runtime.setAgents(Collections.singletonList(agent));
+    runtime.initialise();
+  }
+
+  @Test(expected = AgentAuthException.class)
+  public void sessionAuthErrorTest() throws Exception {
+    // an agent refusing the credentials isn't taken as one without sessions
+    Agent agent =
+        new Agent() {
+          @Override
+          public <T> T postRequest(ServerRequest req, Class<T> responseType) throws AgentException {
+            throw new AgentAuthException(getTarget(), "Bad key");
+          }
+        };
+    createRuntime(agent);
+  }
+
+  @Test
+  public void failedSessionAfterResetTest() throws Exception {
+    SessionRejectingAgent agent = new SessionRejectingAgent();
+    agent.setTransport(AgentTransport.LOCAL);
+    agent.setTarget("random-twisty");
+    TwistyRuntime runtime = createRuntime(agent);
+    assertNotNull("No session", runtime.createRequest().getSessionID());
+    runtime.advance();
+    // the new agent doesn't know the session, so asks for a reset
+    agent.setupAgent();
+    runtime.advance();
+    agent.rejectSessions = true;
+    // the new session can't be started, so the full puzzle is sent without the old session
+    runtime.advance();
+    TwistyRequest request = runtime.createRequest();
+    assertNull("Old session still sent", request.getSessionID());
+    assertEquals("Moves not sent", 45, request.getMoves().size());
+    runtime.advance();
+  }
+}